@@ -0,0 +1,44 @@
+#!/bin/sh
+#
+# Builds an application class data sharing (AppCDS) archive for the program.
+#
+# The archive holds the program, JavaFX and MySQL driver classes the program loads while it starts, already parsed
+# and verified. Later starts map them in from the archive instead of loading them from the jars again.
+#
+# Usage (from the JavaProject_QAM2 directory, with JDK 11):
+#
+#   JAVAFX_LIB=<javafx-sdk-11.0.2/lib> MYSQL_JAR=<mysql-connector-java-8.0.29.jar> scripts/build-cds-archive.sh [classes]
+#
+# <classes> is the compiler output of the project, out/production/ZamiskaQAM2PA by default. The archive and the jar
+# it was built for are written to out/cds, or to CDS_DIR if it is set.
+#
+# The class list is recorded from a training run (-Dstartup.trainingRun=true). It shows the log in window, warms up
+# the connection pool and the reference data, loads every view and exits by itself. The database should be reachable
+# so the driver classes are loaded too.
+#
+# The archive only matches the jars it was built from, so build it again after every build of the program.
+
+set -e
+
+: "${JAVAFX_LIB:?set JAVAFX_LIB to the lib directory of the JavaFX SDK}"
+: "${MYSQL_JAR:?set MYSQL_JAR to the MySQL connector jar}"
+
+CLASSES=${1:-out/production/ZamiskaQAM2PA}
+CDS_DIR=${CDS_DIR:-out/cds}
+mkdir -p "$CDS_DIR"
+
+# Class data sharing only archives classes from jars, not from directories
+rm -f "$CDS_DIR/app.jar"
+jar cf "$CDS_DIR/app.jar" -C "$CLASSES" .
+
+OPTIONS="--module-path $JAVAFX_LIB --add-modules javafx.controls,javafx.fxml -cp $CDS_DIR/app.jar:$MYSQL_JAR"
+
+echo "Training run..."
+java -Xshare:off -XX:DumpLoadedClassList="$CDS_DIR/app.classlist" -Dstartup.trainingRun=true $OPTIONS model.Main
+
+echo "Dumping $(wc -l < "$CDS_DIR/app.classlist") classes..."
+java -Xshare:dump -XX:SharedClassListFile="$CDS_DIR/app.classlist" -XX:SharedArchiveFile="$CDS_DIR/app.jsa" $OPTIONS
+
+echo
+echo "Start the program with the archive with:"
+echo "  java -XX:SharedArchiveFile=$CDS_DIR/app.jsa $OPTIONS model.Main"
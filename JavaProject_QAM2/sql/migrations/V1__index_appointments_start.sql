@@ -0,0 +1,7 @@
+-- Index for the appointment date-range queries (AppointmentDAO.findAppointmentsBetween).
+--
+-- The week/month filters on the Main Screen now ask for "Start >= ? AND Start < ?" instead of wrapping the
+-- column in YEARWEEK()/MONTH(), so mySQL can range-scan this index instead of reading the whole table.
+-- InnoDB secondary indexes carry the primary key, so this also covers ORDER BY Start, Appointment_ID.
+
+CREATE INDEX idx_appointments_start ON appointments (Start);
@@ -0,0 +1,7 @@
+-- Index for the customer overlap check (AppointmentDAO.findOverlapping).
+--
+-- The Add/Modify Appointment screens ask for "Customer_ID = ? AND Start < ? AND End > ?" instead of reading every
+-- appointment. With this index mySQL seeks straight to the customer, range-scans Start and filters End from the
+-- index itself (index condition pushdown), so only the overlapping rows are read and sent back.
+
+CREATE INDEX idx_appointments_customer_start_end ON appointments (Customer_ID, Start, End);
@@ -0,0 +1,6 @@
+-- Index for the appointment delta sync (AppointmentDAO.getAppointmentsChangedSince).
+--
+-- The Main Screen now asks only for "Last_Update >= ?" after a change instead of reloading the whole table, this lets
+-- mySQL range-scan the rows changed since the last sync. It also answers MAX(Last_Update) from the index alone.
+
+CREATE INDEX idx_appointments_last_update ON appointments (Last_Update);
@@ -0,0 +1,8 @@
+-- Indexes for the server side reports (ReportDAO).
+--
+-- The type list and the month/type count are answered from (Type, Start) without reading any rows. The contact and
+-- user reports seek straight to the contact or user and read the appointments already in start time order.
+
+CREATE INDEX idx_appointments_type_start ON appointments (Type, Start);
+CREATE INDEX idx_appointments_contact_start ON appointments (Contact_ID, Start);
+CREATE INDEX idx_appointments_user_start ON appointments (User_ID, Start);
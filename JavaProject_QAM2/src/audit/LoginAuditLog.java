@@ -0,0 +1,315 @@
+package audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Class for the login audit log, <i>login_activity.txt</i>.
+ *
+ * <p>
+ * Logging a record never touches the file on the calling thread, so a burst of log in attempts does not block the
+ * JavaFX Application Thread:
+ *     <ul>
+ *         <li>The record is put on a lock-free ring buffer (see <i>MpscRingBuffer</i>). Only when the ring is full
+ *         does the caller wait, briefly, for the writer to make room; records are never dropped.</li>
+ *         <li>One writer thread takes every record that is waiting, turns them into text and writes them to the file
+ *         in one write (group commit), so records never interleave.</li>
+ *         <li>How often the file is forced to disk is set with <i>-Daudit.fsync</i>: <i>batch</i> (after every group
+ *         commit, the default), <i>interval</i> (at most every <i>-Daudit.fsyncIntervalMillis</i>) or <i>none</i>.</li>
+ *         <li>The file is rotated to <i>login_activity.&lt;date&gt;.txt</i> when the date changes or it grows past
+ *         <i>-Daudit.maxBytes</i>.</li>
+ *         <li>Log in attempts are also copied to the binary <i>LoginJournal</i> for searching, unless
+ *         <i>-Daudit.journal=false</i>.</li>
+ *     </ul>
+ * </p>
+ * <p>
+ * <i>close</i> writes out every waiting record and forces the file to disk. It also runs from a shutdown hook, so
+ * the log is flushed however the program exits. Logging again after <i>close</i> starts a new writer.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+public final class LoginAuditLog {
+
+    private static final Path file = Paths.get(System.getProperty("audit.file", "login_activity.txt"));
+    private static final int ringSize = Integer.getInteger("audit.ringSize", 1024);
+    private static final int maxBatch = Integer.getInteger("audit.maxBatch", 256);
+    private static final Fsync fsync = Fsync.valueOf(System.getProperty("audit.fsync", "batch").toUpperCase(Locale.ROOT));
+    private static final long fsyncIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Long.getLong("audit.fsyncIntervalMillis", 1000L));
+    private static final long maxBytes = Long.getLong("audit.maxBytes", 10L * 1024 * 1024);
+    private static final boolean journalEnabled = Boolean.parseBoolean(System.getProperty("audit.journal", "true"));
+    private static final long shutdownTimeoutMillis = 5_000L;
+
+    private static LoginAuditLog instance;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(LoginAuditLog::close, "login-audit-shutdown"));
+    }
+
+    private final MpscRingBuffer<LoginRecord> queue = new MpscRingBuffer<>(ringSize);
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // Only touched by the writer thread
+    private FileChannel channel;
+    private LoginJournal journal;
+    private LocalDate fileDate;
+    private boolean unforced;
+    private long lastForce = System.nanoTime();
+
+
+    /**
+     * The fsync policies.
+     */
+    private enum Fsync {
+        NONE,
+        BATCH,
+        INTERVAL
+    }
+
+
+    private LoginAuditLog() {
+        writer = new Thread(this::run, "login-audit-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+
+    /**
+     * Method that logs the start of a program session.
+     *
+     * @param started When the session started
+     */
+    public static void sessionStarted(LocalDateTime started) {
+        log(LoginRecord.session(started));
+    }
+
+
+    /**
+     * Method that logs a log in attempt.
+     *
+     * @param userName      The user name entered
+     * @param outcome       How the attempt ended
+     * @param attemptNumber The number of failed attempts so far in the session, counting this one if it failed
+     */
+    public static void attempt(String userName, LoginOutcome outcome, int attemptNumber) {
+        log(LoginRecord.attempt(userName, outcome, attemptNumber));
+    }
+
+
+    /**
+     * Method that writes out every waiting record, forces the file to disk and stops the writer thread.
+     */
+    public static void close() {
+        LoginAuditLog log;
+        synchronized (LoginAuditLog.class) {
+            log = instance;
+            instance = null;
+        }
+        if (log != null) {
+            log.stop();
+        }
+    }
+
+
+    private static void log(LoginRecord record) {
+        LoginAuditLog log;
+        synchronized (LoginAuditLog.class) {
+            if (instance == null) {
+                instance = new LoginAuditLog();
+            }
+            log = instance;
+        }
+        log.enqueue(record);
+    }
+
+
+    private void enqueue(LoginRecord record) {
+        int tries = 0;
+        while (!queue.offer(record)) {
+            // Full, let the writer catch up
+            LockSupport.unpark(writer);
+            if (++tries < 100) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(100_000L);
+            }
+        }
+        LockSupport.unpark(writer);
+    }
+
+
+    private void stop() {
+        closed = true;
+        LockSupport.unpark(writer);
+        try {
+            writer.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    /**
+     * The loop of the writer thread.
+     */
+    private void run() {
+        StringBuilder text = new StringBuilder(8192);
+        while (true) {
+            // Read before draining, so every record put on the ring before close is written
+            boolean stopping = closed;
+            int taken = 0;
+            LoginRecord record;
+            try {
+                while (taken < maxBatch && (record = queue.poll()) != null) {
+                    LocalDate date = record.localTime().toLocalDate();
+                    if (channel == null) {
+                        open(date);
+                    }
+                    if (!date.equals(fileDate)) {
+                        write(text);
+                        rotate();
+                        open(date);
+                    }
+                    record.render(text);
+                    if (record.session == null) {
+                        journal(record);
+                    }
+                    taken++;
+                }
+                if (taken > 0) {
+                    write(text);
+                    if (fsync == Fsync.BATCH) {
+                        force();
+                    }
+                    if (channel.size() >= maxBytes) {
+                        rotate();
+                    }
+                }
+                if (fsync == Fsync.INTERVAL && unforced && System.nanoTime() - lastForce >= fsyncIntervalNanos) {
+                    force();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                text.setLength(0);
+                closeChannel();
+            }
+            if (taken == 0) {
+                if (stopping) {
+                    break;
+                }
+                LockSupport.parkNanos(this, fsync == Fsync.INTERVAL ? fsyncIntervalNanos : TimeUnit.SECONDS.toNanos(1));
+            }
+        }
+        try {
+            force();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        closeChannel();
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+
+    /**
+     * Method that copies a log in attempt to the binary journal. A journal that fails is reopened for the next
+     * attempt; the text log carries on either way.
+     */
+    private void journal(LoginRecord record) {
+        if (!journalEnabled) {
+            return;
+        }
+        try {
+            if (journal == null) {
+                journal = new LoginJournal(LoginJournal.defaultDirectory());
+            }
+            journal.append(record);
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            journal = null;
+        }
+    }
+
+
+    private void open(LocalDate today) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        if (fileDate == null) {
+            // The file may have been left by an earlier day's run
+            fileDate = channel.size() == 0 ? today
+                    : LocalDate.ofInstant(Instant.ofEpochMilli(Files.getLastModifiedTime(file).toMillis()), ZoneId.systemDefault());
+        }
+    }
+
+
+    private void write(StringBuilder text) throws IOException {
+        if (text.length() == 0) {
+            return;
+        }
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(CharBuffer.wrap(text));
+        text.setLength(0);
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+        unforced = true;
+    }
+
+
+    private void force() throws IOException {
+        if (unforced && channel != null) {
+            channel.force(false);
+            if (journal != null) {
+                journal.force();
+            }
+            unforced = false;
+            lastForce = System.nanoTime();
+        }
+    }
+
+
+    /**
+     * Method that moves the current file aside as <i>login_activity.&lt;date&gt;[.n].txt</i>.
+     */
+    private void rotate() throws IOException {
+        force();
+        closeChannel();
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        Path target = file.resolveSibling(base + "." + fileDate + extension);
+        for (int n = 1; Files.exists(target); n++) {
+            target = file.resolveSibling(base + "." + fileDate + "." + n + extension);
+        }
+        Files.move(file, target);
+        fileDate = null;
+    }
+
+
+    private void closeChannel() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            channel = null;
+        }
+    }
+}
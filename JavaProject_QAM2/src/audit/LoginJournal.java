@@ -0,0 +1,436 @@
+package audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Class for the binary login journal, a copy of the log in attempts of <i>login_activity.txt</i> that can be searched
+ * quickly.
+ *
+ * <p>
+ * The journal is a directory of segment files, <i>segment-&lt;first epoch millis&gt;.journal</i>. Each segment is
+ * memory mapped and holds fixed size records after a 64 byte header:
+ *     <ul>
+ *         <li>Header: magic, version, record size, capacity, record count, then the earliest and latest time in the
+ *         segment. The times make up the time index: a query skips every segment outside its time range without
+ *         reading its records.</li>
+ *         <li>Record (128 bytes): time in epoch milliseconds, attempt number, outcome, the lengths of the user name
+ *         and time zone, then the user name (UTF-8, up to 64 bytes) and the time zone ID (up to 48 bytes).</li>
+ *     </ul>
+ * A new segment is started when the current one is full or the date changes, so a segment never spans two days.
+ * </p>
+ * <p>
+ * A segment starts with room for <i>audit.journalInitialRecords</i> records (256 by default, 32 KB) and is mapped
+ * again at twice the size each time it fills up, until it holds <i>audit.journalSegmentRecords</i> records (65536 by
+ * default). A day with a handful of log ins takes a few kilobytes on disk and in the address space, not the 8 MB of a
+ * full segment. The capacity in the header is the room the file has now.
+ * </p>
+ * <p>
+ * The journal is written only by the writer thread of <i>LoginAuditLog</i>. <i>query</i> may be called from any
+ * thread or from another process; it maps the segments read-only and compares the raw bytes of each record, so no
+ * objects are made for records that do not match.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see LoginAuditLog
+ */
+public final class LoginJournal implements Closeable {
+
+    private static final int MAGIC = 0x4C4A4E31; // "LJN1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    private static final int RECORD_SIZE = 128;
+
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_RECORD_SIZE = 8;
+    private static final int H_CAPACITY = 12;
+    private static final int H_COUNT = 16;
+    private static final int H_FIRST = 24;
+    private static final int H_LAST = 32;
+
+    private static final int R_TIME = 0;
+    private static final int R_ATTEMPT = 8;
+    private static final int R_OUTCOME = 12;
+    private static final int R_USER_LENGTH = 13;
+    private static final int R_ZONE_LENGTH = 14;
+    private static final int R_USER = 16;
+    private static final int R_ZONE = 80;
+    private static final int USER_BYTES = 64;
+    private static final int ZONE_BYTES = 48;
+
+    private static final Path defaultDirectory = Paths.get(System.getProperty("audit.journalDir", "login_journal"));
+    private static final int segmentRecords = Math.max(1, Integer.getInteger("audit.journalSegmentRecords", 65536));
+    private static final int initialRecords = Math.max(1, Math.min(segmentRecords, Integer.getInteger("audit.journalInitialRecords", 256)));
+
+    private final Path directory;
+    private Path segmentPath;
+    private MappedByteBuffer segment;
+    private int count;
+    private int capacity;
+    private LocalDate segmentDate;
+
+
+    /**
+     * Method that opens the journal for writing, carrying on with the latest segment if it is not full and is from
+     * today.
+     *
+     * @param directory The directory of the journal, created if needed
+     * @throws IOException If the journal could not be opened
+     */
+    LoginJournal(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        List<Path> segments = segments(directory);
+        if (!segments.isEmpty()) {
+            Path latest = segments.get(segments.size() - 1);
+            MappedByteBuffer b = map(latest, FileChannel.MapMode.READ_WRITE, Files.size(latest));
+            if (validHeader(b) && b.getInt(H_COUNT) < Math.max(b.getInt(H_CAPACITY), segmentRecords)
+                    && date(b.getLong(H_FIRST)).equals(LocalDate.now())) {
+                segmentPath = latest;
+                segment = b;
+                count = b.getInt(H_COUNT);
+                capacity = b.getInt(H_CAPACITY);
+                segmentDate = date(b.getLong(H_FIRST));
+            }
+        }
+    }
+
+
+    /**
+     * @return the journal directory set with <i>-Daudit.journalDir</i>, <i>login_journal</i> by default
+     */
+    public static Path defaultDirectory() {
+        return defaultDirectory;
+    }
+
+
+    /**
+     * Method that adds a log in attempt to the journal.
+     *
+     * @param record The attempt
+     * @throws IOException If a new segment could not be made or the current one could not grow
+     */
+    void append(LoginRecord record) throws IOException {
+        LocalDate date = date(record.epochMillis);
+        if (segment == null || (count == capacity && capacity >= segmentRecords) || !date.equals(segmentDate)) {
+            startSegment(record.epochMillis, date);
+        } else if (count == capacity) {
+            grow();
+        }
+        int at = HEADER_SIZE + count * RECORD_SIZE;
+        segment.putLong(at + R_TIME, record.epochMillis);
+        segment.putInt(at + R_ATTEMPT, record.attemptNumber);
+        segment.put(at + R_USER_LENGTH, (byte) putString(segment, at + R_USER, USER_BYTES, record.userName));
+        segment.put(at + R_ZONE_LENGTH, (byte) putString(segment, at + R_ZONE, ZONE_BYTES, record.zone.getId()));
+        // The outcome goes last, a record with no outcome is not read
+        segment.put(at + R_OUTCOME, (byte) (record.outcome.ordinal() + 1));
+        count++;
+        segment.putInt(H_COUNT, count);
+        segment.putLong(H_FIRST, Math.min(segment.getLong(H_FIRST), record.epochMillis));
+        segment.putLong(H_LAST, Math.max(segment.getLong(H_LAST), record.epochMillis));
+    }
+
+
+    /**
+     * Method that forces the current segment to disk.
+     */
+    void force() {
+        if (segment != null) {
+            segment.force();
+        }
+    }
+
+
+    @Override
+    public void close() {
+        force();
+        segment = null;
+    }
+
+
+    /**
+     * Method that searches the journal in the default directory.
+     *
+     * @param from     The earliest time to include, or null for no limit
+     * @param to       The time to stop before, or null for no limit
+     * @param userName The user name to match, or null for every user
+     * @param outcome  The outcome to match, or null for every outcome
+     * @return The matching attempts, in the order they were written
+     * @throws IOException If the journal could not be read
+     * @see #query(Path, Instant, Instant, String, LoginOutcome)
+     */
+    public static List<Entry> query(Instant from, Instant to, String userName, LoginOutcome outcome) throws IOException {
+        return query(defaultDirectory, from, to, userName, outcome);
+    }
+
+
+    /**
+     * Method that searches a journal, for example for every failed attempt of a user last month.
+     *
+     * <p>
+     * User names longer than the 64 bytes kept in the journal are matched on those 64 bytes.
+     * </p>
+     *
+     * @param directory The directory of the journal
+     * @param from      The earliest time to include, or null for no limit
+     * @param to        The time to stop before, or null for no limit
+     * @param userName  The user name to match, or null for every user
+     * @param outcome   The outcome to match, or null for every outcome
+     * @return The matching attempts, in the order they were written
+     * @throws IOException If the journal could not be read
+     */
+    public static List<Entry> query(Path directory, Instant from, Instant to, String userName, LoginOutcome outcome) throws IOException {
+        long fromMillis = from == null ? Long.MIN_VALUE : from.toEpochMilli();
+        long toMillis = to == null ? Long.MAX_VALUE : to.toEpochMilli();
+        byte[] user = userName == null ? null : truncate(userName.getBytes(StandardCharsets.UTF_8), USER_BYTES);
+        byte outcomeByte = outcome == null ? 0 : (byte) (outcome.ordinal() + 1);
+        Map<String, ZoneId> zones = new HashMap<>();
+        List<Entry> entries = new ArrayList<>();
+
+        if (!Files.isDirectory(directory)) {
+            return entries;
+        }
+        for (Path path : segments(directory)) {
+            MappedByteBuffer header = map(path, FileChannel.MapMode.READ_ONLY, HEADER_SIZE);
+            if (!validHeader(header)) {
+                continue;
+            }
+            int n = header.getInt(H_COUNT);
+            if (n == 0 || header.getLong(H_LAST) < fromMillis || header.getLong(H_FIRST) >= toMillis) {
+                continue;
+            }
+            ByteBuffer b = map(path, FileChannel.MapMode.READ_ONLY, HEADER_SIZE + (long) n * RECORD_SIZE);
+            for (int i = 0; i < n; i++) {
+                int at = HEADER_SIZE + i * RECORD_SIZE;
+                byte o = b.get(at + R_OUTCOME);
+                if (o == 0 || (outcomeByte != 0 && o != outcomeByte)) {
+                    continue;
+                }
+                long time = b.getLong(at + R_TIME);
+                if (time < fromMillis || time >= toMillis) {
+                    continue;
+                }
+                int userLength = b.get(at + R_USER_LENGTH) & 0xFF;
+                if (user != null && !sameBytes(b, at + R_USER, userLength, user)) {
+                    continue;
+                }
+                String zoneId = getString(b, at + R_ZONE, b.get(at + R_ZONE_LENGTH) & 0xFF);
+                entries.add(new Entry(time, zones.computeIfAbsent(zoneId, ZoneId::of), getString(b, at + R_USER, userLength),
+                        LoginOutcome.values()[o - 1], b.getInt(at + R_ATTEMPT)));
+            }
+        }
+        return entries;
+    }
+
+
+    private void startSegment(long firstMillis, LocalDate date) throws IOException {
+        force();
+        Path path = directory.resolve("segment-" + firstMillis + ".journal");
+        for (long n = firstMillis + 1; Files.exists(path); n++) {
+            path = directory.resolve("segment-" + n + ".journal");
+        }
+        segmentPath = path;
+        segment = map(path, FileChannel.MapMode.READ_WRITE, HEADER_SIZE + (long) initialRecords * RECORD_SIZE);
+        segment.putInt(H_VERSION, VERSION);
+        segment.putInt(H_RECORD_SIZE, RECORD_SIZE);
+        segment.putInt(H_CAPACITY, initialRecords);
+        segment.putInt(H_COUNT, 0);
+        segment.putLong(H_FIRST, firstMillis);
+        segment.putLong(H_LAST, firstMillis);
+        segment.putInt(H_MAGIC, MAGIC);
+        count = 0;
+        capacity = initialRecords;
+        segmentDate = date;
+    }
+
+
+    /**
+     * Method that makes room for more records in the current segment, by mapping it again at twice the size.
+     */
+    private void grow() throws IOException {
+        force();
+        int larger = (int) Math.min((long) capacity * 2, segmentRecords);
+        // Mapping past the end of the file makes the file longer, the records already written stay where they are
+        segment = map(segmentPath, FileChannel.MapMode.READ_WRITE, HEADER_SIZE + (long) larger * RECORD_SIZE);
+        segment.putInt(H_CAPACITY, larger);
+        capacity = larger;
+    }
+
+
+    /**
+     * @param directory The directory of a journal
+     * @return the segments of the journal, oldest first
+     */
+    private static List<Path> segments(Path directory) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "segment-*.journal")) {
+            for (Path path : stream) {
+                if (start(path) != null) {
+                    paths.add(path);
+                }
+            }
+        }
+        paths.sort(Comparator.comparing(LoginJournal::start));
+        return paths;
+    }
+
+
+    /**
+     * @return the time in the name of a segment, or null if it is not a segment name
+     */
+    private static Long start(Path segment) {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring("segment-".length(), name.length() - ".journal".length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+
+    private static MappedByteBuffer map(Path path, FileChannel.MapMode mode, long size) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(mode, 0, Math.min(size, mode == FileChannel.MapMode.READ_ONLY ? channel.size() : size));
+        }
+    }
+
+
+    private static boolean validHeader(ByteBuffer b) {
+        return b.capacity() >= HEADER_SIZE && b.getInt(H_MAGIC) == MAGIC && b.getInt(H_VERSION) == VERSION
+                && b.getInt(H_RECORD_SIZE) == RECORD_SIZE;
+    }
+
+
+    private static LocalDate date(long epochMillis) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+
+    private static int putString(ByteBuffer b, int at, int max, String s) {
+        byte[] bytes = truncate(s == null ? new byte[0] : s.getBytes(StandardCharsets.UTF_8), max);
+        for (int i = 0; i < bytes.length; i++) {
+            b.put(at + i, bytes[i]);
+        }
+        return bytes.length;
+    }
+
+
+    private static String getString(ByteBuffer b, int at, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = b.get(at + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     * @return the bytes cut to at most max bytes, without splitting a UTF-8 character
+     */
+    private static byte[] truncate(byte[] bytes, int max) {
+        if (bytes.length <= max) {
+            return bytes;
+        }
+        int length = max;
+        while (length > 0 && (bytes[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+
+    private static boolean sameBytes(ByteBuffer b, int at, int length, byte[] expected) {
+        if (length != expected.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (b.get(at + i) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /**
+     * Class for one log in attempt read back from the journal.
+     */
+    public static final class Entry {
+
+        private final long epochMillis;
+        private final ZoneId zone;
+        private final String userName;
+        private final LoginOutcome outcome;
+        private final int attemptNumber;
+
+        private Entry(long epochMillis, ZoneId zone, String userName, LoginOutcome outcome, int attemptNumber) {
+            this.epochMillis = epochMillis;
+            this.zone = zone;
+            this.userName = userName;
+            this.outcome = outcome;
+            this.attemptNumber = attemptNumber;
+        }
+
+        /**
+         * @return when the attempt was made, in the time zone it was made in
+         */
+        public ZonedDateTime getTime() {
+            return Instant.ofEpochMilli(epochMillis).atZone(zone);
+        }
+
+        /**
+         * @return the user name entered
+         */
+        public String getUserName() {
+            return userName;
+        }
+
+        /**
+         * @return how the attempt ended
+         */
+        public LoginOutcome getOutcome() {
+            return outcome;
+        }
+
+        /**
+         * @return the number of failed attempts in the session at the time
+         */
+        public int getAttemptNumber() {
+            return attemptNumber;
+        }
+
+        /**
+         * @return the attempt in the format of <i>login_activity.txt</i>
+         */
+        public String render() {
+            StringBuilder text = new StringBuilder();
+            LoginRecord.attempt(epochMillis, zone, userName, outcome, attemptNumber).render(text);
+            return text.toString();
+        }
+    }
+}
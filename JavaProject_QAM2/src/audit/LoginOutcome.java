@@ -0,0 +1,20 @@
+package audit;
+
+/**
+ * Enum for how a log in attempt ended.
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+public enum LoginOutcome {
+    SUCCESS,
+    FAILURE,
+    /**
+     * Refused before the password was checked, by the rate limiter.
+     */
+    THROTTLED,
+    /**
+     * Refused before the password was checked, because too many log ins were being checked at once.
+     */
+    BUSY
+}
@@ -0,0 +1,91 @@
+package audit;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Class for one entry of the login audit log: either the start of a program session or a log in attempt.
+ *
+ * <p>
+ * The time and time zone are taken when the record is made, on the thread of the attempt. Turning the record into
+ * the text of <i>login_activity.txt</i> is left to the writer thread.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+final class LoginRecord {
+
+    private static final DateTimeFormatter sessionFormat = DateTimeFormatter.ofPattern("LL-dd-yyyy  hh:mm a");
+    private static final DateTimeFormatter timeFormat = DateTimeFormatter.ofPattern("hh:mm a");
+    private static final String newLine = System.lineSeparator();
+
+    final long epochMillis;
+    final ZoneId zone;
+    final LocalDateTime session; // null for an attempt
+    final String userName;
+    final LoginOutcome outcome;
+    final int attemptNumber;
+
+
+    private LoginRecord(long epochMillis, ZoneId zone, LocalDateTime session, String userName, LoginOutcome outcome, int attemptNumber) {
+        this.epochMillis = epochMillis;
+        this.zone = zone;
+        this.session = session;
+        this.userName = userName;
+        this.outcome = outcome;
+        this.attemptNumber = attemptNumber;
+    }
+
+
+    static LoginRecord session(LocalDateTime started) {
+        return new LoginRecord(System.currentTimeMillis(), ZoneId.systemDefault(), started, null, null, 0);
+    }
+
+
+    static LoginRecord attempt(String userName, LoginOutcome outcome, int attemptNumber) {
+        return attempt(System.currentTimeMillis(), ZoneId.systemDefault(), userName, outcome, attemptNumber);
+    }
+
+
+    static LoginRecord attempt(long epochMillis, ZoneId zone, String userName, LoginOutcome outcome, int attemptNumber) {
+        return new LoginRecord(epochMillis, zone, null, userName, outcome, attemptNumber);
+    }
+
+
+    /**
+     * @return the local date and time the record was made at
+     */
+    LocalDateTime localTime() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone);
+    }
+
+
+    /**
+     * Method that writes the record as the lines of <i>login_activity.txt</i>. The password entered is not logged.
+     *
+     * @param to Where to write the text
+     */
+    void render(StringBuilder to) {
+        if (session != null) {
+            to.append("\n *****NEW PROGRAM SESSION  |  ").append(session.format(sessionFormat)).append("*****  \n").append(newLine);
+            return;
+        }
+        LocalDateTime at = localTime();
+        to.append("\n Log in attempt: \n").append(newLine);
+        to.append("Username: ").append(userName).append(" | ");
+        to.append("Date: ").append(at.toLocalDate());
+        to.append(" | Time: ").append(at.format(timeFormat)).append('\n');
+        if (outcome == LoginOutcome.SUCCESS) {
+            to.append(" >>>  LOG IN SUCCESSFUL\n");
+        } else if (outcome == LoginOutcome.THROTTLED) {
+            to.append(" >>>  LOG IN REFUSED, TOO MANY ATTEMPTS  |   ATTEMPT NUMBER FOR SESSION: ").append(attemptNumber).append('\n');
+        } else if (outcome == LoginOutcome.BUSY) {
+            to.append(" >>>  LOG IN REFUSED, SERVER BUSY  |   ATTEMPT NUMBER FOR SESSION: ").append(attemptNumber).append('\n');
+        } else {
+            to.append(" >>>  LOG IN FAILED  |   ATTEMPT NUMBER FOR SESSION: ").append(attemptNumber).append('\n');
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Class for a bounded, lock-free queue with many producers and one consumer.
+ *
+ * <p>
+ * Every slot of the ring has a sequence number that says whose turn it is:
+ *     <ul>
+ *         <li>A producer claims the next position with one compare-and-set on the tail, stores its element and then
+ *         publishes the slot by moving its sequence one past the position.</li>
+ *         <li>The consumer takes a slot once its sequence shows it was published, and hands it back to the producers
+ *         by moving its sequence one lap ahead.</li>
+ *     </ul>
+ * No thread ever waits on a lock, so a producer on the JavaFX Application Thread is never blocked by the consumer.
+ * </p>
+ *
+ * @param <E> The type of the elements
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+final class MpscRingBuffer<E> {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<E> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private long head; // only touched by the consumer
+
+
+    /**
+     * @param capacity The number of slots, a power of two
+     * @throws IllegalArgumentException If the capacity is not a power of two
+     */
+    MpscRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("The ring buffer capacity must be a power of two: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+
+    /**
+     * Method that adds an element, from any thread.
+     *
+     * @param e The element to add, not null
+     * @return True if the element was added, false if the ring is full
+     */
+    boolean offer(E e) {
+        while (true) {
+            long position = tail.get();
+            int slot = (int) position & mask;
+            long sequence = sequences.get(slot);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.lazySet(slot, e);
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+            } else if (sequence < position) {
+                return false;
+            }
+            // Another producer took the position first, try the next one
+        }
+    }
+
+
+    /**
+     * Method that takes the oldest element. Only the consumer thread may call it.
+     *
+     * @return The oldest element, or null if the ring is empty
+     */
+    E poll() {
+        int slot = (int) head & mask;
+        if (sequences.get(slot) != head + 1) {
+            return null;
+        }
+        E e = slots.get(slot);
+        slots.lazySet(slot, null);
+        sequences.lazySet(slot, head + capacity);
+        head++;
+        return e;
+    }
+
+
+    /**
+     * @return true if there is nothing to take, as seen by the consumer
+     */
+    boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+}
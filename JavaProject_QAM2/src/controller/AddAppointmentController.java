@@ -1,21 +1,28 @@
 package controller;
 
 import data_access.AppointmentDAO;
-import data_access.ContactDAO;
-import data_access.CountryDAO;
+import data_access.AppointmentScheduleIndex;
+import data_access.AsyncDAO;
 import data_access.CustomerDAO;
+import data_access.CustomerField;
+import data_access.ReferenceDataCache;
+import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import model.*;
 
 import java.io.IOException;
 import java.net.URL;
+import java.sql.Timestamp;
 import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
 
@@ -32,12 +39,12 @@ import java.util.ResourceBundle;
  * @author Zachary Zamiska
  * @version JDK 11.0
  */
-public class AddAppointmentController implements Initializable {
+public class AddAppointmentController implements Initializable, RefreshInterface {
 
 
-    ObservableList<Contact> contacts = ContactDAO.getAllContacts();
-    ObservableList<Customer> customer = CustomerDAO.getAllCustomers();
-    ObservableList<Country> location = CountryDAO.getAllCountries();
+    ObservableList<Contact> contacts = FXCollections.observableArrayList();
+    ObservableList<Customer> customer = FXCollections.observableArrayList();
+    ObservableList<Country> location = FXCollections.observableArrayList();
 
     /**
      * <h3>Lambda Use #2:</h3>
@@ -89,6 +96,8 @@ public class AddAppointmentController implements Initializable {
      *     <li>Due to the nature of the input areas MOST of the value types need not be checked.</li>
      *     <li>If all values are correct the method add the values to instantiate a new Appointment object in database.</li>
      *     <li>Time logic and alerts are also handled with this method.</li>
+     *     <li>The overlap check and the insert run in the background, the alerts and the return to the Main Screen
+     *     are run back on the JavaFX Application Thread.</li>
      * </ul>
      *
      *
@@ -153,44 +162,64 @@ public class AddAppointmentController implements Initializable {
 
 
 
-            for (Appointment a: AppointmentDAO.getAllAppointments())
-            {
-                if(addAppointmentCustomerCBox.getValue().getCustomerId() == a.getAppCustomerId())
-                {
-                    if (a.getAppStartDate().toLocalDateTime().isBefore(startTime) && a.getAppEndDate().toLocalDateTime().isAfter(startTime))
-                    {
-                        alertPopup.AlertPopup(new Alert(Alert.AlertType.ERROR), "Overlap Error", "This customer has already started an appointment at this time.", "Select ok to continue.", true);
+            if (!run) {
+                return;
+            }
 
-                        run = false;
-                    }
+            // The overlap check and the save run in the background, the button stays disabled until they are done
+            Node saveButton = (Node) event.getSource();
+            saveButton.setDisable(true);
+            AsyncDAO.onFxThread(AsyncDAO.supply(() -> {
+                List<AppointmentScheduleIndex.Interval> overlaps = AppointmentScheduleIndex.lookupOverlapping(appointmentCustomerId, startTime, endTime, -1);
+                if (overlaps.isEmpty()) {
+                    AppointmentDAO.insertAppointment(appointmentName, appointmentDescription, appointmentLocation, appointmentType, startTime, endTime, appointmentUser, appointmentCustomerId, userId, appointmentContactId);
+                }
+                return overlaps;
+            }), overlaps -> {
+                if (!overlaps.isEmpty()) {
+                    alertOverlaps(overlaps, Timestamp.valueOf(startTime).getTime(), Timestamp.valueOf(endTime).getTime());
+                    return;
+                }
+                try {
+                    Main.SetStage("/view/MainScreen.fxml", event);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }).whenComplete((done, e) -> saveButton.setDisable(false));
 
-                    if (a.getAppEndDate().toLocalDateTime().isAfter(endTime) && a.getAppStartDate().toLocalDateTime().isBefore(endTime))
-                    {
-                        alertPopup.AlertPopup(new Alert(Alert.AlertType.ERROR), "Overlap Error", "This customer would still be in a meeting at this time.", "Select ok to continue.", true);
+        } catch (Exception e) {
+            Alert alert = new Alert(Alert.AlertType.WARNING);
+            alertPopup.AlertPopup(alert, "Error", "Please fill in all of the required fields", "Select ok to continue.", true);
+        }
 
-                        run = false;
-                    }
+    }
 
-                    if (a.getAppStartDate().toLocalDateTime().isAfter(startTime.minusSeconds(1)) && a.getAppEndDate().toLocalDateTime().isBefore(endTime.plusSeconds(1)))
-                    {
-                        alertPopup.AlertPopup(new Alert(Alert.AlertType.ERROR), "Overlap Error", "This customer already has an appointment at this time.", "Select ok to continue.", true);
 
-                        run = false;
-                    }
-                }
+    /**
+     * Method that tells the user why the appointment overlaps the other appointments of the customer.
+     *
+     * @param overlaps The overlapping appointments
+     * @param start    The start of the new time slot, in epoch milliseconds
+     * @param end      The end of the new time slot, in epoch milliseconds
+     */
+    private void alertOverlaps(List<AppointmentScheduleIndex.Interval> overlaps, long start, long end) {
+        for (AppointmentScheduleIndex.Interval a : overlaps)
+        {
+            if (a.getStart() < start && a.getEnd() > start)
+            {
+                alertPopup.AlertPopup(new Alert(Alert.AlertType.ERROR), "Overlap Error", "This customer has already started an appointment at this time.", "Select ok to continue.", true);
             }
 
-            if (run)
+            if (a.getEnd() > end && a.getStart() < end)
             {
-                AppointmentDAO.insertAppointment(appointmentName, appointmentDescription, appointmentLocation, appointmentType, startTime, endTime, appointmentUser, appointmentCustomerId, userId, appointmentContactId);
-                Main.SetStage("/view/MainScreen.fxml", event);
+                alertPopup.AlertPopup(new Alert(Alert.AlertType.ERROR), "Overlap Error", "This customer would still be in a meeting at this time.", "Select ok to continue.", true);
             }
 
-        } catch (Exception e) {
-            Alert alert = new Alert(Alert.AlertType.WARNING);
-            alertPopup.AlertPopup(alert, "Error", "Please fill in all of the required fields", "Select ok to continue.", true);
+            if (a.getStart() >= start && a.getEnd() <= end)
+            {
+                alertPopup.AlertPopup(new Alert(Alert.AlertType.ERROR), "Overlap Error", "This customer already has an appointment at this time.", "Select ok to continue.", true);
+            }
         }
-
     }
 
 
@@ -227,7 +256,7 @@ public class AddAppointmentController implements Initializable {
      * The initialize method for the UI view <i><b>Add Appointment</b></i>.
      *
      * <p>
-     * This method runs when the Add Appointment view is run.
+     * This method runs once, when the Add Appointment view is loaded by the <i>SceneCache</i>.
      * This method is tasked with setting the data type and the UI elements with the correct types.
      * As well as handling the time UI elements.
      * </p>
@@ -238,8 +267,6 @@ public class AddAppointmentController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
 
-        addAppointmentUserLbl.setText(LoginScreenController.currentUser.getUserName());
-
         addAppointmentContactCBox.setItems(contacts);
         addAppointmentCustomerCBox.setItems(customer);
         addAppointmentLocationCBox.setItems(location);
@@ -257,4 +284,32 @@ public class AddAppointmentController implements Initializable {
 
     }
 
+
+    /**
+     * Method called every time the <i>Add Appointment</i> view is shown.
+     *
+     * <p>
+     * This method sets the current user, clears the input fields of the last appointment added and reloads the customers,
+     * contacts and countries in the background, so the combo boxes follow the reference data cache while the view is kept.
+     * </p>
+     */
+    @Override
+    public void refresh() {
+        addAppointmentUserLbl.setText(LoginScreenController.currentUser.getUserName());
+        addAppointmentNameTxt.clear();
+        addAppointmentDescriptionTxt.clear();
+        addAppointmentTypeTxt.clear();
+        addAppointmentLocationCBox.setValue(null);
+        addAppointmentContactCBox.setValue(null);
+        addAppointmentCustomerCBox.setValue(null);
+        addAppointmentStartDateDP.setValue(null);
+        addAppointmentStartTimeCBox.setValue(null);
+        addAppointmentEndDateDP.setValue(null);
+        addAppointmentEndTimeCBox.setValue(null);
+
+        AsyncDAO.onFxThread(CustomerDAO.getCustomersAsync(EnumSet.of(CustomerField.ID, CustomerField.NAME)), customer::setAll);
+        AsyncDAO.onFxThread(ReferenceDataCache.getContactsAsync(), contacts::setAll);
+        AsyncDAO.onFxThread(ReferenceDataCache.getCountriesAsync(), location::setAll);
+    }
+
 }
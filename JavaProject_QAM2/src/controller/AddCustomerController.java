@@ -1,8 +1,10 @@
 package controller;
 
 import data_access.AppointmentDAO;
-import data_access.CountryDAO;
+import data_access.AsyncDAO;
+import data_access.ReferenceDataCache;
 import data_access.CustomerDAO;
+import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
@@ -15,10 +17,10 @@ import model.AlertInterface;
 import model.Country;
 import model.FirstLevelDivision;
 import model.Main;
+import model.RefreshInterface;
 
 import java.io.IOException;
 import java.net.URL;
-import java.sql.SQLException;
 import java.util.Optional;
 import java.util.ResourceBundle;
 
@@ -34,9 +36,9 @@ import java.util.ResourceBundle;
  * @author Zachary Zamiska
  * @version %I%, %G%
  */
-public class AddCustomerController implements Initializable {
+public class AddCustomerController implements Initializable, RefreshInterface {
 
-    ObservableList<Country> location = CountryDAO.getAllCountries();
+    ObservableList<Country> location = FXCollections.observableArrayList();
 
 
     static AlertInterface alertPopup = (alert, title, header, content, wait) ->
@@ -72,6 +74,7 @@ public class AddCustomerController implements Initializable {
      *     <ul>
      *         <li>Checks if the user has inputted data in the fields.</li>
      *         <li>If the data is correct the method takes the data and creates a new customer in the SQL database.</li>
+     *         <li>The customer is inserted in the background, then the user is taken back to the <i>Customer Data</i> view.</li>
      *     </ul>
      * </p>
      *
@@ -103,9 +106,13 @@ public class AddCustomerController implements Initializable {
             String currentUser = LoginScreenController.currentUser.getUserName();
 
 
-            CustomerDAO.insertCustomer(customerName, customerAddress, customerZip, customerPhone, customerDivisionId, currentUser);
-
-            Main.SetStage("/view/CustomerData.fxml", event);
+            AsyncDAO.onFxThread(CustomerDAO.insertCustomerAsync(customerName, customerAddress, customerZip, customerPhone, customerDivisionId, currentUser), rows -> {
+                try {
+                    Main.SetStage("/view/CustomerData.fxml", event);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            });
         } catch (Exception e) {
             Alert alert = new Alert(Alert.AlertType.WARNING);
             alertPopup.AlertPopup(alert, "Empty Fields", "Please fill out all of the required fields", "Select ok to continue", true);
@@ -138,16 +145,24 @@ public class AddCustomerController implements Initializable {
      * Method when a choice is selected in the Country combo box.
      *
      * <p>
-     * Controls the combo boxes so user can not select the division before the country is selected.
+     * Controls the combo boxes so user can not select the division before the country is selected. The divisions of
+     * the country are grabbed in the background, and dropped if another country was picked in the meantime.
      * </p>
      *
-     * @throws SQLException If an error occurs when the SQL query in <i>CountryDAO</i> code.
-     * @see CountryDAO
+     * @see ReferenceDataCache
      */
     @FXML
-    void onActionSelectCountry() throws SQLException {
+    void onActionSelectCountry() {
+        if (addCustomerCountryCBox.getValue() == null) {
+            return; // cleared by refresh()
+        }
+        Country country = addCustomerCountryCBox.getValue();
         addCustomerDivisionCBox.setDisable(false);
-        addCustomerDivisionCBox.setItems(CountryDAO.getCountryDivisions(addCustomerCountryCBox.getValue().getCountryId()));
+        AsyncDAO.onFxThread(ReferenceDataCache.getCountryDivisionsAsync(country.getCountryId()), divisions -> {
+            if (country == addCustomerCountryCBox.getValue()) {
+                addCustomerDivisionCBox.setItems(divisions);
+            }
+        });
     }
 
 
@@ -167,4 +182,27 @@ public class AddCustomerController implements Initializable {
         addCustomerDivisionCBox.disableProperty();
         addCustomerCountryCBox.setItems(location);
     }
+
+
+    /**
+     * Method called every time the <i>Add Customer</i> view is shown.
+     *
+     * <p>
+     * This method clears the input fields of the last customer added, and disables the division combo box again until a country is selected.
+     * The countries are grabbed again in the background, so the combo box follows the reference data cache while the view is kept.
+     * </p>
+     */
+    @Override
+    public void refresh() {
+        addCustomerNameTxt.clear();
+        addCustomerAddressTxt.clear();
+        addCustomerZipTxt.clear();
+        addCustomerPhoneTxt.clear();
+
+        addCustomerCountryCBox.setValue(null);
+        addCustomerDivisionCBox.setValue(null);
+        addCustomerDivisionCBox.setDisable(true);
+
+        AsyncDAO.onFxThread(ReferenceDataCache.getCountriesAsync(), location::setAll);
+    }
 }
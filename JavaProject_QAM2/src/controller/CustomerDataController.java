@@ -1,25 +1,27 @@
 package controller;
 
 import data_access.AppointmentDAO;
+import data_access.AsyncDAO;
 import data_access.CustomerDAO;
+import data_access.CustomerField;
+import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.stage.Stage;
 import model.AlertInterface;
-import model.Appointment;
 import model.Customer;
 import model.Main;
+import model.RefreshInterface;
+import model.SceneCache;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.EnumSet;
 import java.util.Optional;
 import java.util.ResourceBundle;
+import java.util.Set;
 
 /**
  * The controller for the <i>Customer Data Controller</i> view UI.
@@ -35,10 +37,14 @@ import java.util.ResourceBundle;
  * @author Zachary Zamiska
  * @version %I%, %G%
  */
-public class CustomerDataController implements Initializable {
+public class CustomerDataController implements Initializable, RefreshInterface {
 
     private Customer customerData;
 
+    private static final Set<CustomerField> tableFields = EnumSet.of(CustomerField.ID, CustomerField.NAME,
+            CustomerField.ADDRESS, CustomerField.POSTAL_CODE, CustomerField.PHONE, CustomerField.DIVISION_ID,
+            CustomerField.DIVISION_NAME, CustomerField.COUNTRY_NAME);
+
     static AlertInterface alertPopup = (alert, title, header, content, wait) ->
     {
 
@@ -112,40 +118,38 @@ public class CustomerDataController implements Initializable {
      *         <li>If the user does not have any appointments, the method confirms the delete action with the user.</li>
      *         <li>After confirmation the method rust the delete query in the database through the CustomerDAO class.</li>
      *     </ul>
+     *     The queries run in the background, the alerts are shown once their results are back.
      * </p>
      */
     @FXML
     void onActionDeleteBtn() {
         customerData = customerTableView.getSelectionModel().getSelectedItem();
-        boolean matched = false;
 
 
         if (customerData == null) {
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alertPopup.AlertPopup(alert, "Error", "No customer is highlighted.", "Please select an existing customer to delete.", true);
         } else {
-            for (Appointment a : AppointmentDAO.getAllAppointments()) {
-                if (a.getAppCustomerId() == customerData.getCustomerId()) {
+            Customer selected = customerData;
+            AsyncDAO.onFxThread(AppointmentDAO.hasAppointmentsForCustomerAsync(selected.getCustomerId()), hasAppointments -> {
+                if (hasAppointments) {
                     Alert alert = new Alert(Alert.AlertType.ERROR);
                     alert.setTitle("Error");
                     alert.setHeaderText("You can not delete a customer with existing appointments.");
                     alert.setContentText("Please cancel or edit all appointments with customer.");
 
                     alert.showAndWait();
-                    matched = true;
-                    break;
-                }
-            }
-
-            if (!matched) {
-                Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
-                alertPopup.AlertPopup(alert, "Delete Customer", "Are you sure you would like to delete the following customer: \n \n" + customerData.getCustomerName() + "\n", "Select ok to continue.", false);
-                Optional<ButtonType> result = alert.showAndWait();
-                if (result.isPresent() && result.get() == ButtonType.OK) {
-                    CustomerDAO.deleteCustomer(customerData.getCustomerId());
-                    customerTableView.setItems(CustomerDAO.getAllCustomersModified());
+                } else {
+                    Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+                    alertPopup.AlertPopup(alert, "Delete Customer", "Are you sure you would like to delete the following customer: \n \n" + selected.getCustomerName() + "\n", "Select ok to continue.", false);
+                    Optional<ButtonType> result = alert.showAndWait();
+                    if (result.isPresent() && result.get() == ButtonType.OK) {
+                        showLoading();
+                        AsyncDAO.onFxThread(CustomerDAO.deleteCustomerAsync(selected.getCustomerId())
+                                .thenCompose(rows -> CustomerDAO.getCustomersAsync(tableFields)), this::showCustomers);
+                    }
                 }
-            }
+            });
         }
     }
 
@@ -157,8 +161,8 @@ public class CustomerDataController implements Initializable {
      *     This method does the following:
      *     <ul>
      *         <li>Checks if the user has selected an item from the customer data table view.</li>
-     *         <li>If user is selected, the customers data is sent to the ModifyCustomer view.</li>
-     *         <li>After data is sent the ModifyCustomer view is loaded.</li>
+     *         <li>If user is selected, the ModifyCustomer view is shown through the SceneCache.</li>
+     *         <li>The customers data is then sent to the ModifyCustomer view.</li>
      *     </ul>
      * </p>
      *
@@ -178,16 +182,8 @@ public class CustomerDataController implements Initializable {
 
             alert.showAndWait();
         } else {
-            FXMLLoader loader = new FXMLLoader();
-            loader.setLocation(getClass().getResource("/view/ModifyCustomer.fxml"));
-            loader.load();
-            ModifyCustomerController MCController = loader.getController();
+            ModifyCustomerController MCController = SceneCache.show("/view/ModifyCustomer.fxml", event);
             MCController.sendCustomer(customerData);
-
-            Stage stage = (Stage) ((Button) event.getSource()).getScene().getWindow();
-            Parent sceneLoad = loader.getRoot();
-            stage.setScene(new Scene(sceneLoad));
-            stage.show();
         }
 
     }
@@ -197,7 +193,7 @@ public class CustomerDataController implements Initializable {
      * The <i>Customer Data</i> initialization method for the UI.
      *
      * <p>
-     * This method runs when the Customer Data view is run. This method is tasked with setting and populating the customer view table.
+     * This method runs once, when the Customer Data view is loaded by the <i>SceneCache</i>. This method is tasked with setting the customer view table.
      * </p>
      *
      * @param url            The methods' URL to the world wide web if needed
@@ -205,12 +201,47 @@ public class CustomerDataController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        customerTableView.setItems(CustomerDAO.getAllCustomersModified());
-
         customerNameCol.setCellValueFactory(new PropertyValueFactory<>("customerName"));
         customerAddressCol.setCellValueFactory(new PropertyValueFactory<>("customerAddress"));
         customerZipCol.setCellValueFactory(new PropertyValueFactory<>("customerZip"));
         customerDivisionCol.setCellValueFactory(new PropertyValueFactory<>("customerDivisionName"));
         customerLocationCol.setCellValueFactory(new PropertyValueFactory<>("customerCountryName"));
     }
+
+
+    /**
+     * Method called every time the <i>Customer Data</i> view is shown.
+     *
+     * <p>
+     * This method populates the customer view table in the background, customers may have been added or modified
+     * since the view was last shown. The add and modify customer views are loaded in the background.
+     * </p>
+     */
+    @Override
+    public void refresh() {
+        showLoading();
+        AsyncDAO.onFxThread(CustomerDAO.getCustomersAsync(tableFields), this::showCustomers);
+
+        SceneCache.preload("/view/AddCustomer.fxml", "/view/ModifyCustomer.fxml");
+    }
+
+
+    /**
+     * Method that shows the loading placeholder in the customer table view while a query is in flight.
+     */
+    private void showLoading() {
+        customerTableView.getItems().clear();
+        customerTableView.setPlaceholder(new Label("Loading customers..."));
+    }
+
+
+    /**
+     * Method that puts loaded customers into the customer table view and removes the loading placeholder.
+     *
+     * @param customers The customers to show
+     */
+    private void showCustomers(ObservableList<Customer> customers) {
+        customerTableView.setPlaceholder(null);
+        customerTableView.setItems(customers);
+    }
 }
@@ -1,23 +1,23 @@
 package controller;
 
-import data_access.UserDAO;
+import audit.LoginAuditLog;
+import audit.LoginOutcome;
+import data_access.AsyncDAO;
 import database.JDBC;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import model.Main;
+import model.RefreshInterface;
+import model.SceneCache;
+import model.StartupMetrics;
 import model.User;
+import security.PasswordVerifier;
 
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.net.URL;
-import java.time.LocalDate;
-import java.time.LocalTime;
 import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
 import java.util.Locale;
 import java.util.Optional;
 import java.util.ResourceBundle;
@@ -35,12 +35,13 @@ import java.util.ResourceBundle;
  * @author Zachary Zamiska
  * @version %I%, %G%
  */
-public class LoginScreenController implements Initializable {
+public class LoginScreenController implements Initializable, RefreshInterface {
 
     ResourceBundle rb = ResourceBundle.getBundle("language_files/rb", Locale.getDefault());
     static public User currentUser;
-    static PrintWriter outputFile;
     static boolean initLogin = true;
+    // The source of every log in from this program, for the rate limiter
+    private static final String source = "local:" + System.getProperty("user.name");
     int attemptNum = 0;
 
     @FXML
@@ -70,7 +71,7 @@ public class LoginScreenController implements Initializable {
      *
      * <p>
      *     Method that first confirms that the user wants to exit. If yes, the method closes database connection,
-     *     output file connection, and ends the program.
+     *     flushes the login audit log, and ends the program.
      * </p>
      */
     @FXML
@@ -83,7 +84,7 @@ public class LoginScreenController implements Initializable {
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
             JDBC.closeConnection();
-            outputFile.close();
+            LoginAuditLog.close();
             System.exit(0);
         }
     }
@@ -110,12 +111,8 @@ public class LoginScreenController implements Initializable {
      * The classes and view initialization method.
      *
      * <p>
-     *     This method does the following:
-     *     <ul>
-     *         <li>Sets the log in UI language based on the users computer language settings.</li>
-     *         <li>Set's the initial login boolean to true to prevent the upcoming appointment dialog box popping up every new view.</li>
-     *         <li>Creates/Amends the log in activity log with a new session header.</li>
-     *     </ul>
+     *     This method sets the log in UI language based on the users computer language settings. It runs once, the
+     *     view is kept by the <i>SceneCache</i> and reset by <i>refresh()</i> every time it is shown.
      * </p>
      *
      * @param url            The methods' URL to the world wide web if needed
@@ -124,17 +121,34 @@ public class LoginScreenController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
         textSet();
+    }
+
+
+    /**
+     * Method called every time the <i>Login Screen</i> is shown.
+     *
+     * <p>
+     *     This method does the following:
+     *     <ul>
+     *         <li>Clears the user name and password and the incorrect password message of the last log in.</li>
+     *         <li>Set's the initial login boolean to true to prevent the upcoming appointment dialog box popping up every new view.</li>
+     *         <li>Creates/Amends the log in activity log with a new session header.</li>
+     *         <li>Starts loading the <i>Main Screen</i> in the background while the user types.</li>
+     *     </ul>
+     * </p>
+     */
+    @Override
+    public void refresh() {
+        loginUserNameTxt.clear();
+        loginPasswordTxt.clear();
+        thatsNotRight.setText(rb.getString("NotRightPass"));
+        thatsNotRight.setVisible(false);
+        loginButtonLbl.setDisable(false);
+        attemptNum = 0;
         initLogin = true;
 
-        String filename = "login_activity.txt";
-        FileWriter fwriter;
-        try {
-            fwriter = new FileWriter(filename, true);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-        outputFile = new PrintWriter(fwriter);
-        outputFile.println("\n *****NEW PROGRAM SESSION  |  " + Main.time.format(DateTimeFormatter.ofPattern("LL-dd-yyyy  hh:mm a")) + "*****  \n");
+        LoginAuditLog.sessionStarted(Main.time);
+        SceneCache.preload("/view/MainScreen.fxml");
     }
 
 
@@ -168,51 +182,49 @@ public class LoginScreenController implements Initializable {
      * The user authentication method.
      *
      * <p>
-     *     This method controls the username and password check for the log in form. This method also writes to the login activity file
-     *     for each attempted log in.
+     *     This method hands the username and password to the password verifier, which rate limits the attempt, looks up the
+     *     one user with the username and checks the password hash in the background. The login button is disabled until the
+     *     answer comes back on the JavaFX Application Thread. This method also logs each attempted log in to the login audit log, which writes the
+     *     login activity file in the background.
      * </p>
      *
      * @param actionEvent The Action Event handler for the method
-     * @throws IOException If an input or output exception occurred
      */
-    private void userAuthentication(ActionEvent actionEvent) throws IOException {
-
-        ObservableList<User> userList = UserDAO.getAllUsers.getAll();
-
-        try {
-            for (User user : userList) {
-                if (loginUserNameTxt.getText().equals(user.getUserName())) {
-                    currentUser = user;
-                    outputFile.println("\n Log in attempt: \n");
-                    outputFile.print("Username: " + currentUser.getUserName() + " | ");
-                    outputFile.print("Date: " + LocalDate.now());
-                    outputFile.print(" | " + "Time: " + LocalTime.now().format(DateTimeFormatter.ofPattern("hh:mm a")) + "\n");
-                }
+    private void userAuthentication(ActionEvent actionEvent) {
 
-            }
-            if (currentUser.getUserPassword().equals(loginPasswordTxt.getText())) {
-                outputFile.print("Password entered: " + loginPasswordTxt.getText());
-                outputFile.print(" >>>  LOG IN SUCCESSFUL" + "\n");
+        String userName = loginUserNameTxt.getText();
+        loginButtonLbl.setDisable(true);
 
-                Main.SetStage("/view/MainScreen.fxml", actionEvent);
+        AsyncDAO.onFxThread(PasswordVerifier.verify(userName, source, loginPasswordTxt.getText().toCharArray()), result -> {
+            loginButtonLbl.setDisable(false);
+
+            if (result.getStatus() == PasswordVerifier.Status.VERIFIED) {
+                currentUser = result.getUser();
+                LoginAuditLog.attempt(currentUser.getUserName(), LoginOutcome.SUCCESS, attemptNum);
+                StartupMetrics.mark("logged in");
+
+                try {
+                    Main.SetStage("/view/MainScreen.fxml", actionEvent);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            } else if (result.getStatus() == PasswordVerifier.Status.BUSY || result.getStatus() == PasswordVerifier.Status.THROTTLED) {
+                // Not counted as an attempt, the password was never checked
+                boolean busy = result.getStatus() == PasswordVerifier.Status.BUSY;
+                LoginAuditLog.attempt(userName, busy ? LoginOutcome.BUSY : LoginOutcome.THROTTLED, attemptNum);
+
+                currentUser = null;
+                thatsNotRight.setText(rb.getString(busy ? "LoginBusy" : "LoginThrottled"));
+                thatsNotRight.setVisible(true);
             } else {
                 attemptNum++;
-                outputFile.print("Password entered: " + loginPasswordTxt.getText());
-                outputFile.print(" >>>  LOG IN FAILED  |   ATTEMPT NUMBER FOR SESSION: " + attemptNum + "\n");
+                LoginAuditLog.attempt(userName, LoginOutcome.FAILURE, attemptNum);
 
                 currentUser = null;
+                thatsNotRight.setText(rb.getString("NotRightPass"));
                 thatsNotRight.setVisible(true);
             }
-        } catch (NullPointerException e) {
-            thatsNotRight.setVisible(true);
-            attemptNum++;
-            outputFile.println("\n Log in attempt: \n");
-            outputFile.print("Username: " + loginUserNameTxt.getText() + " | ");
-            outputFile.print("Date: " + LocalDate.now());
-            outputFile.print(" | " + "Time: " + LocalTime.now().format(DateTimeFormatter.ofPattern("hh:mm a")) + "\n");
-            outputFile.print("Password entered: " + loginPasswordTxt.getText());
-            outputFile.print(" >>>  LOG IN FAILED  |   ATTEMPT NUMBER FOR SESSION: " + attemptNum + "\n");
-        }
+        });
     }
 
 }
@@ -1,23 +1,30 @@
 package controller;
 
+import data_access.AppointmentCountCube;
 import data_access.AppointmentDAO;
+import data_access.AppointmentScheduleIndex;
+import data_access.AppointmentSyncEngine;
+import data_access.AsyncDAO;
+import data_access.PagedAppointmentList;
+import data_access.ReferenceDataCache;
+import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
-import javafx.stage.Stage;
 import model.AlertInterface;
 import model.Appointment;
 import model.Main;
+import model.RefreshInterface;
+import model.SceneCache;
+import model.StartupMetrics;
 
 import java.io.IOException;
 import java.net.URL;
 import java.sql.Timestamp;
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
 import java.util.ResourceBundle;
@@ -40,10 +47,21 @@ import static model.Main.time;
  * @author Zachary Zamiska
  * @version %I%, %G%
  */
-public class MainScreenController implements Initializable {
+public class MainScreenController implements Initializable, RefreshInterface {
 
     private Appointment appointmentData;
 
+    /**
+     * Keeps whatever the appointment table shows in step with the database, one engine for every Main Screen load.
+     */
+    private static final AppointmentSyncEngine syncEngine = new AppointmentSyncEngine();
+    private boolean shown;
+
+    /**
+     * Counts what the appointment table was asked to show, so a slow query overtaken by a newer one is not shown.
+     */
+    private int showRequest;
+
     static AlertInterface alertPopup = (alert, title, header, content, wait) -> {
         alert.setTitle(title);
         alert.setHeaderText(header);
@@ -105,7 +123,8 @@ public class MainScreenController implements Initializable {
      *
      * <p>
      * When the user highlights an item in the appointment table view and selects this button
-     * the item is deleted in the database through the <i>AppointmentDAO</i> file.
+     * the item is deleted in the database through the <i>AppointmentDAO</i> file. The table is then patched by the
+     * sync engine instead of being reloaded.
      * </p>
      *
      * <h3>Lambda Use #2:</h3>
@@ -120,14 +139,13 @@ public class MainScreenController implements Initializable {
         if (appointmentData != null) {
             Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
             alertPopup.AlertPopup(alert, "Delete Appointment?", "The following appointment will be cancelled: \n", "ID: " + appointmentData.getAppId() + "  |  Name: " + appointmentData.getAppTitle() + "  |  "
-                    +  "Type: " + appointmentData.getAppType() + "  |  " + "Date: " + appointmentData.getAppStartDate().toLocalDateTime().toLocalDate() + "  |  "
-                    + "Time: " + appointmentData.getAppStartDate().toLocalDateTime().toLocalTime().format(DateTimeFormatter.ofPattern("hh:mm a"))
+                    +  "Type: " + appointmentData.getAppType() + "  |  " + "Date: " + appointmentData.getAppStartLocal().toLocalDate() + "  |  "
+                    + "Time: " + appointmentData.getAppStartLocal().toLocalTime().format(DateTimeFormatter.ofPattern("hh:mm a"))
                     + "\n\nPress ok to continue.", false);
 
             Optional<ButtonType> result = alert.showAndWait();
             if (result.isPresent() && result.get() == ButtonType.OK) {
-                AppointmentDAO.deleteAppointment(appointmentData.getAppId());
-                appointmentTableView.setItems(AppointmentDAO.getAllAppointments());
+                AsyncDAO.onFxThread(AppointmentDAO.deleteAppointmentAsync(appointmentData.getAppId()), rows -> syncEngine.refresh());
             }
         } else {
             Alert alert = new Alert(Alert.AlertType.ERROR);
@@ -145,7 +163,7 @@ public class MainScreenController implements Initializable {
      *     <ul>
      *         <li>Checks if an item is selected in the appointment table view.</li>
      *         <li>If an item is selected, the method takes the data and sends it to the <i>Modify Appointment Controller</i>.</li>
-     *         <li>Pre-initializes the <i>Modify Appointment Controller</i> and navigates to the <i>Modify Appointment</i> view.</li>
+     *         <li>Navigates to the <i>Modify Appointment</i> view through the <i>SceneCache</i> and hands the appointment to its controller.</li>
      *     </ul>
      * </p>
      *
@@ -159,16 +177,8 @@ public class MainScreenController implements Initializable {
         appointmentData = appointmentTableView.getSelectionModel().getSelectedItem();
 
         if (appointmentData != null) {
-            FXMLLoader loader = new FXMLLoader();
-            loader.setLocation(getClass().getResource("/view/ModifyAppointment.fxml"));
-            loader.load();
-            ModifyAppointmentController MAController = loader.getController();
+            ModifyAppointmentController MAController = SceneCache.show("/view/ModifyAppointment.fxml", event);
             MAController.sendAppointment(appointmentData);
-
-            Stage stage = (Stage) ((Button) event.getSource()).getScene().getWindow();
-            Parent sceneLoad = loader.getRoot();
-            stage.setScene(new Scene(sceneLoad));
-            stage.show();
         } else {
             Alert alert = new Alert(Alert.AlertType.ERROR);
             alertPopup.AlertPopup(alert, "Error", "No appointment is highlighted", "Please select an existing appointment or create a new one.", true);
@@ -197,7 +207,8 @@ public class MainScreenController implements Initializable {
      * <p>
      * When the add button is pressed this method confirms that the user wants to take such action.
      * If yes, this method takes the user to the <i>Login Screen</i> view as well as resetting the
-     * user authentication and current user variables..
+     * user authentication and current user variables.. The cached views and reference data are dropped, so the
+     * next user starts with new ones.
      * </p>
      *
      * @param event The action event handler for the method
@@ -210,6 +221,8 @@ public class MainScreenController implements Initializable {
 
         Optional<ButtonType> result = alert.showAndWait();
         if (result.isPresent() && result.get() == ButtonType.OK) {
+            SceneCache.clear();
+            ReferenceDataCache.invalidate();
             Main.SetStage("/view/LoginScreen.fxml", event);
         }
     }
@@ -218,8 +231,9 @@ public class MainScreenController implements Initializable {
      * The <i>Main Screen</i> initialization method for the UI.
      *
      * <p>
-     * This method runs when the Main Screen view is run. This method is tasked with checking if the user has any
-     * appointments upcoming in the next 15 minutes as well as populating the appointment table view.
+     * This method runs once, when the Main Screen view is loaded by the <i>SceneCache</i>, which may be in the
+     * background while the user logs in. It sets up the appointment table view columns. The appointment schedule
+     * index and the reference data cache are also loaded in the background so the other screens do not wait on them.
      * </p>
      *
      * @param url            The methods' URL to the world wide web if needed
@@ -228,11 +242,6 @@ public class MainScreenController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
 
-        LoginScreenController.outputFile.close();
-
-
-        appointmentTableView.setItems(AppointmentDAO.getAllAppointmentsModified());
-
         appointmentIdCol.setCellValueFactory(new PropertyValueFactory<>("appId"));
         appointmentTitleCol.setCellValueFactory(new PropertyValueFactory<>("appTitle"));
         appointmentDescriptionCol.setCellValueFactory(new PropertyValueFactory<>("appDescription"));
@@ -244,17 +253,61 @@ public class MainScreenController implements Initializable {
         appointmentCustomerIdCol.setCellValueFactory(new PropertyValueFactory<>("appCustomerId"));
         appointmentUserIdCol.setCellValueFactory(new PropertyValueFactory<>("appUserId"));
 
-        boolean noApt = true;
+        AppointmentScheduleIndex.preload();
+        AppointmentCountCube.preload();
+        ReferenceDataCache.preload();
+    }
+
+
+    /**
+     * Method called every time the <i>Main Screen</i> is shown.
+     *
+     * <p>
+     * The first time, this method populates the appointment table view one page at a time in the background. After
+     * that the table is already in step with every change made in this program through the sync engine, so it is only
+     * asked to pick up the changes made by other clients. Right after a log in this method also checks if the user has
+     * any appointments upcoming in the next 15 minutes. The views the user is likely to go to next are loaded in the
+     * background.
+     * </p>
+     */
+    @Override
+    public void refresh() {
+        if (!shown) {
+            shown = true;
+            showAppointmentFeed();
+        } else {
+            syncEngine.refresh();
+        }
+
         if (initLogin) {
-            LocalDateTime plus15 = time.plusMinutes(15);
+            Instant now = time.atZone(ZoneId.systemDefault()).toInstant();
+            AsyncDAO.onFxThread(AppointmentDAO.findAppointmentsBetweenAsync(now, now.plusSeconds(15 * 60)), this::checkUpcomingAppointments);
+        }
+
+        SceneCache.preload("/view/AddAppointment.fxml", "/view/ModifyAppointment.fxml", "/view/CustomerData.fxml", "/view/Report.fxml");
+    }
+
 
-            for (Appointment a : appointmentTableView.getItems()) {
+    /**
+     * Method that alerts the user of any appointments starting in the next 15 minutes.
+     *
+     * <p>
+     * This only happens once per log in. The upcoming appointments are grabbed with their own date range query, since
+     * the table view only holds the pages of appointments the user has scrolled through.
+     * </p>
+     *
+     * @param upcoming The appointments starting in the next 15 minutes
+     */
+    private void checkUpcomingAppointments(ObservableList<Appointment> upcoming) {
+        boolean noApt = true;
+        if (initLogin) {
+            for (Appointment a : upcoming) {
 
-                if ((a.getAppStartDate().toLocalDateTime().isBefore(plus15)) && (a.getAppStartDate().toLocalDateTime().isAfter(Main.time))) {
+                if (a.getAppStartLocal().isAfter(Main.time)) {
                     Alert alert = new Alert(Alert.AlertType.INFORMATION);
                     alertPopup.AlertPopup(alert, "Upcoming Appointments", "You have the following appointment upcoming: \n", "ID: " + a.getAppId() + "  |  Name: " + a.getAppTitle() + "  |  "
-                            + "Date: " + a.getAppStartDate().toLocalDateTime().toLocalDate() + "  |  "
-                            + "Time: " + a.getAppStartDate().toLocalDateTime().toLocalTime().format(DateTimeFormatter.ofPattern("hh:mm a"))
+                            + "Date: " + a.getAppStartLocal().toLocalDate() + "  |  "
+                            + "Time: " + a.getAppStartLocal().toLocalTime().format(DateTimeFormatter.ofPattern("hh:mm a"))
                             + "\n\nPress ok to continue.", true);
 
                     noApt = false;
@@ -267,7 +320,81 @@ public class MainScreenController implements Initializable {
             }
             initLogin = false;
         }
+    }
 
+
+    /**
+     * Method that shows the loading placeholder in the appointment table view while a query is in flight.
+     */
+    private void showLoading() {
+        appointmentTableView.getItems().clear();
+        appointmentTableView.setPlaceholder(new Label("Loading appointments..."));
+    }
+
+
+    /**
+     * Method that puts every appointment into the appointment table view, one page at a time.
+     *
+     * <p>
+     * The table is handed a <i>PagedAppointmentList</i> that grabs its first page right away and the following pages
+     * as the user scrolls towards them, so the table shows its first rows without waiting on the whole table.
+     * </p>
+     */
+    private void showAppointmentFeed() {
+        PagedAppointmentList feed = new PagedAppointmentList();
+        showRequest++;
+        showLoading();
+        appointmentTableView.setItems(feed);
+        syncEngine.attach(feed, feed::covers);
+        feed.fetchNextPage().thenRun(() -> {
+            if (appointmentTableView.getItems() != feed) {
+                return; // a filter was picked meanwhile
+            }
+            if (feed.lastFetchFailed()) {
+                appointmentTableView.setPlaceholder(new Label("The appointments could not be loaded."));
+                return;
+            }
+            appointmentTableView.setPlaceholder(null);
+            StartupMetrics.mark("main table");
+        });
+    }
+
+
+    /**
+     * Method that puts the appointments of the current week or month into the appointment table view.
+     *
+     * <p>
+     * The appointments are grabbed in the background. If the user picks another filter before they arrive, they are
+     * dropped, so the table always shows the last filter picked.
+     * </p>
+     *
+     * @param filterType "YW" for the current week or "MM" for the current month
+     */
+    private void showFilteredAppointments(String filterType) {
+        Instant[] range = AppointmentDAO.filterRange(filterType);
+        long from = range[0].toEpochMilli();
+        long to = range[1].toEpochMilli();
+
+        int request = ++showRequest;
+        showLoading();
+        AsyncDAO.onFxThread(AppointmentDAO.findAppointmentsBetweenAsync(range[0], range[1]), appointments -> {
+            if (request != showRequest) {
+                return;
+            }
+            showAppointments(appointments);
+            syncEngine.attach(appointments, a -> a.getAppStartMillis() >= from && a.getAppStartMillis() < to);
+        });
+    }
+
+
+    /**
+     * Method that puts loaded appointments into the appointment table view and removes the loading placeholder.
+     *
+     * @param appointments The appointments to show
+     */
+    private void showAppointments(ObservableList<Appointment> appointments) {
+        appointmentTableView.setPlaceholder(null);
+        appointmentTableView.setItems(appointments);
     }
 
     /**
@@ -295,14 +422,12 @@ public class MainScreenController implements Initializable {
      */
     @FXML
     public void onActionFilterRBtn() {
-        // TODO: 6/22/2022 ADD IN THE CONTACT NAMES TO THE TABLE VIEW FOR FILTER AS WELL 
         if (filterByMonthRBtn.isSelected()) {
-            appointmentTableView.setItems(AppointmentDAO.filterAppointmentsByWeek("MM"));
-
+            showFilteredAppointments("MM");
         } else if (filterByWeekRBtn.isSelected()) {
-            appointmentTableView.setItems(AppointmentDAO.filterAppointmentsByWeek("YW"));
+            showFilteredAppointments("YW");
         } else if (filterOffRBtn.isSelected()) {
-            appointmentTableView.setItems(AppointmentDAO.getAllAppointmentsModified());
+            showAppointmentFeed();
         }
     }
 }
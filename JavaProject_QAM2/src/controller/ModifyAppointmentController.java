@@ -1,25 +1,31 @@
 package controller;
 
 import data_access.AppointmentDAO;
-import data_access.ContactDAO;
-import data_access.CountryDAO;
+import data_access.AppointmentScheduleIndex;
+import data_access.AsyncDAO;
 import data_access.CustomerDAO;
+import data_access.CustomerField;
+import data_access.ReferenceDataCache;
+import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
+import javafx.scene.Node;
 import javafx.scene.control.*;
 import model.*;
 
 import java.io.IOException;
 import java.net.URL;
+import java.sql.Timestamp;
 import java.time.DayOfWeek;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.ResourceBundle;
-
-import static data_access.CountryDAO.getAllCountries;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -34,7 +40,7 @@ import static data_access.CountryDAO.getAllCountries;
  * @see AppointmentDAO
  * @see MainScreenController
  */
-public class ModifyAppointmentController implements Initializable {
+public class ModifyAppointmentController implements Initializable, RefreshInterface {
 
     static AlertInterface alertPopup = (alert, title, header, content, wait) -> {
         alert.setTitle(title);
@@ -46,11 +52,11 @@ public class ModifyAppointmentController implements Initializable {
         }
     };
 
-    private final ObservableList<Contact> contacts = ContactDAO.getAllContacts();
-    private final ObservableList<Customer> customer = CustomerDAO.getAllCustomers();
+    private final ObservableList<Contact> contacts = FXCollections.observableArrayList();
+    private final ObservableList<Customer> customer = FXCollections.observableArrayList();
     private int appointmentId;
     private Appointment modifAppt = null;
-    private final ObservableList<Country> location = CountryDAO.getAllCountries();
+    private final ObservableList<Country> location = FXCollections.observableArrayList();
 
     @FXML
     private ComboBox<LocalTime> modifyAppointmentStartTimeCBox;
@@ -80,8 +86,8 @@ public class ModifyAppointmentController implements Initializable {
      * The <i>Modify Appointment</i> initialization method for the UI.
      *
      * <p>
-     * This method runs when the Modify Appointment view is run. This method is tasked with setting and populating
-     * the UI elements such as the text boxes and combo boxes. It also sets the times inside of the combo boxes.
+     * This method runs once, when the Modify Appointment view is loaded by the <i>SceneCache</i>. This method is tasked
+     * with setting the UI elements such as the combo boxes. It also sets the times inside of the combo boxes.
      * </p>
      *
      * @param url            The methods' URL to the world wide web if needed
@@ -89,8 +95,6 @@ public class ModifyAppointmentController implements Initializable {
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        modifyAppointmentUserLbl.setText(LoginScreenController.currentUser.getUserName());
-
         modifyAppointmentContactCBox.setItems(contacts);
         modifyAppointmentCustomerCBox.setItems(customer);
         modifyAppointmentLocationCBox.setItems(location);
@@ -110,6 +114,32 @@ public class ModifyAppointmentController implements Initializable {
     }
 
 
+    /**
+     * Method called every time the <i>Modify Appointment</i> view is shown, before the appointment is sent over.
+     *
+     * <p>
+     * This method sets the current user and reloads the customers, contacts and countries in the background, so the
+     * combo boxes follow the reference data cache while the view is kept. The customer, contact and location of the
+     * appointment are picked once the lists are back. The picks for the last appointment modified are cleared.
+     * </p>
+     */
+    @Override
+    public void refresh() {
+        modifAppt = null;
+        modifyAppointmentUserLbl.setText(LoginScreenController.currentUser.getUserName());
+
+        modifyAppointmentCustomerCBox.setValue(null);
+        modifyAppointmentContactCBox.setValue(null);
+        modifyAppointmentLocationCBox.setValue(null);
+
+        CompletableFuture<Void> loaded = CompletableFuture.allOf(
+                AsyncDAO.onFxThread(CustomerDAO.getCustomersAsync(EnumSet.of(CustomerField.ID, CustomerField.NAME)), customer::setAll),
+                AsyncDAO.onFxThread(ReferenceDataCache.getContactsAsync(), contacts::setAll),
+                AsyncDAO.onFxThread(ReferenceDataCache.getCountriesAsync(), location::setAll));
+        AsyncDAO.onFxThread(loaded, done -> selectPicks());
+    }
+
+
     /**
      * Method that this called when the user presses the <i>Modify<i/> button on the <i>Modify Appointment</i> UI.
      *
@@ -120,6 +150,8 @@ public class ModifyAppointmentController implements Initializable {
      *         <li>After it checks for this this method then grabs the values and sends them to the
      *         <i>AppointmentDAO</i> file to query the database.</li>
      *         <li>After appointment is modified, the user is sent back to the <i>Main Screen</i></li>
+     *         <li>The overlap check and the modify run in the background, the alerts and the return to the
+     *         <i>Main Screen</i> are run back on the JavaFX Application Thread.</li>
      *     </ul>
      * </p>
      *
@@ -171,44 +203,65 @@ public class ModifyAppointmentController implements Initializable {
                 run = true;
             }
 
-            for (Appointment a: AppointmentDAO.getAllAppointments())
-            {
-                if (!(appointmentName.equals(a.getAppTitle())) && modifyAppointmentCustomerCBox.getValue().getCustomerId() == a.getAppCustomerId())
-                {
-                    if (a.getAppStartDate().toLocalDateTime().isBefore(startTime) && a.getAppEndDate().toLocalDateTime().isAfter(startTime))
-                    {
-                        alertPopup.AlertPopup(new Alert(Alert.AlertType.ERROR), "Overlap Error", "This customer has already started an appointment at this time.", "Select ok to continue.", true);
+            if (!run) {
+                return;
+            }
 
-                        run = false;
-                    }
+            // The overlap check and the save run in the background, the button stays disabled until they are done
+            int id = appointmentId;
+            Node saveButton = (Node) event.getSource();
+            saveButton.setDisable(true);
+            AsyncDAO.onFxThread(AsyncDAO.supply(() -> {
+                List<AppointmentScheduleIndex.Interval> overlaps = AppointmentScheduleIndex.lookupOverlapping(appointmentCustomerId, startTime, endTime, id);
+                if (overlaps.isEmpty()) {
+                    AppointmentDAO.modifyAppointment(id, appointmentName, appointmentDescription, appointmentLocation, appointmentType, startTime, endTime, appointmentUser, appointmentCustomerId, appointmentUserId, appointmentContactId);
+                }
+                return overlaps;
+            }), overlaps -> {
+                if (!overlaps.isEmpty()) {
+                    alertOverlaps(overlaps, Timestamp.valueOf(startTime).getTime(), Timestamp.valueOf(endTime).getTime());
+                    return;
+                }
+                try {
+                    Main.SetStage("/view/MainScreen.fxml", event);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }).whenComplete((done, e) -> saveButton.setDisable(false));
 
-                    if (a.getAppEndDate().toLocalDateTime().isAfter(endTime) && a.getAppStartDate().toLocalDateTime().isBefore(endTime))
-                    {
-                        alertPopup.AlertPopup(new Alert(Alert.AlertType.ERROR), "Overlap Error", "This customer would still be in a meeting at this time.", "Select ok to continue.", true);
 
-                        run = false;
-                    }
+        } catch (Exception e) {
+            System.out.println(e.getCause());
+            alertPopup.AlertPopup(new Alert(Alert.AlertType.WARNING), "Modification Error", "Please fill in all of the required fields", "Select ok to continue.", true);
 
-                    if (a.getAppStartDate().toLocalDateTime().isAfter(startTime.minusSeconds(1)) && a.getAppEndDate().toLocalDateTime().isBefore(endTime.plusSeconds(1)))
-                    {
-                        alertPopup.AlertPopup(new Alert(Alert.AlertType.ERROR), "Overlap Error", "This customer already has an appointment at this time.", "Select ok to continue.", true);
+        }
+    }
 
-                        run = false;
-                    }
-                }
-            }
 
-            if (run)
+    /**
+     * Method that tells the user why the appointment overlaps the other appointments of the customer.
+     *
+     * @param overlaps The overlapping appointments
+     * @param start    The start of the new time slot, in epoch milliseconds
+     * @param end      The end of the new time slot, in epoch milliseconds
+     */
+    private void alertOverlaps(List<AppointmentScheduleIndex.Interval> overlaps, long start, long end) {
+        for (AppointmentScheduleIndex.Interval a : overlaps)
+        {
+            if (a.getStart() < start && a.getEnd() > start)
             {
-                AppointmentDAO.modifyAppointment(appointmentId, appointmentName, appointmentDescription, appointmentLocation, appointmentType, startTime, endTime, appointmentUser, appointmentCustomerId, appointmentUserId, appointmentContactId);
-                Main.SetStage("/view/MainScreen.fxml", event);
+                alertPopup.AlertPopup(new Alert(Alert.AlertType.ERROR), "Overlap Error", "This customer has already started an appointment at this time.", "Select ok to continue.", true);
             }
 
+            if (a.getEnd() > end && a.getStart() < end)
+            {
+                alertPopup.AlertPopup(new Alert(Alert.AlertType.ERROR), "Overlap Error", "This customer would still be in a meeting at this time.", "Select ok to continue.", true);
+            }
 
-        } catch (Exception e) {
-            System.out.println(e.getCause());
-            alertPopup.AlertPopup(new Alert(Alert.AlertType.WARNING), "Modification Error", "Please fill in all of the required fields", "Select ok to continue.", true);
-
+            if (a.getStart() >= start && a.getEnd() <= end)
+            {
+                alertPopup.AlertPopup(new Alert(Alert.AlertType.ERROR), "Overlap Error", "This customer already has an appointment at this time.", "Select ok to continue.", true);
+            }
         }
     }
 
@@ -245,20 +298,10 @@ public class ModifyAppointmentController implements Initializable {
     public void sendAppointment(Appointment appointment) {
 
         modifAppt = appointment;
-        LocalDateTime startTimeDate = appointment.getAppStartDate().toLocalDateTime();
-        LocalDateTime endDateTime = appointment.getAppEndDate().toLocalDateTime();
+        LocalDateTime startTimeDate = appointment.getAppStartLocal();
+        LocalDateTime endDateTime = appointment.getAppEndLocal();
 
-        /*This section guarantees no matter how many customers there are and how many get deleted the combo box will list the correct one.*/
-        /*START*/
-        int count = 0;
-
-        for (Customer c : customer) {
-            count++;
-            if (c.getCustomerId() == appointment.getAppCustomerId()) {
-                modifyAppointmentCustomerCBox.getSelectionModel().select(count - 1);
-            }
-        }
-        /*END*/
+        selectPicks();
 
 
         appointmentId = appointment.getAppId();
@@ -267,13 +310,6 @@ public class ModifyAppointmentController implements Initializable {
         modifyAppointmentTypeTxt.setText(appointment.getAppType());
 
 
-        for (Country c : getAllCountries()) {
-            if (c.getCountryName().equals(appointment.getAppLocation())) {
-                modifyAppointmentLocationCBox.setValue(c);
-            }
-        }
-
-        modifyAppointmentContactCBox.getSelectionModel().select(appointment.getAppContactId() - 1);
         modifyAppointmentStartDateDP.setValue(startTimeDate.toLocalDate());
         modifyAppointmentStartTimeCBox.getSelectionModel().select(startTimeDate.toLocalTime());
         modifyAppointmentEndDateDP.setValue(endDateTime.toLocalDate());
@@ -281,5 +317,36 @@ public class ModifyAppointmentController implements Initializable {
     }
 
 
+    /**
+     * Method that picks the customer, contact and location of the appointment being modified in their combo boxes.
+     *
+     * <p>
+     * This runs when the appointment is sent over and again once the lists are loaded, whichever comes last picks them.
+     * </p>
+     */
+    private void selectPicks() {
+        if (modifAppt == null) {
+            return;
+        }
+
+        /*This section guarantees no matter how many customers there are and how many get deleted the combo box will list the correct one.*/
+        /*START*/
+        for (Customer c : customer) {
+            if (c.getCustomerId() == modifAppt.getAppCustomerId()) {
+                modifyAppointmentCustomerCBox.setValue(c);
+            }
+        }
+        /*END*/
 
+        for (Contact c : contacts) {
+            if (c.getContactId() == modifAppt.getAppContactId()) {
+                modifyAppointmentContactCBox.setValue(c);
+            }
+        }
+        for (Country c : location) {
+            if (c.getCountryName().equals(modifAppt.getAppLocation())) {
+                modifyAppointmentLocationCBox.setValue(c);
+            }
+        }
+    }
 }
@@ -1,7 +1,9 @@
 package controller;
 
-import data_access.CountryDAO;
+import data_access.AsyncDAO;
+import data_access.ReferenceDataCache;
 import data_access.CustomerDAO;
+import data_access.CustomerField;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -11,12 +13,10 @@ import model.*;
 
 import java.io.IOException;
 import java.net.URL;
-import java.sql.SQLException;
+import java.util.EnumSet;
 import java.util.Optional;
 import java.util.ResourceBundle;
-
-import static data_access.CountryDAO.getAllCountries;
-import static data_access.CountryDAO.getAllDivisions;
+import java.util.Set;
 
 
 /**
@@ -29,10 +29,14 @@ import static data_access.CountryDAO.getAllDivisions;
  * @author Zachary Zamiska
  * @version %I%, %G%
  */
-public class ModifyCustomerController implements Initializable {
+public class ModifyCustomerController implements Initializable, RefreshInterface {
 
     int customerId;
 
+    private static final Set<CustomerField> tableFields = EnumSet.of(CustomerField.ID, CustomerField.NAME,
+            CustomerField.ADDRESS, CustomerField.POSTAL_CODE, CustomerField.PHONE, CustomerField.DIVISION_ID,
+            CustomerField.DIVISION_NAME, CustomerField.COUNTRY_NAME);
+
     static AlertInterface alertPopup = (alert, title, header, content, wait) -> {
         alert.setTitle(title);
         alert.setHeaderText(header);
@@ -78,7 +82,8 @@ public class ModifyCustomerController implements Initializable {
      * The <i>Modify Customer</i> controller initialize method.
      *
      * <p>
-     * This method runs when the view is initialized. It sets the views for the table view and combo boxes.
+     * This method runs when the view is initialized. It sets the views for the table view, the combo boxes are filled
+     * in the background by <i>refresh()</i>.
      * </p>
      *
      * @param url            The methods' URL to the world wide web if needed
@@ -87,18 +92,44 @@ public class ModifyCustomerController implements Initializable {
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
 
-        modifyCustomerTableView.setItems(CustomerDAO.getAllCustomersModified());
-
         modifyCustomerIdCol.setCellValueFactory(new PropertyValueFactory<>("customerId"));
         modifyCustomerNameCol.setCellValueFactory(new PropertyValueFactory<>("customerName"));
         modifyCustomerAddressCol.setCellValueFactory(new PropertyValueFactory<>("customerAddress"));
         modifyCustomerZipCol.setCellValueFactory(new PropertyValueFactory<>("customerZip"));
         modifyCustomerDivisionCol.setCellValueFactory(new PropertyValueFactory<>("customerDivisionName"));
         modifyCustomerLocationCol.setCellValueFactory(new PropertyValueFactory<>("customerCountryName"));
+    }
 
-        modifyCustomerCountryCBox.setItems(CountryDAO.getAllCountries());
-        modifyCustomerDivisionCBox.setItems(CountryDAO.getAllDivisions());
 
+    /**
+     * Method called every time the <i>Modify Customer</i> view is shown, before the customer is sent over.
+     *
+     * <p>
+     * This method clears the country and division of the last customer modified and populates the table view in the background.
+     * The countries and divisions are also grabbed again in the background, so the combo boxes follow the reference data cache
+     * while the view is kept.
+     * </p>
+     */
+    @Override
+    public void refresh() {
+        modifyCustomerCountryCBox.setValue(null);
+        modifyCustomerDivisionCBox.setValue(null);
+
+        AsyncDAO.onFxThread(ReferenceDataCache.getCountriesAsync(), countries -> {
+            if (countries != modifyCustomerCountryCBox.getItems()) {
+                Country picked = modifyCustomerCountryCBox.getValue();
+                modifyCustomerCountryCBox.setItems(countries);
+                modifyCustomerCountryCBox.setValue(picked); // keep the pick of sendCustomer
+            }
+        });
+        AsyncDAO.onFxThread(ReferenceDataCache.getDivisionsAsync(), divisions -> {
+            if (modifyCustomerCountryCBox.getValue() == null) {
+                modifyCustomerDivisionCBox.setItems(divisions);
+            }
+        });
+
+        modifyCustomerTableView.getSelectionModel().clearSelection();
+        AsyncDAO.onFxThread(CustomerDAO.getCustomersAsync(tableFields), modifyCustomerTableView::setItems);
     }
 
 
@@ -134,6 +165,7 @@ public class ModifyCustomerController implements Initializable {
      *         <li>It first checks to see if all of the fields are filled out. If not there is an alert.</li>
      *         <li>After it checks for this this method then grabs the values and sends them to the
      *         <i>AppointmentDAO</i> file to query the database.</li>
+     *         <li>The customer is modified and the table view is grabbed again in the background.</li>
      *     </ul>
      * </p>
      */
@@ -162,8 +194,8 @@ public class ModifyCustomerController implements Initializable {
 
             String currentUser = LoginScreenController.currentUser.getUserName();
 
-            CustomerDAO.modifyCustomer(customerId, name, address, zip, phone, currentUser, divId);
-            modifyCustomerTableView.setItems(CustomerDAO.getAllCustomersModified());
+            AsyncDAO.onFxThread(CustomerDAO.modifyCustomerAsync(customerId, name, address, zip, phone, currentUser, divId)
+                    .thenCompose(rows -> CustomerDAO.getCustomersAsync(tableFields)), modifyCustomerTableView::setItems);
 
         } catch (Exception e) {
             alertPopup.AlertPopup(new Alert(Alert.AlertType.WARNING), "Modification Error", "Please fill in all of the required fields", "Select ok to continue.", true);
@@ -191,17 +223,7 @@ public class ModifyCustomerController implements Initializable {
             modifyCustomerZipTxt.setText(selected.getCustomerZip());
             modifyCustomerAddressTxt.setText(selected.getCustomerAddress());
 
-            for (Country c : getAllCountries()) {
-                if (c.getCountryName().equals(selected.getCustomerCountryName())) {
-                    modifyCustomerCountryCBox.setValue(c);
-                }
-            }
-
-            for (FirstLevelDivision fld : getAllDivisions()) {
-                if (fld.getDivisionId() == selected.getCustomerDivisionId()) {
-                    modifyCustomerDivisionCBox.setValue(fld);
-                }
-            }
+            showLocation(selected);
         } catch (NullPointerException e) {
             System.out.println("Come on don't click on this lame whitespace...");
         }
@@ -213,13 +235,21 @@ public class ModifyCustomerController implements Initializable {
      * Method that is called when the user selects a country.
      *
      * This method is called when a user selects a county from the combo box. When a country is selected it sets the
-     * divisions to the corresponding locations in the country selected.
+     * divisions to the corresponding locations in the country selected, grabbed in the background.
      *
-     * @throws SQLException If an error occurs when the SQL query in <i>CustomerDAO </i> code.
+     * @see ReferenceDataCache
      */
     @FXML
-    void onActionSelectCountry() throws SQLException {
-        modifyCustomerDivisionCBox.setItems(CountryDAO.getCountryDivisions(modifyCustomerCountryCBox.getValue().getCountryId()));
+    void onActionSelectCountry() {
+        if (modifyCustomerCountryCBox.getValue() == null) {
+            return; // cleared by refresh()
+        }
+        Country country = modifyCustomerCountryCBox.getValue();
+        AsyncDAO.onFxThread(ReferenceDataCache.getCountryDivisionsAsync(country.getCountryId()), divisions -> {
+            if (country == modifyCustomerCountryCBox.getValue()) {
+                modifyCustomerDivisionCBox.setItems(divisions);
+            }
+        });
     }
 
 
@@ -243,16 +273,31 @@ public class ModifyCustomerController implements Initializable {
         modifyCustomerZipTxt.setText(customerData.getCustomerZip());
         modifyCustomerAddressTxt.setText(customerData.getCustomerAddress());
 
-        for (Country c : getAllCountries()) {
-            if (c.getCountryName().equals(customerData.getCustomerCountryName())) {
-                modifyCustomerCountryCBox.setValue(c);
-            }
-        }
+        showLocation(customerData);
+    }
 
-        for (FirstLevelDivision fld : getAllDivisions()) {
-            if (fld.getDivisionId() == customerData.getCustomerDivisionId()) {
-                modifyCustomerDivisionCBox.setValue(fld);
+
+    /**
+     * Method that picks the country and division of a customer in the combo boxes.
+     *
+     * <p>
+     * The country and division are looked up in the <i>ReferenceDataCache</i> in the background, and dropped if
+     * another customer was picked in the meantime.
+     * </p>
+     *
+     * @param customer The customer being modified
+     */
+    private void showLocation(Customer customer) {
+        int id = customer.getCustomerId();
+        AsyncDAO.onFxThread(ReferenceDataCache.getCountryByNameAsync(customer.getCustomerCountryName()), country -> {
+            if (customerId == id) {
+                modifyCustomerCountryCBox.setValue(country);
             }
-        }
+        });
+        AsyncDAO.onFxThread(ReferenceDataCache.getDivisionAsync(customer.getCustomerDivisionId()), division -> {
+            if (customerId == id) {
+                modifyCustomerDivisionCBox.setValue(division);
+            }
+        });
     }
 }
@@ -1,8 +1,10 @@
 package controller;
 
-import data_access.AppointmentDAO;
-import data_access.ContactDAO;
-import data_access.UserDAO;
+import data_access.AppointmentColumnStore;
+import data_access.AppointmentCountCube;
+import data_access.AsyncDAO;
+import data_access.ReferenceDataCache;
+import data_access.ReportDAO;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
@@ -13,6 +15,7 @@ import javafx.scene.control.cell.PropertyValueFactory;
 import model.Appointment;
 import model.Contact;
 import model.Main;
+import model.RefreshInterface;
 import model.User;
 
 import java.io.IOException;
@@ -20,8 +23,9 @@ import java.net.URL;
 import java.sql.Timestamp;
 import java.time.Month;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 
-public class ReportController implements Initializable {
+public class ReportController implements Initializable, RefreshInterface {
 
     ObservableList<String> reportTypes = FXCollections.observableArrayList();
     ObservableList<String> months = FXCollections.observableArrayList();
@@ -29,6 +33,11 @@ public class ReportController implements Initializable {
     ObservableList<Appointment> appList = FXCollections.observableArrayList();
     Contact contact;
 
+    /**
+     * When true the reports are run as SQL queries by <i>ReportDAO</i>, otherwise they are answered in memory.
+     */
+    private static final boolean serverSide = Boolean.getBoolean("reports.serverSide");
+
     @FXML
     private ComboBox<String> reportTypeCBox;
     @FXML
@@ -93,17 +102,55 @@ public class ReportController implements Initializable {
     /**
      * The initialize method called when the <i>Report</i> view is loaded.
      *
+     * <p>
+     * This runs once, the view is kept by the <i>SceneCache</i> and reset by <i>refresh()</i> every time it is shown.
+     * </p>
+     *
      * @param url            The methods' URL to the world wide web if needed
      * @param resourceBundle The methods' resource bundle
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        for (int i = 1; i < 12; i++) {
+            months.add(String.valueOf(Month.of(i)));
+        }
+        monthCBox.setItems(months);
+        typeCBox.setItems(types);
+
+        reportTypes.add("Appointment Count by Month and Type");
+        reportTypes.add("Appointments by Contact");
+        reportTypes.add("Appointments by User");
+        reportTypeCBox.setItems(reportTypes);
+    }
+
+
+    /**
+     * The method called every time the <i>Report</i> view is shown.
+     *
+     * <p>
+     * This method clears the last report and hides every report control until a report type is picked. The contacts,
+     * users and appointment types are loaded again in the background, they may have changed since the view was last
+     * shown.
+     * </p>
+     */
+    @Override
+    public void refresh() {
+        reportTypeCBox.setValue(null);
+        reportContactCBox.setValue(null);
+        reportUserCBox.setValue(null);
+        monthCBox.setValue(null);
+        typeCBox.setValue(null);
+        appCountNumLbl.setText("0");
+        appList.clear();
+
         reportContactCBox.setVisible(false);
         contactLbl.setVisible(false);
 
         reportUserCBox.setVisible(false);
         userLbl.setVisible(false);
 
+        appointmentTableView.setVisible(true);
+
         titleLbl.setVisible(false);
         descriptionLbl.setVisible(false);
         monthLbl.setVisible(false);
@@ -114,25 +161,14 @@ public class ReportController implements Initializable {
         monthCBox.setVisible(false);
         typeCBox.setVisible(false);
 
-        reportContactCBox.setItems(ContactDAO.getAllContacts());
-        reportUserCBox.setItems(UserDAO.getAllUsers.getAll());
+        AsyncDAO.onFxThread(ReferenceDataCache.getContactsAsync(), reportContactCBox::setItems);
+        AsyncDAO.onFxThread(ReferenceDataCache.getUsersAsync(), reportUserCBox::setItems);
 
-        for (int i = 1; i < 12; i++) {
-            months.add(String.valueOf(Month.of(i)));
-        }
-        monthCBox.setItems(months);
-
-        for (Appointment a : AppointmentDAO.getAllAppointments()) {
-            if (!(types.contains(a.getAppType()))) {
-                types.add(a.getAppType());
-            }
+        if (serverSide) {
+            AsyncDAO.onFxThread(ReportDAO.getTypesAsync(), types::setAll);
+        } else {
+            AsyncDAO.onFxThread(AppointmentCountCube.preload(), cube -> types.setAll(cube.getTypes()));
         }
-        typeCBox.setItems(types);
-
-        reportTypes.add("Appointment Count by Month and Type");
-        reportTypes.add("Appointments by Contact");
-        reportTypes.add("Appointments by User");
-        reportTypeCBox.setItems(reportTypes);
     }
 
     /**
@@ -221,15 +257,23 @@ public class ReportController implements Initializable {
      */
     @FXML
     public void onActionReportContactCBox() {
+        if (reportContactCBox.getValue() == null) {
+            return; // cleared by refresh()
+        }
         appointmentTableView.getItems().clear();
+        appointmentTableView.setItems(appList);
+        appointmentTableView.setPlaceholder(new Label("Loading appointments..."));
         contact = reportContactCBox.getValue();
-        for (Appointment a : AppointmentDAO.getAllAppointments()) {
-            if (a.getAppContactId() == contact.getContactId()) {
-                appList.add(a);
+        Contact picked = contact;
+        CompletableFuture<ObservableList<Appointment>> rows = serverSide ? ReportDAO.getAppointmentsForContactAsync(picked.getContactId())
+                : AppointmentColumnStore.getInstanceAsync().thenApply(store -> store.getAppointmentsWithContact(picked.getContactId()));
+        AsyncDAO.onFxThread(rows, appointments -> {
+            if (picked != reportContactCBox.getValue()) {
+                return; // a newer pick is already loading
             }
-        }
-
-        appointmentTableView.setItems(appList);
+            appList.setAll(appointments);
+            appointmentTableView.setPlaceholder(null);
+        });
 
         appointmentIdCol.setCellValueFactory(new PropertyValueFactory<>("appId"));
         appointmentTitleCol.setCellValueFactory(new PropertyValueFactory<>("appTitle"));
@@ -248,15 +292,22 @@ public class ReportController implements Initializable {
      */
     @FXML
     public void onActionReportUserCBox() {
+        if (reportUserCBox.getValue() == null) {
+            return; // cleared by refresh()
+        }
         appointmentTableView.getItems().clear();
+        appointmentTableView.setItems(appList);
+        appointmentTableView.setPlaceholder(new Label("Loading appointments..."));
         User user = reportUserCBox.getValue();
-        for (Appointment a : AppointmentDAO.getAllAppointments()) {
-            if (a.getAppUserId() == user.getUserId()) {
-                appList.add(a);
+        CompletableFuture<ObservableList<Appointment>> rows = serverSide ? ReportDAO.getAppointmentsForUserAsync(user.getUserId())
+                : AppointmentColumnStore.getInstanceAsync().thenApply(store -> store.getAppointmentsWithUser(user.getUserId()));
+        AsyncDAO.onFxThread(rows, appointments -> {
+            if (user != reportUserCBox.getValue()) {
+                return; // a newer pick is already loading
             }
-        }
-
-        appointmentTableView.setItems(appList);
+            appList.setAll(appointments);
+            appointmentTableView.setPlaceholder(null);
+        });
 
         appointmentIdCol.setCellValueFactory(new PropertyValueFactory<>("appId"));
         appointmentTitleCol.setCellValueFactory(new PropertyValueFactory<>("appTitle"));
@@ -275,18 +326,13 @@ public class ReportController implements Initializable {
      */
     @FXML
     public void onActionReportGenerateBtn() {
-        int count = 0;
-
         try {
-            String monthPick = monthCBox.getValue();
+            Month monthPick = Month.valueOf(monthCBox.getValue().toUpperCase());
             String typePick = typeCBox.getValue();
 
-            for (Appointment a : AppointmentDAO.getAllAppointments()) {
-                if (a.getAppType().equals(typePick) && (a.getAppStartDate().toLocalDateTime().getMonth().toString().equals(monthPick.toUpperCase()))) {
-                    count++;
-                }
-            }
-            appCountNumLbl.setText(String.valueOf(count));
+            CompletableFuture<Integer> count = serverSide ? ReportDAO.countByMonthAndTypeAsync(monthPick, typePick)
+                    : AppointmentCountCube.preload().thenApply(cube -> cube.count(monthPick, typePick));
+            AsyncDAO.onFxThread(count, n -> appCountNumLbl.setText(String.valueOf(n)));
         } catch (Exception e) {
             System.out.println("Caught");
         }
@@ -0,0 +1,536 @@
+package data_access;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.Appointment;
+import model.StringDictionary;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Class for a column oriented, off-heap copy of the appointment table for the reports.
+ *
+ * <p>
+ * Each column is kept in its own direct buffer, outside of the garbage collected heap:
+ *     <ul>
+ *         <li>start and end as epoch milliseconds</li>
+ *         <li>the appointment, customer, user and contact IDs</li>
+ *         <li>the type and location as dictionary codes</li>
+ *         <li>the title and description as UTF-8 bytes in one shared text buffer, with the offset and lengths of each
+ *         row in their own columns</li>
+ *     </ul>
+ * A report is a loop over one of these buffers, so it reads a few bytes per appointment and does not build or walk
+ * any <i>Appointment</i> objects. Only the matched rows are turned into appointments, for a table view.
+ * </p>
+ * <p>
+ * The store is loaded once and then kept up to date one row at a time, the next time it is asked for:
+ *     <ul>
+ *         <li>Appointments changed through <i>AppointmentDAO</i> in this application are queued by a change listener
+ *         and written into their row. A new appointment is added as the last row, a deleted one is replaced by the
+ *         last row, so rows are in no order and the reports sort the rows they match by start time.</li>
+ *         <li>Changes made by other clients are caught up with when the table version (see
+ *         <i>AppointmentDAO.getTableVersion</i>) is no longer the one the store is up to date with, like the
+ *         <i>AppointmentCountCube</i> does. The version is checked at most once every <i>reports.checkEveryMillis</i>
+ *         (30 seconds by default), so their changes can take that long to show. If the catch up fails the store is
+ *         loaded again.</li>
+ *     </ul>
+ * A changed title or description is written after the others in the text buffer. The old bytes are dropped when the
+ * buffer is full and gets compacted.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see AppointmentDAO#loadColumnStore(AppointmentColumnStore)
+ */
+public final class AppointmentColumnStore {
+
+    private static final long checkEveryMillis = Long.getLong("reports.checkEveryMillis", 30_000L);
+    private static final long overlapMillis = Long.getLong("sync.overlapMillis", 5_000L);
+
+    /**
+     * Above this many changed appointments, loading the store again is quicker than finding each row.
+     */
+    private static final int maxCatchUp = 256;
+
+    private static final Object lock = new Object();
+    private static final ConcurrentLinkedQueue<Change> changes = new ConcurrentLinkedQueue<>();
+    private static AppointmentColumnStore current;
+    private static long checkedAt;
+
+    static {
+        AppointmentDAO.addChangeListener((appointmentId, appointment) -> changes.add(new Change(appointmentId, appointment)));
+    }
+
+    private int size;
+    private int capacity = 1024;
+    private IntBuffer ids = ints(capacity);
+    private LongBuffer starts = longs(capacity);
+    private LongBuffer ends = longs(capacity);
+    private IntBuffer customerIds = ints(capacity);
+    private IntBuffer userIds = ints(capacity);
+    private IntBuffer contactIds = ints(capacity);
+    private IntBuffer types = ints(capacity);
+    private IntBuffer locations = ints(capacity);
+    private IntBuffer textAt = ints(capacity);
+    private IntBuffer titleLengths = ints(capacity);
+    private IntBuffer descriptionLengths = ints(capacity);
+    private ByteBuffer text = ByteBuffer.allocateDirect(64 * capacity);
+    private int textEnd;
+    private int textGarbage;
+    private final StringDictionary typeDictionary = new StringDictionary();
+    private final StringDictionary locationDictionary = new StringDictionary();
+    private AppointmentDAO.TableVersion version;
+
+
+    /**
+     * Package-private so the tests can fill a store without the database, through <i>load</i> and <i>apply</i>.
+     */
+    AppointmentColumnStore() {
+    }
+
+
+    /**
+     * Method that hands out the current store, loading it if there is none and catching it up with the changes made
+     * since it was last handed out.
+     *
+     * @return The appointment store
+     * @throws IllegalStateException If the appointments could not be loaded from the database
+     */
+    public static AppointmentColumnStore getInstance() {
+        synchronized (lock) {
+            if (current != null) {
+                current.applyQueued();
+                if (checkDue()) {
+                    checkedAt = System.currentTimeMillis();
+                    AppointmentDAO.TableVersion now = AppointmentDAO.getTableVersion();
+                    // A failed check keeps the store, it is checked again next time
+                    if (now != null && !now.equals(current.version) && !current.catchUp(now)) {
+                        current = null;
+                    }
+                }
+            }
+            if (current == null) {
+                // Cleared before the load, the changes made from now on are applied to the new store
+                changes.clear();
+                AppointmentColumnStore store = new AppointmentColumnStore();
+                // Read before the load, so a change made by another client while loading is caught up with
+                store.version = AppointmentDAO.getTableVersion();
+                if (!AppointmentDAO.loadColumnStore(store)) {
+                    throw new IllegalStateException("The appointment column store could not be loaded");
+                }
+                current = store;
+                checkedAt = System.currentTimeMillis();
+            }
+            return current;
+        }
+    }
+
+
+    /**
+     * Asynchronous version of <i>getInstance</i>.
+     *
+     * @return A future of the appointment store, already completed if the current store has no changes waiting and
+     * its version was checked recently
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<AppointmentColumnStore> getInstanceAsync() {
+        synchronized (lock) {
+            if (current != null && changes.isEmpty() && !checkDue()) {
+                return CompletableFuture.completedFuture(current);
+            }
+        }
+        return AsyncDAO.supply(AppointmentColumnStore::getInstance);
+    }
+
+
+    /**
+     * @return true if the table version has not been checked for <i>reports.checkEveryMillis</i>
+     */
+    private static boolean checkDue() {
+        return System.currentTimeMillis() - checkedAt >= checkEveryMillis;
+    }
+
+
+    /**
+     * @return the number of appointments in the store
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+
+    /**
+     * @return every appointment type in the store, in the order of their codes
+     */
+    public synchronized List<String> getTypes() {
+        boolean[] used = new boolean[typeDictionary.size()];
+        for (int row = 0; row < size; row++) {
+            int code = types.get(row);
+            if (code != StringDictionary.NULL) {
+                used[code] = true;
+            }
+        }
+        List<String> list = new ArrayList<>();
+        for (int code = 0; code < used.length; code++) {
+            if (used[code]) {
+                list.add(typeDictionary.decode(code));
+            }
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+
+    /**
+     * @param contactId The ID of the contact
+     * @return the appointments with the contact, in start time order
+     */
+    public synchronized ObservableList<Appointment> getAppointmentsWithContact(int contactId) {
+        return toAppointments(rowsWith(contactIds, contactId));
+    }
+
+
+    /**
+     * @param userId The ID of the user
+     * @return the appointments of the user, in start time order
+     */
+    public synchronized ObservableList<Appointment> getAppointmentsWithUser(int userId) {
+        return toAppointments(rowsWith(userIds, userId));
+    }
+
+
+    /**
+     * Method used by <i>AppointmentDAO.loadColumnStore</i> to add an appointment while the store is being loaded.
+     *
+     * @param appointmentId The ID of the appointment
+     * @param title         The title of the appointment
+     * @param description   The description of the appointment
+     * @param location      The location of the appointment
+     * @param type          The type of the appointment
+     * @param start         The start of the appointment, in epoch milliseconds
+     * @param end           The end of the appointment, in epoch milliseconds
+     * @param customerId    The ID of the customer of the appointment
+     * @param userId        The ID of the user of the appointment
+     * @param contactId     The ID of the contact of the appointment
+     */
+    synchronized void load(int appointmentId, String title, String description, String location, String type, long start, long end, int customerId, int userId, int contactId) {
+        if (size == capacity) {
+            grow();
+        }
+        write(size++, appointmentId, title, description, location, type, start, end, customerId, userId, contactId);
+    }
+
+
+    /**
+     * Method that writes the changes made through <i>AppointmentDAO</i> since the last call into their rows.
+     */
+    private synchronized void applyQueued() {
+        Change change;
+        while ((change = changes.poll()) != null) {
+            apply(change.appointmentId, change.appointment);
+        }
+    }
+
+
+    /**
+     * Method that writes one appointment change into its row.
+     *
+     * @param appointmentId The ID of the appointment that changed
+     * @param appointment   The appointment as it is now, or null if it was deleted
+     */
+    synchronized void apply(int appointmentId, Appointment appointment) {
+        if (appointment != null) {
+            put(appointment);
+        } else {
+            int row = rowOf(appointmentId);
+            if (row >= 0) {
+                removeRow(row);
+            }
+        }
+    }
+
+
+    /**
+     * Method that writes the changes other clients made since the version of the store into their rows.
+     *
+     * <p>
+     * Deleted appointments leave no row behind. Unless the appointments new to the store account for the whole change
+     * in the row count of the table, and the store holds as many appointments as the table, the appointment IDs are
+     * compared to find the deleted ones. The queries run outside of the lock of the store, so the reports keep being
+     * answered meanwhile.
+     * </p>
+     *
+     * @param now The table version to catch up to
+     * @return true if the store is up to date with the version, false if it has to be loaded again
+     */
+    private boolean catchUp(AppointmentDAO.TableVersion now) {
+        AppointmentDAO.TableVersion seen = version;
+        if (seen == null || seen.getLatestUpdate() == null) {
+            return false;
+        }
+        List<Appointment> changed = AppointmentDAO.getAppointmentsChangedSince(new Timestamp(seen.getLatestUpdate().getTime() - overlapMillis));
+        if (changed.size() > maxCatchUp) {
+            return false;
+        }
+        boolean explained;
+        synchronized (this) {
+            int added = 0;
+            for (Appointment a : changed) {
+                if (rowOf(a.getAppId()) < 0) {
+                    added++;
+                }
+                put(a);
+            }
+            explained = now.getCount() - seen.getCount() == added && size == now.getCount();
+        }
+        if (!explained) {
+            Set<Integer> inTable = AppointmentDAO.getAppointmentIds();
+            if (inTable == null) {
+                return false;
+            }
+            synchronized (this) {
+                for (int row = size - 1; row >= 0; row--) {
+                    if (!inTable.contains(ids.get(row))) {
+                        removeRow(row);
+                    }
+                }
+            }
+        }
+        version = now;
+        return true;
+    }
+
+
+    /**
+     * Method that writes an appointment into its row, or into a new last row if it is not in the store.
+     */
+    private void put(Appointment a) {
+        int row = rowOf(a.getAppId());
+        if (row < 0) {
+            if (size == capacity) {
+                grow();
+            }
+            row = size++;
+        } else {
+            textGarbage += textLength(row);
+        }
+        write(row, a.getAppId(), a.getAppTitle(), a.getAppDescription(), a.getAppLocation(), a.getAppType(),
+                a.getAppStartMillis(), a.getAppEndMillis(), a.getAppCustomerId(), a.getAppUserId(), a.getAppContactId());
+    }
+
+
+    private void write(int row, int appointmentId, String title, String description, String location, String type, long start, long end, int customerId, int userId, int contactId) {
+        ids.put(row, appointmentId);
+        starts.put(row, start);
+        ends.put(row, end);
+        customerIds.put(row, customerId);
+        userIds.put(row, userId);
+        contactIds.put(row, contactId);
+        types.put(row, typeDictionary.encode(type));
+        locations.put(row, locationDictionary.encode(location));
+        // Emptied first, so a compaction to make room does not copy the old text of the row
+        titleLengths.put(row, -1);
+        descriptionLengths.put(row, -1);
+        writeText(row, title, description);
+    }
+
+
+    /**
+     * Method that takes a row out by moving the last row into it.
+     */
+    private void removeRow(int row) {
+        textGarbage += textLength(row);
+        int last = --size;
+        if (row != last) {
+            ids.put(row, ids.get(last));
+            starts.put(row, starts.get(last));
+            ends.put(row, ends.get(last));
+            customerIds.put(row, customerIds.get(last));
+            userIds.put(row, userIds.get(last));
+            contactIds.put(row, contactIds.get(last));
+            types.put(row, types.get(last));
+            locations.put(row, locations.get(last));
+            textAt.put(row, textAt.get(last));
+            titleLengths.put(row, titleLengths.get(last));
+            descriptionLengths.put(row, descriptionLengths.get(last));
+        }
+    }
+
+
+    /**
+     * @return the row of the appointment, or -1 if it is not in the store
+     */
+    private int rowOf(int appointmentId) {
+        for (int row = 0; row < size; row++) {
+            if (ids.get(row) == appointmentId) {
+                return row;
+            }
+        }
+        return -1;
+    }
+
+
+    private int[] rowsWith(IntBuffer column, int value) {
+        List<Integer> rows = new ArrayList<>();
+        for (int row = 0; row < size; row++) {
+            if (column.get(row) == value) {
+                rows.add(row);
+            }
+        }
+        rows.sort(Comparator.<Integer>comparingLong(starts::get).thenComparingInt(ids::get));
+        int[] sorted = new int[rows.size()];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = rows.get(i);
+        }
+        return sorted;
+    }
+
+
+    /**
+     * Method that builds appointment objects for some rows of the store, for a table view.
+     *
+     * <p>
+     * The audit columns and the contact name are not in the store, they are left null.
+     * </p>
+     */
+    private ObservableList<Appointment> toAppointments(int[] rows) {
+        List<Appointment> list = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            int at = textAt.get(row);
+            int titleLength = titleLengths.get(row);
+            list.add(new Appointment(ids.get(row), readText(at, titleLength), readText(at + Math.max(titleLength, 0), descriptionLengths.get(row)),
+                    locationDictionary.decode(locations.get(row)), contactIds.get(row), typeDictionary.decode(types.get(row)),
+                    new Timestamp(starts.get(row)), new Timestamp(ends.get(row)), null, null, null, null, customerIds.get(row), userIds.get(row)));
+        }
+        return FXCollections.observableArrayList(list);
+    }
+
+
+    /**
+     * Method that appends the title and description of a row to the text buffer, the title right before the
+     * description. A length of -1 stands for null.
+     */
+    private void writeText(int row, String title, String description) {
+        byte[] t = title == null ? null : title.getBytes(StandardCharsets.UTF_8);
+        byte[] d = description == null ? null : description.getBytes(StandardCharsets.UTF_8);
+        int length = (t == null ? 0 : t.length) + (d == null ? 0 : d.length);
+        if (textEnd + length > text.capacity()) {
+            compactText(length);
+        }
+        ByteBuffer out = text.duplicate();
+        out.position(textEnd);
+        if (t != null) {
+            out.put(t);
+        }
+        if (d != null) {
+            out.put(d);
+        }
+        textAt.put(row, textEnd);
+        titleLengths.put(row, t == null ? -1 : t.length);
+        descriptionLengths.put(row, d == null ? -1 : d.length);
+        textEnd += length;
+    }
+
+
+    private String readText(int at, int length) {
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer in = text.duplicate();
+        in.position(at);
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+
+    private int textLength(int row) {
+        return Math.max(titleLengths.get(row), 0) + Math.max(descriptionLengths.get(row), 0);
+    }
+
+
+    /**
+     * Method that copies the text of every row into a new buffer without the text of replaced and removed rows,
+     * doubling it until at least half of it is free after the text that is about to be written.
+     *
+     * @param needed The number of bytes about to be written
+     */
+    private void compactText(int needed) {
+        long live = (long) textEnd - textGarbage + needed;
+        long newCapacity = text.capacity();
+        while (live > newCapacity / 2) {
+            newCapacity *= 2;
+        }
+        if (newCapacity > Integer.MAX_VALUE) {
+            throw new IllegalStateException("The appointment text does not fit in a buffer");
+        }
+        ByteBuffer moved = ByteBuffer.allocateDirect((int) newCapacity);
+        ByteBuffer in = text.duplicate();
+        for (int row = 0; row < size; row++) {
+            int at = textAt.get(row);
+            in.clear();
+            in.position(at);
+            in.limit(at + textLength(row));
+            textAt.put(row, moved.position());
+            moved.put(in);
+        }
+        text = moved;
+        textEnd = moved.position();
+        textGarbage = 0;
+    }
+
+
+    /**
+     * Method that doubles the capacity of every column.
+     */
+    private void grow() {
+        capacity *= 2;
+        ids = ints(capacity).put(ids.rewind());
+        starts = longs(capacity).put(starts.rewind());
+        ends = longs(capacity).put(ends.rewind());
+        customerIds = ints(capacity).put(customerIds.rewind());
+        userIds = ints(capacity).put(userIds.rewind());
+        contactIds = ints(capacity).put(contactIds.rewind());
+        types = ints(capacity).put(types.rewind());
+        locations = ints(capacity).put(locations.rewind());
+        textAt = ints(capacity).put(textAt.rewind());
+        titleLengths = ints(capacity).put(titleLengths.rewind());
+        descriptionLengths = ints(capacity).put(descriptionLengths.rewind());
+    }
+
+
+    private static IntBuffer ints(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+    }
+
+
+    private static LongBuffer longs(int capacity) {
+        return ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+    }
+
+
+    /**
+     * An appointment change queued by the change listener.
+     */
+    private static final class Change {
+
+        private final int appointmentId;
+        private final Appointment appointment;
+
+        private Change(int appointmentId, Appointment appointment) {
+            this.appointmentId = appointmentId;
+            this.appointment = appointment;
+        }
+    }
+}
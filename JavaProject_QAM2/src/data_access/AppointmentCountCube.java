@@ -0,0 +1,365 @@
+package data_access;
+
+import model.Appointment;
+import model.AppointmentChangeInterface;
+import model.StringDictionary;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.Month;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Class for keeping appointment counts by month, ready for the reports.
+ *
+ * <p>
+ * The cube holds the number of appointments for every:
+ *     <ul>
+ *         <li>(year, month, type) and (month of any year, type)</li>
+ *         <li>(contact, year, month)</li>
+ *         <li>(user, year, month)</li>
+ *         <li>type, which also gives the list of distinct types</li>
+ *     </ul>
+ * so a report answer is a map lookup instead of a scan of the appointment table. Months are taken in the system time
+ * zone from the start of the appointment.
+ * </p>
+ * <p>
+ * The cube is built once, the first time it is used, and from then on kept up to date through
+ * <i>AppointmentDAO.addChangeListener</i> as appointments are inserted, modified and deleted. It remembers the month,
+ * type, contact and user it counted each appointment under, so a modify or delete takes the old counts back out.
+ * </p>
+ * <p>
+ * Changes made by other clients are caught up with when the cube is handed out, at most once every
+ * <i>reports.checkEveryMillis</i> (30 seconds by default): if the table version (see
+ * <i>AppointmentDAO.getTableVersion</i>) changed, the appointments changed since its latest <i>Last_Update</i> are
+ * counted again, like the <i>AppointmentSyncEngine</i> does for the Main Screen.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see AppointmentDAO#loadCountCube(AppointmentCountCube)
+ */
+public final class AppointmentCountCube {
+
+    private static final long checkEveryMillis = Long.getLong("reports.checkEveryMillis", 30_000L);
+    private static final long overlapMillis = Long.getLong("sync.overlapMillis", 5_000L);
+
+    private static volatile AppointmentCountCube instance;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final StringDictionary typeCodes = new StringDictionary();
+
+    private final Map<Integer, Counted> byAppointment = new HashMap<>();
+    private final Map<Long, int[]> byMonthAndType = new HashMap<>();
+    private final Map<Long, int[]> byMonthOfYearAndType = new HashMap<>();
+    private final Map<Long, int[]> byContactAndMonth = new HashMap<>();
+    private final Map<Long, int[]> byUserAndMonth = new HashMap<>();
+    private final Map<String, int[]> byType = new TreeMap<>();
+    private Set<Integer> changedWhileLoading = new HashSet<>();
+    private final Object catchUpLock = new Object();
+    private AppointmentDAO.TableVersion version;
+    private volatile long checkedAt;
+
+
+    private AppointmentCountCube() {
+    }
+
+
+    /**
+     * Method that hands out the count cube, building it on first use and catching it up with other clients when its
+     * version is due to be checked.
+     *
+     * @return The count cube
+     * @throws IllegalStateException If the appointments could not be loaded from the database
+     */
+    public static AppointmentCountCube getInstance() {
+        AppointmentCountCube cube = instance;
+        if (cube == null) {
+            synchronized (AppointmentCountCube.class) {
+                cube = instance;
+                if (cube == null) {
+                    cube = new AppointmentCountCube();
+                    AppointmentChangeInterface listener = cube::appointmentChanged;
+                    AppointmentDAO.addChangeListener(listener);
+                    // Read before the load, so a change made by another client while loading is caught up with
+                    cube.version = AppointmentDAO.getTableVersion();
+                    cube.checkedAt = System.currentTimeMillis();
+                    if (!AppointmentDAO.loadCountCube(cube)) {
+                        AppointmentDAO.removeChangeListener(listener);
+                        throw new IllegalStateException("The appointment count cube could not be loaded");
+                    }
+                    cube.finishLoading();
+                    instance = cube;
+                }
+            }
+        }
+        cube.catchUp();
+        return cube;
+    }
+
+
+    /**
+     * Method that builds the count cube in the background, so the report screen does not wait on it.
+     *
+     * @return A future of the built cube, already completed if it is built and its version was checked recently
+     */
+    public static CompletableFuture<AppointmentCountCube> preload() {
+        AppointmentCountCube cube = instance;
+        if (cube != null && !cube.checkDue()) {
+            return CompletableFuture.completedFuture(cube);
+        }
+        return AsyncDAO.supply(AppointmentCountCube::getInstance);
+    }
+
+
+    /**
+     * @param year  The year the appointments start in
+     * @param month The month the appointments start in
+     * @param type  The appointment type
+     * @return the number of appointments of the type starting in the month
+     */
+    public synchronized int count(int year, Month month, String type) {
+        int code = typeCodes.lookup(type);
+        return code == StringDictionary.MISSING ? 0 : get(byMonthAndType, key(yearMonth(year, month), code));
+    }
+
+
+    /**
+     * @param month The month the appointments start in, of any year
+     * @param type  The appointment type
+     * @return the number of appointments of the type starting in the month, of any year
+     */
+    public synchronized int count(Month month, String type) {
+        int code = typeCodes.lookup(type);
+        return code == StringDictionary.MISSING ? 0 : get(byMonthOfYearAndType, key(month.ordinal(), code));
+    }
+
+
+    /**
+     * @param contactId The ID of the contact
+     * @param year      The year the appointments start in
+     * @param month     The month the appointments start in
+     * @return the number of appointments with the contact starting in the month
+     */
+    public synchronized int countForContact(int contactId, int year, Month month) {
+        return get(byContactAndMonth, key(contactId, yearMonth(year, month)));
+    }
+
+
+    /**
+     * @param userId The ID of the user
+     * @param year   The year the appointments start in
+     * @param month  The month the appointments start in
+     * @return the number of appointments of the user starting in the month
+     */
+    public synchronized int countForUser(int userId, int year, Month month) {
+        return get(byUserAndMonth, key(userId, yearMonth(year, month)));
+    }
+
+
+    /**
+     * @return every appointment type with at least one appointment, sorted
+     */
+    public synchronized List<String> getTypes() {
+        return Collections.unmodifiableList(new ArrayList<>(byType.keySet()));
+    }
+
+
+    /**
+     * Method used by <i>AppointmentDAO.loadCountCube</i> to count an appointment while the cube is being built.
+     *
+     * <p>
+     * Appointments that were changed through the DAO after the load query started are skipped, the change listener
+     * already counted the newer version of them. The same goes for the changes grabbed while catching up.
+     * </p>
+     *
+     * @param appointmentId The ID of the appointment
+     * @param type          The type of the appointment
+     * @param start         The start of the appointment, in epoch milliseconds
+     * @param contactId     The ID of the contact of the appointment
+     * @param userId        The ID of the user of the appointment
+     */
+    synchronized void load(int appointmentId, String type, long start, int contactId, int userId) {
+        if (changedWhileLoading == null || !changedWhileLoading.contains(appointmentId)) {
+            put(appointmentId, type, start, contactId, userId);
+        }
+    }
+
+
+    private synchronized void finishLoading() {
+        changedWhileLoading = null;
+    }
+
+
+    /**
+     * @return true if the table version has not been checked for <i>reports.checkEveryMillis</i>
+     */
+    private boolean checkDue() {
+        return System.currentTimeMillis() - checkedAt >= checkEveryMillis;
+    }
+
+
+    /**
+     * Method that counts the changes other clients made since the last table version, if it is due to be checked.
+     *
+     * <p>
+     * Deleted appointments leave no row behind. Unless the appointments new to the cube account for the whole change
+     * in the row count of the table, and the cube holds as many appointments as the table, the appointment IDs are
+     * compared to find the deleted ones. The queries run outside of the lock of the cube, so the reports keep being
+     * answered meanwhile.
+     * </p>
+     */
+    private void catchUp() {
+        synchronized (catchUpLock) {
+            AppointmentDAO.TableVersion seen;
+            synchronized (this) {
+                if (!checkDue()) {
+                    return;
+                }
+                checkedAt = System.currentTimeMillis();
+                seen = version;
+            }
+            AppointmentDAO.TableVersion now = AppointmentDAO.getTableVersion();
+            if (now == null || now.equals(seen)) {
+                return; // a failed check is tried again next time
+            }
+
+            synchronized (this) {
+                changedWhileLoading = new HashSet<>();
+            }
+            Timestamp latest = seen == null ? null : seen.getLatestUpdate();
+            List<Appointment> changed = AppointmentDAO.getAppointmentsChangedSince(new Timestamp(latest == null ? 0 : latest.getTime() - overlapMillis));
+            Set<Integer> counted = null;
+            synchronized (this) {
+                int added = 0;
+                for (Appointment a : changed) {
+                    if (!byAppointment.containsKey(a.getAppId())) {
+                        added++;
+                    }
+                    load(a.getAppId(), a.getAppType(), a.getAppStartMillis(), a.getAppContactId(), a.getAppUserId());
+                }
+                // A delete and an insert in the same check leave the count as it was, so the count alone is not enough
+                boolean explained = seen != null && now.getCount() - seen.getCount() == added;
+                if (!explained || byAppointment.size() != now.getCount()) {
+                    counted = new HashSet<>(byAppointment.keySet());
+                }
+            }
+            Set<Integer> ids = counted == null ? null : AppointmentDAO.getAppointmentIds();
+            synchronized (this) {
+                if (ids != null) {
+                    for (Integer id : counted) {
+                        if (!ids.contains(id) && !changedWhileLoading.contains(id)) {
+                            remove(id);
+                        }
+                    }
+                }
+                changedWhileLoading = null;
+                if (counted == null || ids != null) {
+                    version = now; // otherwise the deleted ones are looked for again next time
+                }
+            }
+        }
+    }
+
+
+    /**
+     * The change listener of the cube, registered with <i>AppointmentDAO</i>.
+     *
+     * @param appointmentId The ID of the appointment that changed
+     * @param appointment   The appointment as it is now, or null if it was deleted
+     */
+    private synchronized void appointmentChanged(int appointmentId, Appointment appointment) {
+        if (changedWhileLoading != null) {
+            changedWhileLoading.add(appointmentId);
+        }
+        if (appointment == null) {
+            remove(appointmentId);
+        } else {
+            put(appointmentId, appointment.getAppType(), appointment.getAppStartMillis(), appointment.getAppContactId(), appointment.getAppUserId());
+        }
+    }
+
+
+    private void put(int appointmentId, String type, long start, int contactId, int userId) {
+        remove(appointmentId);
+        ZonedDateTime at = Instant.ofEpochMilli(start).atZone(zone);
+        Counted c = new Counted(yearMonth(at.getYear(), at.getMonth()), type, typeCodes.encode(type), contactId, userId);
+        byAppointment.put(appointmentId, c);
+        add(c, 1);
+    }
+
+
+    private void remove(int appointmentId) {
+        Counted old = byAppointment.remove(appointmentId);
+        if (old != null) {
+            add(old, -1);
+        }
+    }
+
+
+    private void add(Counted c, int delta) {
+        add(byMonthAndType, key(c.yearMonth, c.typeCode), delta);
+        add(byMonthOfYearAndType, key(c.yearMonth % 12, c.typeCode), delta);
+        add(byContactAndMonth, key(c.contactId, c.yearMonth), delta);
+        add(byUserAndMonth, key(c.userId, c.yearMonth), delta);
+        if (c.type != null) {
+            add(byType, c.type, delta);
+        }
+    }
+
+
+    private static <K> void add(Map<K, int[]> counts, K key, int delta) {
+        int[] count = counts.computeIfAbsent(key, k -> new int[1]);
+        count[0] += delta;
+        if (count[0] == 0) {
+            counts.remove(key);
+        }
+    }
+
+
+    private static int get(Map<Long, int[]> counts, long key) {
+        int[] count = counts.get(key);
+        return count == null ? 0 : count[0];
+    }
+
+
+    private static int yearMonth(int year, Month month) {
+        return year * 12 + month.ordinal();
+    }
+
+
+    private static long key(int a, int b) {
+        return ((long) a << 32) | (b & 0xFFFFFFFFL);
+    }
+
+
+    /**
+     * What one appointment was counted under.
+     */
+    private static final class Counted {
+
+        private final int yearMonth;
+        private final String type;
+        private final int typeCode;
+        private final int contactId;
+        private final int userId;
+
+        private Counted(int yearMonth, String type, int typeCode, int contactId, int userId) {
+            this.yearMonth = yearMonth;
+            this.type = type;
+            this.typeCode = typeCode;
+            this.contactId = contactId;
+            this.userId = userId;
+        }
+    }
+}
@@ -4,13 +4,30 @@ import database.JDBC;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import model.Appointment;
+import model.AppointmentChangeInterface;
 
-
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
 
 /**
  * Class for accessing the SQL database for appointment information.
@@ -26,6 +43,48 @@ import java.time.LocalDateTime;
 
 public class AppointmentDAO {
 
+    private static final List<AppointmentChangeInterface> changeListeners = new CopyOnWriteArrayList<>();
+
+
+    /**
+     * Method that registers a listener to be told about every appointment inserted, modified or deleted through this
+     * class.
+     *
+     * <p>
+     * Listeners run on the thread that made the change, which is a background thread for the <i>Async</i> methods.
+     * </p>
+     *
+     * @param listener The listener to register
+     */
+    public static void addChangeListener(AppointmentChangeInterface listener) {
+        changeListeners.add(listener);
+    }
+
+
+    /**
+     * @param listener The listener to stop telling about appointment changes
+     */
+    public static void removeChangeListener(AppointmentChangeInterface listener) {
+        changeListeners.remove(listener);
+    }
+
+
+    /**
+     * Method that tells every registered listener about an appointment change.
+     *
+     * @param appointmentId The ID of the appointment that changed
+     * @param appointment   The appointment as it is now, or null if it was deleted
+     */
+    private static void fireChange(int appointmentId, Appointment appointment) {
+        for (AppointmentChangeInterface listener : changeListeners) {
+            try {
+                listener.appointmentChanged(appointmentId, appointment);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
 
     /**
      * Method for grabbing all the appointments.
@@ -41,30 +100,12 @@ public class AppointmentDAO {
 
         ObservableList<Appointment> appList = FXCollections.observableArrayList();
 
-        try {
-            String query = "SELECT * FROM appointments";
-            PreparedStatement ps = JDBC.getConnection().prepareStatement(query);
-            ResultSet results = ps.executeQuery();
+        String query = "SELECT * FROM appointments";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
 
-            while (results.next()) {
-                int appointmentId = results.getInt("Appointment_ID");
-                String appointmentTitle = results.getString("Title");
-                String appointmentDescription = results.getString("Description");
-                String appointmentLocation = results.getString("Location");
-                String appointmentType = results.getString("Type");
-                Timestamp appointmentStartDate = results.getTimestamp("Start");
-                Timestamp appointmentEndDate = results.getTimestamp("End");
-                Timestamp appointmentCreateDate = results.getTimestamp("Create_Date");
-                String appointmentCreatedBy = results.getString("Created_By");
-                Timestamp appointmentUpdatedDate = results.getTimestamp("Last_Update");
-                String appointmentUpdater = results.getString("Last_Updated_By");
-                int appointmentCustomerId = results.getInt("Customer_ID");
-                int appointmentUserId = results.getInt("User_ID");
-                int appointmentContactId = results.getInt("Contact_ID");
-
-                Appointment c = new Appointment(appointmentId, appointmentTitle, appointmentDescription, appointmentLocation, appointmentContactId, appointmentType, appointmentStartDate, appointmentEndDate, appointmentCreateDate, appointmentCreatedBy, appointmentUpdatedDate, appointmentUpdater, appointmentCustomerId, appointmentUserId);
-                appList.add(c);
-            }
+            RowMappers.readAll(results, RowMappers::appointments, appList);
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -87,31 +128,12 @@ public class AppointmentDAO {
 
         ObservableList<Appointment> appList = FXCollections.observableArrayList();
 
-        try {
-            String query = "SELECT appointments.*, contacts.Contact_Name FROM appointments JOIN contacts ON appointments.Contact_ID = contacts.Contact_ID;";
-            PreparedStatement ps = JDBC.getConnection().prepareStatement(query);
-            ResultSet results = ps.executeQuery();
+        String query = "SELECT appointments.*, contacts.Contact_Name FROM appointments JOIN contacts ON appointments.Contact_ID = contacts.Contact_ID;";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
 
-            while (results.next()) {
-                int appointmentId = results.getInt("Appointment_ID");
-                String appointmentTitle = results.getString("Title");
-                String appointmentDescription = results.getString("Description");
-                String appointmentLocation = results.getString("Location");
-                String appointmentType = results.getString("Type");
-                Timestamp appointmentStartDate = results.getTimestamp("Start");
-                Timestamp appointmentEndDate = results.getTimestamp("End");
-                Timestamp appointmentCreateDate = results.getTimestamp("Create_Date");
-                String appointmentCreatedBy = results.getString("Created_By");
-                Timestamp appointmentUpdatedDate = results.getTimestamp("Last_Update");
-                String appointmentUpdater = results.getString("Last_Updated_By");
-                int appointmentCustomerId = results.getInt("Customer_ID");
-                int appointmentUserId = results.getInt("User_ID");
-                int appointmentContactId = results.getInt("Contact_ID");
-                String appointmentContactName = results.getString("Contact_Name");
-
-                Appointment c = new Appointment(appointmentId, appointmentTitle, appointmentDescription, appointmentLocation, appointmentContactId, appointmentType, appointmentStartDate, appointmentEndDate, appointmentCreateDate, appointmentCreatedBy, appointmentUpdatedDate, appointmentUpdater, appointmentCustomerId, appointmentUserId, appointmentContactName);
-                appList.add(c);
-            }
+            RowMappers.readAll(results, RowMappers::appointments, appList);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -119,6 +141,89 @@ public class AppointmentDAO {
     }
 
 
+    /**
+     * Method for grabbing all the appointments, with only the columns a screen needs.
+     *
+     * <p>
+     * Instead of <i>SELECT *</i>, only the columns of the given fields are selected and read, the other fields of
+     * the appointment objects are left null (or 0). This cuts the bytes sent by mySQL and the objects built per row
+     * for screens that only show or check a few columns.
+     * </p>
+     *
+     * @param fields The fields the screen needs
+     * @return The list of appointments, with only the given fields set
+     * @throws IllegalArgumentException If no fields are given
+     * @see AppointmentField
+     */
+    public static ObservableList<Appointment> getAppointments(Set<AppointmentField> fields) {
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("No appointment fields asked for");
+        }
+        Set<AppointmentField> f = EnumSet.copyOf(fields);
+
+        ObservableList<Appointment> appList = FXCollections.observableArrayList();
+
+        String query = "SELECT " + f.stream().map(AppointmentField::column).collect(Collectors.joining(", ")) + " FROM appointments" +
+                (f.contains(AppointmentField.CONTACT_NAME) ? " JOIN contacts ON appointments.Contact_ID = contacts.Contact_ID" : "");
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
+
+            RowMappers.readAll(results, RowMappers::appointments, appList);
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return appList;
+    }
+
+
+    /**
+     * Method for grabbing one page of appointments, in start time order.
+     *
+     * <p>
+     * This method uses keyset pagination: instead of an OFFSET, each page seeks past the <i>(Start, Appointment_ID)</i>
+     * of the last row of the previous page. mySQL can jump straight to that spot in the <i>appointments(Start)</i>
+     * index, so every page costs the same no matter how deep into the table it is.
+     * </p>
+     *
+     * @param afterStart The start time of the last appointment of the previous page, null for the first page
+     * @param afterId    The ID of the last appointment of the previous page, ignored for the first page
+     * @param pageSize   The max number of appointments to grab
+     * @return The page of appointments, joined with their contact names
+     * @throws IllegalStateException If the query failed, so a failed page is not taken for the end of the table
+     * @see PagedAppointmentList
+     */
+    public static ObservableList<Appointment> getAppointmentPage(Timestamp afterStart, int afterId, int pageSize) {
+
+        ObservableList<Appointment> appList = FXCollections.observableArrayList();
+
+        String query = "SELECT appointments.*, contacts.Contact_Name FROM appointments JOIN contacts ON appointments.Contact_ID = contacts.Contact_ID " +
+                (afterStart == null ? "" : "WHERE appointments.Start > ? OR (appointments.Start = ? AND appointments.Appointment_ID > ?) ") +
+                "ORDER BY appointments.Start, appointments.Appointment_ID LIMIT ?";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            int i = 1;
+            if (afterStart != null) {
+                ps.setTimestamp(i++, afterStart);
+                ps.setTimestamp(i++, afterStart);
+                ps.setInt(i++, afterId);
+            }
+            ps.setInt(i, pageSize);
+
+            try (ResultSet results = ps.executeQuery()) {
+                RowMappers.readAll(results, RowMappers::appointments, appList);
+            }
+
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not grab the page of appointments after " + afterStart + " / " + afterId, e);
+        }
+
+        return appList;
+    }
+
+
     /**
      * Method for inserting an appointment.
      *
@@ -140,13 +245,11 @@ public class AppointmentDAO {
      * @see controller.AddAppointmentController
      */
     public static int insertAppointment(String appointmentTitle, String appointmentDescription, String appointmentLocation, String appointmentType, LocalDateTime appointmentStart, LocalDateTime appointmentEnd, String currentUser, int customerId, int userId, int contactId) {
-        try {
-            long currentTime = System.currentTimeMillis();
-            Timestamp time = new Timestamp(currentTime);
-
-            String query = "INSERT INTO appointments (Title, Description, Location, Type, Start, End, Create_Date, Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID) " +
-                    "VALUES( ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
-            PreparedStatement ps = JDBC.getConnection().prepareStatement(query);
+        // The audit times come from the clock of the database server, see getAppointmentsChangedSince
+        String query = "INSERT INTO appointments (Title, Description, Location, Type, Start, End, Create_Date, Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID) " +
+                "VALUES( ?, ?, ?, ?, ?, ?, NOW(), ?, NOW(), ?, ?, ?, ?)";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
 
             ps.setString(1, appointmentTitle);
             ps.setString(2, appointmentDescription);
@@ -154,16 +257,21 @@ public class AppointmentDAO {
             ps.setString(4, appointmentType);
             ps.setTimestamp(5, Timestamp.valueOf(appointmentStart));
             ps.setTimestamp(6, Timestamp.valueOf(appointmentEnd));
-            ps.setTimestamp(7, time);
+            ps.setString(7, currentUser);
             ps.setString(8, currentUser);
-            ps.setTimestamp(9, time);
-            ps.setString(10, currentUser);
-            ps.setInt(11, customerId);
-            ps.setInt(12, userId);
-            ps.setInt(13, contactId);
+            ps.setInt(9, customerId);
+            ps.setInt(10, userId);
+            ps.setInt(11, contactId);
 
 
             int rowsAffected = ps.executeUpdate();
+
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (keys.next()) {
+                    int appointmentId = keys.getInt(1);
+                    fireChange(appointmentId, new Appointment(appointmentId, appointmentTitle, appointmentDescription, appointmentLocation, contactId, appointmentType, Timestamp.valueOf(appointmentStart), Timestamp.valueOf(appointmentEnd), null, currentUser, null, currentUser, customerId, userId));
+                }
+            }
             return rowsAffected;
 
         } catch (SQLException e) {
@@ -173,6 +281,50 @@ public class AppointmentDAO {
         return 0;
     }
 
+    /**
+     * Method for inserting many appointments at once.
+     *
+     * <p>
+     * The appointments are sent to the database in JDBC batches of <i>batchSize</i>, each batch committed as one
+     * transaction, instead of one round trip and commit per appointment. The appointment IDs of the given objects are
+     * ignored, the database generates them. A failed batch is rolled back and retried one appointment at a time, so
+     * a bad row is reported in the result without stopping the rest of the load.
+     * </p>
+     *
+     * @param appointments The appointments to insert
+     * @param currentUser  The current user that is making the appointments
+     * @param batchSize    The number of appointments per batch and transaction
+     * @return The generated appointment ID of every appointment inserted and the error of every one that was not
+     * @see BatchResult
+     */
+    public static BatchResult insertAppointments(Collection<Appointment> appointments, String currentUser, int batchSize) {
+        String query = "INSERT INTO appointments (Title, Description, Location, Type, Start, End, Create_Date, Created_By, Last_Update, Last_Updated_By, Customer_ID, User_ID, Contact_ID) " +
+                "VALUES( ?, ?, ?, ?, ?, ?, NOW(), ?, NOW(), ?, ?, ?, ?)";
+        List<Appointment> rows = new ArrayList<>(appointments);
+        BatchResult result = BatchInsert.run(query, rows, batchSize, (ps, a) -> {
+            ps.setString(1, a.getAppTitle());
+            ps.setString(2, a.getAppDescription());
+            ps.setString(3, a.getAppLocation());
+            ps.setString(4, a.getAppType());
+            ps.setTimestamp(5, a.getAppStartDate());
+            ps.setTimestamp(6, a.getAppEndDate());
+            ps.setString(7, currentUser);
+            ps.setString(8, currentUser);
+            ps.setInt(9, a.getAppCustomerId());
+            ps.setInt(10, a.getAppUserId());
+            ps.setInt(11, a.getAppContactId());
+        });
+
+        for (int i = 0; i < rows.size(); i++) {
+            int appointmentId = result.getGeneratedKey(i);
+            if (appointmentId != 0) {
+                Appointment a = rows.get(i);
+                fireChange(appointmentId, new Appointment(appointmentId, a.getAppTitle(), a.getAppDescription(), a.getAppLocation(), a.getAppContactId(), a.getAppType(), a.getAppStartDate(), a.getAppEndDate(), null, currentUser, null, currentUser, a.getAppCustomerId(), a.getAppUserId()));
+            }
+        }
+        return result;
+    }
+
     /**
      * Method for deleting an appointment.
      *
@@ -185,12 +337,15 @@ public class AppointmentDAO {
      * @see controller.MainScreenController
      */
     public static int deleteAppointment(int appointmentId) {
-        try {
-            String query = "DELETE FROM appointments WHERE Appointment_ID = ?";
-            PreparedStatement ps = JDBC.getConnection().prepareStatement(query);
+        String query = "DELETE FROM appointments WHERE Appointment_ID = ?";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
             ps.setInt(1, appointmentId);
 
             int rowsAffected = ps.executeUpdate();
+            if (rowsAffected > 0) {
+                fireChange(appointmentId, null);
+            }
             return rowsAffected;
 
         } catch (SQLException e) {
@@ -221,13 +376,11 @@ public class AppointmentDAO {
      * @see controller.ModifyAppointmentController
      */
     public static int modifyAppointment(int appointmentId, String appointmentTitle, String appointmentDescription, String appointmentLocation, String appointmentType, LocalDateTime appointmentStart, LocalDateTime appointmentEnd, String currentUser, int customerId, int userId, int contactId) {
-        try {
-            long currentTime = System.currentTimeMillis();
-            Timestamp time = new Timestamp(currentTime);
-
-            String query = "UPDATE appointments SET Title = ?, Description = ?, Location = ?, Type = ?, Start = ?, End = ?, Last_Update = ?, Last_Updated_By = ?, Customer_ID = ?, User_ID = ?, Contact_ID = ? WHERE Appointment_ID = ?";
-            PreparedStatement ps = JDBC.getConnection().prepareStatement(query);
-            ps.setInt(12, appointmentId);
+        // The audit time comes from the clock of the database server, see getAppointmentsChangedSince
+        String query = "UPDATE appointments SET Title = ?, Description = ?, Location = ?, Type = ?, Start = ?, End = ?, Last_Update = NOW(), Last_Updated_By = ?, Customer_ID = ?, User_ID = ?, Contact_ID = ? WHERE Appointment_ID = ?";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setInt(11, appointmentId);
 
             ps.setString(1, appointmentTitle);
             ps.setString(2, appointmentDescription);
@@ -235,14 +388,16 @@ public class AppointmentDAO {
             ps.setString(4, appointmentType);
             ps.setTimestamp(5, Timestamp.valueOf(appointmentStart));
             ps.setTimestamp(6, Timestamp.valueOf(appointmentEnd));
-            ps.setTimestamp(7, time);
-            ps.setString(8, currentUser);
-            ps.setInt(9, customerId);
-            ps.setInt(10, userId);
-            ps.setInt(11, contactId);
+            ps.setString(7, currentUser);
+            ps.setInt(8, customerId);
+            ps.setInt(9, userId);
+            ps.setInt(10, contactId);
 
 
             int rowsAffected = ps.executeUpdate();
+            if (rowsAffected > 0) {
+                fireChange(appointmentId, new Appointment(appointmentId, appointmentTitle, appointmentDescription, appointmentLocation, contactId, appointmentType, Timestamp.valueOf(appointmentStart), Timestamp.valueOf(appointmentEnd), null, null, null, currentUser, customerId, userId));
+            }
             return rowsAffected;
 
         } catch (SQLException e) {
@@ -252,60 +407,618 @@ public class AppointmentDAO {
         return 0;
     }
 
+    /**
+     * Method for grabbing the appointments that start within a time range.
+     *
+     * <p>
+     * This method compares the bare <i>Start</i> column against the range bounds, so mySQL can answer it from the
+     * index on <i>appointments(Start)</i> instead of scanning the whole table. The appointments come back joined with
+     * their contact names and ordered by start time.
+     * </p>
+     *
+     * @param from The start of the range, inclusive
+     * @param to   The end of the range, exclusive
+     * @return The list of appointments starting within the range
+     */
+    public static ObservableList<Appointment> findAppointmentsBetween(Instant from, Instant to) {
+
+        ObservableList<Appointment> appList = FXCollections.observableArrayList();
+
+        String query = "SELECT appointments.*, contacts.Contact_Name FROM appointments JOIN contacts ON appointments.Contact_ID = contacts.Contact_ID " +
+                "WHERE appointments.Start >= ? AND appointments.Start < ? ORDER BY appointments.Start, appointments.Appointment_ID";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setTimestamp(1, Timestamp.from(from));
+            ps.setTimestamp(2, Timestamp.from(to));
+
+            try (ResultSet results = ps.executeQuery()) {
+                RowMappers.readAll(results, RowMappers::appointments, appList);
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return appList;
+    }
+
+
+    /**
+     * Method for grabbing the appointments of a customer that overlap a time slot.
+     *
+     * <p>
+     * The overlap check is done by mySQL, so only the overlapping rows are sent back instead of the whole appointment
+     * table. Two slots overlap when each one starts before the other one ends. The query is backed by the
+     * <i>appointments(Customer_ID, Start, End)</i> index: mySQL seeks to the customer, range-scans on <i>Start</i>
+     * and checks <i>End</i> from the index before reading any row.
+     * </p>
+     *
+     * @param customerId           The ID of the customer to check
+     * @param start                The start of the time slot
+     * @param end                  The end of the time slot
+     * @param excludeAppointmentId The ID of an appointment to leave out (the one being modified), or -1
+     * @return The overlapping appointments, sorted by start time
+     * @see AppointmentScheduleIndex
+     */
+    public static ObservableList<Appointment> findOverlapping(int customerId, LocalDateTime start, LocalDateTime end, int excludeAppointmentId) {
+
+        ObservableList<Appointment> appList = FXCollections.observableArrayList();
+
+        String query = "SELECT appointments.*, contacts.Contact_Name FROM appointments JOIN contacts ON appointments.Contact_ID = contacts.Contact_ID " +
+                "WHERE appointments.Customer_ID = ? AND appointments.Start < ? AND appointments.End > ? AND appointments.Appointment_ID <> ? ORDER BY appointments.Start";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setInt(1, customerId);
+            ps.setTimestamp(2, Timestamp.valueOf(end));
+            ps.setTimestamp(3, Timestamp.valueOf(start));
+            ps.setInt(4, excludeAppointmentId);
+
+            try (ResultSet results = ps.executeQuery()) {
+                RowMappers.readAll(results, RowMappers::appointments, appList);
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return appList;
+    }
+
+    /**
+     * Method for checking if a customer has any appointments.
+     *
+     * <p>
+     * mySQL stops at the first appointment it finds, seeking to the customer in the
+     * <i>appointments(Customer_ID, Start, End)</i> index, so nothing but one row of one column is sent back however
+     * many appointments there are.
+     * </p>
+     *
+     * @param customerId The ID of the customer
+     * @return true if the customer has at least one appointment
+     * @throws IllegalStateException If the query failed, so a failed check is not taken as "no appointments"
+     */
+    public static boolean hasAppointmentsForCustomer(int customerId) {
+        String query = "SELECT 1 FROM appointments WHERE Customer_ID = ? LIMIT 1";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setInt(1, customerId);
+
+            try (ResultSet results = ps.executeQuery()) {
+                return results.next();
+            }
+
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not check the appointments of customer " + customerId, e);
+        }
+    }
+
+    /**
+     * Method that works out the time range of a Main Screen filter.
+     *
+     * <p>
+     * Weeks start on Sunday like mySQL's <i>YEARWEEK</i> did. The month filter only matches the current month of the
+     * current year.
+     * </p>
+     *
+     * @param filterType The string that sets the range, "YW" for the current week or "MM" for the current month.
+     * @return The start (inclusive) and end (exclusive) of the range
+     */
+    public static Instant[] filterRange(String filterType) {
+        ZoneId zone = ZoneId.systemDefault();
+        LocalDate today = LocalDate.now(zone);
+        LocalDate from;
+        LocalDate to;
+
+        if (filterType.equals("YW")) {
+            from = today.with(TemporalAdjusters.previousOrSame(DayOfWeek.SUNDAY));
+            to = from.plusWeeks(1);
+        } else if (filterType.equals("MM")) {
+            from = today.withDayOfMonth(1);
+            to = from.plusMonths(1);
+        } else {
+            throw new IllegalArgumentException("Unknown filter type: " + filterType);
+        }
+
+        return new Instant[]{from.atStartOfDay(zone).toInstant(), to.atStartOfDay(zone).toInstant()};
+    }
+
     /**
      * Method that filters the appointments
      *
      * <p>
-     * This method uses SQL queries to filter the table view of the <i>Main Screen</i>. It uses a conditional to
-     * determined the query instead of two methods.
+     * This method filters the table view of the <i>Main Screen</i> to the current week or month. It works out the
+     * time range with <i>filterRange</i> and then grabs the appointments through <i>findAppointmentsBetween</i>.
      * </p>
      *
-     * @param filterType The string that sets the query entered into the database.
+     * @param filterType The string that sets the range, "YW" for the current week or "MM" for the current month.
      * @return The list of now filtered appointments
      */
     public static ObservableList<Appointment> filterAppointmentsByWeek(String filterType) {
+        Instant[] range = filterRange(filterType);
+        return findAppointmentsBetween(range[0], range[1]);
+    }
+
+
+    /**
+     * Method for grabbing the appointments changed since a point in time.
+     *
+     * <p>
+     * Every insert and update sets <i>Last_Update</i>, so this returns what was added or modified since the last
+     * time the caller looked, backed by the <i>appointments(Last_Update)</i> index. Rows updated exactly at
+     * <i>since</i> are returned again, the caller should treat them as repeats.
+     * </p>
+     * <p>
+     * <i>Last_Update</i> is set with <i>NOW()</i> by the database server and never from the clock of a client, so a
+     * client whose clock runs behind can not write a change below a watermark another client already moved past.
+     * <i>NOW()</i> is the time the statement started, so a slow statement can still commit after a quicker one with a
+     * later time; callers step their watermark back a few seconds (<i>sync.overlapMillis</i>) to cover that.
+     * </p>
+     *
+     * @param since The Last_Update watermark, inclusive
+     * @return The appointments changed since the watermark, joined with their contact names, oldest change first
+     * @see AppointmentSyncEngine
+     */
+    public static ObservableList<Appointment> getAppointmentsChangedSince(Timestamp since) {
 
         ObservableList<Appointment> appList = FXCollections.observableArrayList();
 
-        try {
-            PreparedStatement ps = null;
+        String query = "SELECT appointments.*, contacts.Contact_Name FROM appointments JOIN contacts ON appointments.Contact_ID = contacts.Contact_ID " +
+                "WHERE appointments.Last_Update >= ? ORDER BY appointments.Last_Update";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setTimestamp(1, since);
 
-            if (filterType.equals("YW")) {
-                String query = "SELECT * FROM appointments WHERE YEARWEEK(appointments.start) = YEARWEEK(NOW()) ORDER BY YEARWEEK(appointments.start) ASC;";
-                ps = JDBC.getConnection().prepareStatement(query);
-            } else if (filterType.equals("MM")) {
-                String query = "SELECT * FROM appointments WHERE MONTH(appointments.start) = MONTH(NOW()) ORDER BY MONTH(appointments.start) ASC;";
-                ps = JDBC.getConnection().prepareStatement(query);
+            try (ResultSet results = ps.executeQuery()) {
+                RowMappers.readAll(results, RowMappers::appointments, appList);
             }
 
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
 
-            ResultSet results = ps.executeQuery();
+        return appList;
+    }
+
+
+    /**
+     * Method for grabbing the latest <i>Last_Update</i> of the appointment table.
+     *
+     * @return The latest Last_Update, or null if the table is empty or the query failed
+     * @see AppointmentSyncEngine
+     */
+    public static Timestamp getLatestUpdate() {
+        String query = "SELECT MAX(Last_Update) FROM appointments";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
+
+            if (results.next()) {
+                return results.getTimestamp(1);
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+
+    /**
+     * Method for grabbing what the appointment table looks like from outside: its number of rows and its latest
+     * <i>Last_Update</i>.
+     *
+     * <p>
+     * An insert changes the count and the latest update, a modify changes the latest update and a delete changes the
+     * count, so a copy of the table loaded at one version is out of date once the version is different. Both values
+     * are read from indexes.
+     * </p>
+     *
+     * @return The version of the table, or null if the query failed
+     * @see AppointmentColumnStore
+     * @see AppointmentCountCube
+     */
+    static TableVersion getTableVersion() {
+        String query = "SELECT COUNT(*), MAX(Last_Update) FROM appointments";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
+
+            if (results.next()) {
+                return new TableVersion(results.getInt(1), results.getTimestamp(2));
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+
+    /**
+     * Method for grabbing the ID of every appointment.
+     *
+     * <p>
+     * The table has no record of deleted rows, so deletions made by other clients are found by comparing ID sets.
+     * </p>
+     *
+     * @return The set of appointment IDs, or null if the query failed
+     * @see AppointmentSyncEngine
+     */
+    public static Set<Integer> getAppointmentIds() {
+        Set<Integer> ids = new HashSet<>();
+
+        String query = "SELECT Appointment_ID FROM appointments";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
 
             while (results.next()) {
-                int appointmentId = results.getInt("Appointment_ID");
-                String appointmentTitle = results.getString("Title");
-                String appointmentDescription = results.getString("Description");
-                String appointmentLocation = results.getString("Location");
-                String appointmentType = results.getString("Type");
-                Timestamp appointmentStartDate = results.getTimestamp("Start");
-                Timestamp appointmentEndDate = results.getTimestamp("End");
-                Timestamp appointmentCreateDate = results.getTimestamp("Create_Date");
-                String appointmentCreatedBy = results.getString("Created_By");
-                Timestamp appointmentUpdatedDate = results.getTimestamp("Last_Update");
-                String appointmentUpdater = results.getString("Last_Updated_By");
-                int appointmentCustomerId = results.getInt("Customer_ID");
-                int appointmentUserId = results.getInt("User_ID");
-                int appointmentContactId = results.getInt("Contact_ID");
-
-                Appointment c = new Appointment(appointmentId, appointmentTitle, appointmentDescription, appointmentLocation, appointmentContactId, appointmentType, appointmentStartDate, appointmentEndDate, appointmentCreateDate, appointmentCreatedBy, appointmentUpdatedDate, appointmentUpdater, appointmentCustomerId, appointmentUserId);
-                appList.add(c);
+                ids.add(results.getInt(1));
             }
+            return ids;
 
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return null;
+    }
 
-        return appList;
+
+    /**
+     * Method for loading the time slot of every appointment into a schedule index.
+     *
+     * <p>
+     * Only the columns the index needs are grabbed, so this is much lighter than <i>getAllAppointments</i>.
+     * </p>
+     *
+     * @param index The schedule index to fill
+     * @return true if every appointment was loaded, false if the query failed
+     * @see AppointmentScheduleIndex
+     */
+    public static boolean loadScheduleIndex(AppointmentScheduleIndex index) {
+        String query = "SELECT Appointment_ID, Customer_ID, Start, End FROM appointments";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
+
+            while (results.next()) {
+                index.load(results.getInt("Appointment_ID"), results.getInt("Customer_ID"), results.getTimestamp("Start").getTime(), results.getTimestamp("End").getTime());
+            }
+            return true;
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+
+    /**
+     * Method for counting every appointment into a count cube.
+     *
+     * <p>
+     * Only the columns the cube counts by are grabbed.
+     * </p>
+     *
+     * @param cube The count cube to fill
+     * @return true if every appointment was counted, false if the query failed
+     * @see AppointmentCountCube
+     */
+    static boolean loadCountCube(AppointmentCountCube cube) {
+        String query = "SELECT Appointment_ID, Type, Start, Contact_ID, User_ID FROM appointments";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
+
+            while (results.next()) {
+                cube.load(results.getInt(1), results.getString(2), results.getTimestamp(3).getTime(), results.getInt(4), results.getInt(5));
+            }
+            return true;
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+
+    /**
+     * Method for loading every appointment into a column store for the reports.
+     *
+     * <p>
+     * Only the columns the store keeps are grabbed, in start time order.
+     * </p>
+     *
+     * @param store The store to fill
+     * @return true if every appointment was loaded, false if the query failed
+     * @see AppointmentColumnStore
+     */
+    static boolean loadColumnStore(AppointmentColumnStore store) {
+        String query = "SELECT Appointment_ID, Title, Description, Location, Type, Start, End, Customer_ID, User_ID, Contact_ID FROM appointments ORDER BY Start, Appointment_ID";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
+
+            while (results.next()) {
+                store.load(results.getInt(1), results.getString(2), results.getString(3), results.getString(4), results.getString(5),
+                        results.getTimestamp(6).getTime(), results.getTimestamp(7).getTime(), results.getInt(8), results.getInt(9), results.getInt(10));
+            }
+            return true;
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+
+    /**
+     * Asynchronous version of <i>getAllAppointments</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @return A future of the list of appointments
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<Appointment>> getAllAppointmentsAsync() {
+        return AsyncDAO.supply(() -> getAllAppointments());
+    }
+
+    /**
+     * Asynchronous version of <i>hasAppointmentsForCustomer</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param customerId The ID of the customer
+     * @return A future of true if the customer has at least one appointment, failed if the query failed
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<Boolean> hasAppointmentsForCustomerAsync(int customerId) {
+        return AsyncDAO.supply(() -> hasAppointmentsForCustomer(customerId));
+    }
+
+    /**
+     * Asynchronous version of <i>getAllAppointmentsModified</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @return A future of the list of appointments with their contact names
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<Appointment>> getAllAppointmentsModifiedAsync() {
+        return AsyncDAO.supply(() -> getAllAppointmentsModified());
+    }
+
+    /**
+     * Asynchronous version of <i>getAppointments</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param fields The fields the screen needs
+     * @return A future of the list of appointments, with only the given fields set
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<Appointment>> getAppointmentsAsync(Set<AppointmentField> fields) {
+        return AsyncDAO.supply(() -> getAppointments(fields));
+    }
+
+    /**
+     * Asynchronous version of <i>getAppointmentPage</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param afterStart The start time of the last appointment of the previous page, null for the first page
+     * @param afterId    The ID of the last appointment of the previous page, ignored for the first page
+     * @param pageSize   The max number of appointments to grab
+     * @return A future of the page of appointments, failed if the query failed
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<Appointment>> getAppointmentPageAsync(Timestamp afterStart, int afterId, int pageSize) {
+        return AsyncDAO.supply(() -> getAppointmentPage(afterStart, afterId, pageSize));
+    }
+
+    /**
+     * Asynchronous version of <i>insertAppointment</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param appointmentTitle       The name of the new appointment being inserted
+     * @param appointmentDescription The description of the new appointment being inserted
+     * @param appointmentLocation    The location of the new appointment being inserted
+     * @param appointmentType        The type of the new appointment being inserted
+     * @param appointmentStart       The new appointments start time
+     * @param appointmentEnd         The new appointments end time
+     * @param currentUser            The current user that is making the new appointment
+     * @param customerId             The ID of the customer attached to the new appointment
+     * @param userId                 The ID of the user attached to the new appointment
+     * @param contactId              The ID of the contact attached to the new appointment
+     * @return A future of the number of rows inserted
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<Integer> insertAppointmentAsync(String appointmentTitle, String appointmentDescription, String appointmentLocation, String appointmentType, LocalDateTime appointmentStart, LocalDateTime appointmentEnd, String currentUser, int customerId, int userId, int contactId) {
+        return AsyncDAO.supply(() -> insertAppointment(appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, appointmentStart, appointmentEnd, currentUser, customerId, userId, contactId));
+    }
+
+    /**
+     * Asynchronous version of <i>insertAppointments</i>.
+     *
+     * <p>
+     * Runs the inserts on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param appointments The appointments to insert
+     * @param currentUser  The current user that is making the appointments
+     * @param batchSize    The number of appointments per batch and transaction
+     * @return A future of the batch result
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<BatchResult> insertAppointmentsAsync(Collection<Appointment> appointments, String currentUser, int batchSize) {
+        return AsyncDAO.supply(() -> insertAppointments(appointments, currentUser, batchSize));
+    }
+
+    /**
+     * Asynchronous version of <i>deleteAppointment</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param appointmentId The ID of the appointment to be deleted in the database
+     * @return A future of the number of rows deleted
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<Integer> deleteAppointmentAsync(int appointmentId) {
+        return AsyncDAO.supply(() -> deleteAppointment(appointmentId));
+    }
+
+    /**
+     * Asynchronous version of <i>modifyAppointment</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param appointmentId          The ID of the appointment being modified
+     * @param appointmentTitle       The name of the appointment being modified
+     * @param appointmentDescription The description of the appointment being modified
+     * @param appointmentLocation    The location of the appointment being modified
+     * @param appointmentType        The type of the appointment being modified
+     * @param appointmentStart       The start time of the appointment being modified
+     * @param appointmentEnd         The end time of the appointment being modified
+     * @param currentUser            The current user modifying the appointment
+     * @param customerId             The ID of the customer attached to the modified appointment
+     * @param userId                 The ID of the user attached to the modified appointment
+     * @param contactId              The ID of the contact attached to the modified appointment
+     * @return A future of the number of rows modified
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<Integer> modifyAppointmentAsync(int appointmentId, String appointmentTitle, String appointmentDescription, String appointmentLocation, String appointmentType, LocalDateTime appointmentStart, LocalDateTime appointmentEnd, String currentUser, int customerId, int userId, int contactId) {
+        return AsyncDAO.supply(() -> modifyAppointment(appointmentId, appointmentTitle, appointmentDescription, appointmentLocation, appointmentType, appointmentStart, appointmentEnd, currentUser, customerId, userId, contactId));
     }
 
+    /**
+     * Asynchronous version of <i>findAppointmentsBetween</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param from The start of the range, inclusive
+     * @param to   The end of the range, exclusive
+     * @return A future of the list of appointments starting within the range
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<Appointment>> findAppointmentsBetweenAsync(Instant from, Instant to) {
+        return AsyncDAO.supply(() -> findAppointmentsBetween(from, to));
+    }
+
+    /**
+     * Asynchronous version of <i>findOverlapping</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param customerId           The ID of the customer to check
+     * @param start                The start of the time slot
+     * @param end                  The end of the time slot
+     * @param excludeAppointmentId The ID of an appointment to leave out (the one being modified), or -1
+     * @return A future of the overlapping appointments
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<Appointment>> findOverlappingAsync(int customerId, LocalDateTime start, LocalDateTime end, int excludeAppointmentId) {
+        return AsyncDAO.supply(() -> findOverlapping(customerId, start, end, excludeAppointmentId));
+    }
+
+    /**
+     * Asynchronous version of <i>filterAppointmentsByWeek</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param filterType The string that sets the query entered into the database.
+     * @return A future of the list of now filtered appointments
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<Appointment>> filterAppointmentsByWeekAsync(String filterType) {
+        return AsyncDAO.supply(() -> filterAppointmentsByWeek(filterType));
+    }
+
+
+    /**
+     * The number of rows and the latest <i>Last_Update</i> of the appointment table at one point in time.
+     *
+     * @see #getTableVersion()
+     */
+    static final class TableVersion {
+
+        private final int count;
+        private final Timestamp latestUpdate;
+
+        private TableVersion(int count, Timestamp latestUpdate) {
+            this.count = count;
+            this.latestUpdate = latestUpdate;
+        }
+
+        /**
+         * @return the number of appointments
+         */
+        int getCount() {
+            return count;
+        }
+
+        /**
+         * @return the latest Last_Update, or null if the table is empty
+         */
+        Timestamp getLatestUpdate() {
+            return latestUpdate;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof TableVersion)) {
+                return false;
+            }
+            TableVersion v = (TableVersion) o;
+            return count == v.count && Objects.equals(latestUpdate, v.latestUpdate);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * count + Objects.hashCode(latestUpdate);
+        }
+    }
 }
@@ -0,0 +1,44 @@
+package data_access;
+
+/**
+ * Enum for the appointment columns a screen can ask <i>AppointmentDAO.getAppointments</i> for.
+ *
+ * <p>
+ * Only the columns asked for are selected and set on the <i>Appointment</i> objects, the rest are left null (or 0).
+ * Asking for <i>CONTACT_NAME</i> joins the contacts table.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see AppointmentDAO#getAppointments(java.util.Set)
+ */
+public enum AppointmentField {
+    ID("appointments.Appointment_ID"),
+    TITLE("appointments.Title"),
+    DESCRIPTION("appointments.Description"),
+    LOCATION("appointments.Location"),
+    TYPE("appointments.Type"),
+    START("appointments.Start"),
+    END("appointments.End"),
+    CREATE_DATE("appointments.Create_Date"),
+    CREATED_BY("appointments.Created_By"),
+    LAST_UPDATE("appointments.Last_Update"),
+    LAST_UPDATED_BY("appointments.Last_Updated_By"),
+    CUSTOMER_ID("appointments.Customer_ID"),
+    USER_ID("appointments.User_ID"),
+    CONTACT_ID("appointments.Contact_ID"),
+    CONTACT_NAME("contacts.Contact_Name");
+
+    private final String column;
+
+    AppointmentField(String column) {
+        this.column = column;
+    }
+
+    /**
+     * @return the qualified column used in the SELECT list
+     */
+    String column() {
+        return column;
+    }
+}
@@ -0,0 +1,578 @@
+package data_access;
+
+import model.Appointment;
+import model.AppointmentChangeInterface;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Class for checking customer appointments for overlaps without going to the database.
+ *
+ * <p>
+ * The index keeps one interval tree per customer, holding the <i>[start, end)</i> time slot (in epoch milliseconds)
+ * of each of the customer's appointments. The trees are AVL trees sorted on the start time, where every node also
+ * remembers the latest end time in its subtree, so an overlap check only walks the branches that can overlap:
+ * <i>O(log n + k)</i> for <i>k</i> overlaps.
+ * </p>
+ * <p>
+ * The index is built once, the first time it is used, and from then on kept up to date through
+ * <i>AppointmentDAO.addChangeListener</i> as appointments are inserted, modified and deleted. Changes made by other
+ * clients are not seen that way, so before each save check the table version (see
+ * <i>AppointmentDAO.getTableVersion</i>) is compared with the one the index is up to date with, and if it changed the
+ * appointments changed since are put in the index again, like the <i>AppointmentCountCube</i> does for the reports.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see AppointmentDAO#loadScheduleIndex(AppointmentScheduleIndex)
+ * @see AppointmentDAO#findOverlapping(int, LocalDateTime, LocalDateTime, int)
+ */
+public final class AppointmentScheduleIndex {
+
+    private static final long overlapMillis = Long.getLong("sync.overlapMillis", 5_000L);
+
+    private static volatile AppointmentScheduleIndex instance;
+
+    private final Map<Integer, IntervalTree> byCustomer = new HashMap<>();
+    private final Map<Integer, Interval> byAppointment = new HashMap<>();
+    private Set<Integer> changedWhileLoading = new HashSet<>();
+    private final Object catchUpLock = new Object();
+    private AppointmentDAO.TableVersion version;
+
+
+    /**
+     * Package-private so the tests can build an index without the database, <i>load</i> adds to it right away.
+     */
+    AppointmentScheduleIndex() {
+    }
+
+
+    /**
+     * Method that hands out the schedule index, building it on first use.
+     *
+     * @return The schedule index
+     * @throws IllegalStateException If the appointments could not be loaded from the database
+     */
+    public static AppointmentScheduleIndex getInstance() {
+        AppointmentScheduleIndex index = instance;
+        if (index == null) {
+            synchronized (AppointmentScheduleIndex.class) {
+                index = instance;
+                if (index == null) {
+                    index = new AppointmentScheduleIndex();
+                    AppointmentChangeInterface listener = index::appointmentChanged;
+                    AppointmentDAO.addChangeListener(listener);
+                    // Read before the load, so a change made by another client while loading is caught up with
+                    index.version = AppointmentDAO.getTableVersion();
+                    if (!AppointmentDAO.loadScheduleIndex(index)) {
+                        AppointmentDAO.removeChangeListener(listener);
+                        throw new IllegalStateException("The appointment schedule index could not be loaded");
+                    }
+                    index.finishLoading();
+                    instance = index;
+                }
+            }
+        }
+        return index;
+    }
+
+
+    /**
+     * Method that builds the schedule index in the background, so the first save does not have to wait on it.
+     *
+     * @return A future of the built index
+     */
+    public static CompletableFuture<AppointmentScheduleIndex> preload() {
+        AppointmentScheduleIndex index = instance;
+        if (index != null) {
+            return CompletableFuture.completedFuture(index);
+        }
+        return AsyncDAO.supply(AppointmentScheduleIndex::getInstance);
+    }
+
+
+    /**
+     * @return true if the index has been built
+     */
+    public static boolean isLoaded() {
+        return instance != null;
+    }
+
+
+    /**
+     * Method that finds the appointments of a customer that overlap a time slot.
+     *
+     * <p>
+     * Two slots overlap when each one starts before the other one ends, so back to back appointments do not overlap.
+     * </p>
+     *
+     * @param customerId The ID of the customer to check
+     * @param start      The start of the time slot, in epoch milliseconds
+     * @param end        The end of the time slot, in epoch milliseconds
+     * @param excludeId  The ID of an appointment to leave out (the one being modified), or -1
+     * @return The overlapping appointments, sorted by start time
+     */
+    public synchronized List<Interval> findOverlapping(int customerId, long start, long end, int excludeId) {
+        List<Interval> overlaps = new ArrayList<>();
+        IntervalTree tree = byCustomer.get(customerId);
+        if (tree != null) {
+            tree.collectOverlapping(tree.root, start, end, excludeId, overlaps);
+        }
+        return overlaps;
+    }
+
+
+    /**
+     * Method that finds the appointments of a customer that overlap a time slot, before an appointment is saved.
+     *
+     * <p>
+     * The index is first caught up with the changes other clients made, then answers the check from the tree of the
+     * customer. A slot that is free in the index is free in the table at the version that was read, so most saves
+     * cost only the table version query. Overlaps found in the index are confirmed through
+     * <i>AppointmentDAO.findOverlapping</i> before a save is refused, and the index is corrected from the database
+     * rows where the two disagree. Until the index has been built, or when the table version cannot be read, the
+     * answer comes from the database alone.
+     * </p>
+     *
+     * @param customerId The ID of the customer to check
+     * @param start      The start of the time slot
+     * @param end        The end of the time slot
+     * @param excludeId  The ID of an appointment to leave out (the one being modified), or -1
+     * @return The overlapping appointments, sorted by start time
+     */
+    public static List<Interval> lookupOverlapping(int customerId, LocalDateTime start, LocalDateTime end, int excludeId) {
+        AppointmentScheduleIndex index = instance;
+        if (index == null) {
+            preload();
+            return fromDatabase(customerId, start, end, excludeId);
+        }
+        if (!index.catchUp()) {
+            return fromDatabase(customerId, start, end, excludeId);
+        }
+
+        long startMillis = Timestamp.valueOf(start).getTime();
+        long endMillis = Timestamp.valueOf(end).getTime();
+        List<Interval> overlaps = index.findOverlapping(customerId, startMillis, endMillis, excludeId);
+        if (overlaps.isEmpty()) {
+            return overlaps;
+        }
+        List<Interval> actual = fromDatabase(customerId, start, end, excludeId);
+        index.reconcile(customerId, startMillis, endMillis, excludeId, actual);
+        return actual;
+    }
+
+
+    private static List<Interval> fromDatabase(int customerId, LocalDateTime start, LocalDateTime end, int excludeId) {
+        List<Interval> overlaps = new ArrayList<>();
+        for (Appointment a : AppointmentDAO.findOverlapping(customerId, start, end, excludeId)) {
+            overlaps.add(new Interval(a.getAppId(), a.getAppCustomerId(), a.getAppStartMillis(), a.getAppEndMillis()));
+        }
+        return overlaps;
+    }
+
+
+    /**
+     * Method that puts the changes other clients made since the last table version into the index.
+     *
+     * <p>
+     * Deleted appointments leave no row behind. Unless the appointments new to the index account for the whole change
+     * in the row count of the table, and the index holds as many appointments as the table, the appointment IDs are
+     * compared to find the deleted ones. The queries run outside of the lock of the index, so the listener and the
+     * other checks are not held up meanwhile.
+     * </p>
+     *
+     * @return true if the index is up to date with the table version, false if a query failed
+     */
+    private boolean catchUp() {
+        synchronized (catchUpLock) {
+            AppointmentDAO.TableVersion seen;
+            synchronized (this) {
+                seen = version;
+            }
+            AppointmentDAO.TableVersion now = AppointmentDAO.getTableVersion();
+            if (now == null) {
+                return false;
+            }
+            if (now.equals(seen)) {
+                return true;
+            }
+
+            synchronized (this) {
+                changedWhileLoading = new HashSet<>();
+            }
+            Timestamp latest = seen == null ? null : seen.getLatestUpdate();
+            List<Appointment> changed = AppointmentDAO.getAppointmentsChangedSince(new Timestamp(latest == null ? 0 : latest.getTime() - overlapMillis));
+            Set<Integer> indexed = null;
+            synchronized (this) {
+                int added = 0;
+                for (Appointment a : changed) {
+                    if (!byAppointment.containsKey(a.getAppId())) {
+                        added++;
+                    }
+                    load(a.getAppId(), a.getAppCustomerId(), a.getAppStartMillis(), a.getAppEndMillis());
+                }
+                boolean explained = seen != null && now.getCount() - seen.getCount() == added;
+                if (!explained || byAppointment.size() != now.getCount()) {
+                    indexed = new HashSet<>(byAppointment.keySet());
+                }
+            }
+            Set<Integer> ids = indexed == null ? null : AppointmentDAO.getAppointmentIds();
+            synchronized (this) {
+                if (ids != null) {
+                    for (Integer id : indexed) {
+                        if (!ids.contains(id) && !changedWhileLoading.contains(id)) {
+                            remove(id);
+                        }
+                    }
+                }
+                changedWhileLoading = null;
+                if (indexed == null || ids != null) {
+                    version = now;
+                    return true;
+                }
+                return false; // the deleted ones are looked for again next time
+            }
+        }
+    }
+
+
+    /**
+     * Method that corrects the index for one time slot of a customer from what the database holds for it.
+     *
+     * <p>
+     * Intervals the index has in the slot that the database does not are dropped (deleted or moved away by another
+     * client), and intervals the database has that the index does not are added.
+     * </p>
+     *
+     * @param customerId The ID of the customer that was checked
+     * @param start      The start of the time slot, in epoch milliseconds
+     * @param end        The end of the time slot, in epoch milliseconds
+     * @param excludeId  The ID of the appointment that was left out, or -1
+     * @param actual     The overlapping appointments found in the database
+     * @return the number of intervals that had to be corrected
+     */
+    synchronized int reconcile(int customerId, long start, long end, int excludeId, List<Interval> actual) {
+        if (changedWhileLoading != null) {
+            return 0; // still loading, the load picks the rows up
+        }
+        int corrected = 0;
+        Map<Integer, Interval> inDatabase = new HashMap<>();
+        for (Interval interval : actual) {
+            inDatabase.put(interval.appointmentId, interval);
+        }
+
+        for (Interval cached : findOverlapping(customerId, start, end, excludeId)) {
+            Interval current = inDatabase.get(cached.appointmentId);
+            if (current == null || current.start != cached.start || current.end != cached.end) {
+                remove(cached.appointmentId);
+                corrected++;
+            }
+        }
+        for (Interval interval : actual) {
+            Interval cached = byAppointment.get(interval.appointmentId);
+            if (cached == null || cached.customerId != interval.customerId || cached.start != interval.start || cached.end != interval.end) {
+                put(interval);
+                corrected++;
+            }
+        }
+        return corrected;
+    }
+
+
+    /**
+     * Method that checks the tree of a customer: sorted, balanced, with the right heights and max ends.
+     *
+     * @param customerId The ID of the customer
+     * @return the height of the tree, 0 if the customer has no appointments
+     * @throws IllegalStateException If the tree is broken
+     */
+    synchronized int checkTree(int customerId) {
+        IntervalTree tree = byCustomer.get(customerId);
+        return tree == null ? 0 : IntervalTree.check(tree.root, null, null);
+    }
+
+
+    /**
+     * @return the number of appointments in the index
+     */
+    public synchronized int size() {
+        return byAppointment.size();
+    }
+
+
+    /**
+     * Method used by <i>AppointmentDAO.loadScheduleIndex</i> to add an appointment while the index is being built.
+     *
+     * <p>
+     * Appointments that were changed through the DAO after the load query started are skipped, the change listener
+     * already has the newer version of them. The same goes for the changes grabbed while catching up.
+     * </p>
+     *
+     * @param appointmentId The ID of the appointment
+     * @param customerId    The ID of the customer of the appointment
+     * @param start         The start of the appointment, in epoch milliseconds
+     * @param end           The end of the appointment, in epoch milliseconds
+     */
+    synchronized void load(int appointmentId, int customerId, long start, long end) {
+        if (changedWhileLoading == null || !changedWhileLoading.contains(appointmentId)) {
+            put(new Interval(appointmentId, customerId, start, end));
+        }
+    }
+
+
+    private synchronized void finishLoading() {
+        changedWhileLoading = null;
+    }
+
+
+    /**
+     * The change listener of the index, registered with <i>AppointmentDAO</i>.
+     *
+     * @param appointmentId The ID of the appointment that changed
+     * @param appointment   The appointment as it is now, or null if it was deleted
+     */
+    private synchronized void appointmentChanged(int appointmentId, Appointment appointment) {
+        if (changedWhileLoading != null) {
+            changedWhileLoading.add(appointmentId);
+        }
+        if (appointment == null) {
+            remove(appointmentId);
+        } else {
+            put(new Interval(appointmentId, appointment.getAppCustomerId(), appointment.getAppStartMillis(), appointment.getAppEndMillis()));
+        }
+    }
+
+
+    private void put(Interval interval) {
+        remove(interval.appointmentId);
+        byAppointment.put(interval.appointmentId, interval);
+        IntervalTree tree = byCustomer.computeIfAbsent(interval.customerId, id -> new IntervalTree());
+        tree.root = tree.insert(tree.root, interval);
+    }
+
+
+    /**
+     * @param appointmentId The ID of the appointment to take out of the index, if it is in it
+     */
+    synchronized void remove(int appointmentId) {
+        Interval old = byAppointment.remove(appointmentId);
+        if (old != null) {
+            IntervalTree tree = byCustomer.get(old.customerId);
+            tree.root = tree.delete(tree.root, old);
+            if (tree.root == null) {
+                byCustomer.remove(old.customerId);
+            }
+        }
+    }
+
+
+    /**
+     * The time slot of one appointment.
+     */
+    public static final class Interval {
+
+        private final int appointmentId;
+        private final int customerId;
+        private final long start;
+        private final long end;
+
+        private Interval(int appointmentId, int customerId, long start, long end) {
+            this.appointmentId = appointmentId;
+            this.customerId = customerId;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * @return the appointment ID
+         */
+        public int getAppointmentId() {
+            return appointmentId;
+        }
+
+        /**
+         * @return the customer ID
+         */
+        public int getCustomerId() {
+            return customerId;
+        }
+
+        /**
+         * @return the start of the appointment, in epoch milliseconds
+         */
+        public long getStart() {
+            return start;
+        }
+
+        /**
+         * @return the end of the appointment, in epoch milliseconds
+         */
+        public long getEnd() {
+            return end;
+        }
+
+        private int compareTo(Interval other) {
+            int c = Long.compare(start, other.start);
+            return c != 0 ? c : Integer.compare(appointmentId, other.appointmentId);
+        }
+    }
+
+
+    /**
+     * An AVL tree of intervals sorted by (start, appointment ID), augmented with the max end of each subtree.
+     */
+    private static final class IntervalTree {
+
+        private Node root;
+
+        private static final class Node {
+            private final Interval interval;
+            private Node left;
+            private Node right;
+            private int height = 1;
+            private long maxEnd;
+
+            private Node(Interval interval) {
+                this.interval = interval;
+                this.maxEnd = interval.end;
+            }
+        }
+
+        private void collectOverlapping(Node node, long start, long end, int excludeId, List<Interval> overlaps) {
+            if (node == null || node.maxEnd <= start) {
+                return;
+            }
+            collectOverlapping(node.left, start, end, excludeId, overlaps);
+            if (node.interval.start >= end) {
+                return;
+            }
+            if (node.interval.end > start && node.interval.appointmentId != excludeId) {
+                overlaps.add(node.interval);
+            }
+            collectOverlapping(node.right, start, end, excludeId, overlaps);
+        }
+
+        private Node insert(Node node, Interval interval) {
+            if (node == null) {
+                return new Node(interval);
+            }
+            if (interval.compareTo(node.interval) < 0) {
+                node.left = insert(node.left, interval);
+            } else {
+                node.right = insert(node.right, interval);
+            }
+            return balance(node);
+        }
+
+        private Node delete(Node node, Interval interval) {
+            if (node == null) {
+                return null;
+            }
+            int c = interval.compareTo(node.interval);
+            if (c < 0) {
+                node.left = delete(node.left, interval);
+            } else if (c > 0) {
+                node.right = delete(node.right, interval);
+            } else {
+                if (node.left == null) {
+                    return node.right;
+                }
+                if (node.right == null) {
+                    return node.left;
+                }
+                Node successor = node.right;
+                while (successor.left != null) {
+                    successor = successor.left;
+                }
+                Node replacement = new Node(successor.interval);
+                replacement.right = delete(node.right, successor.interval);
+                replacement.left = node.left;
+                return balance(replacement);
+            }
+            return balance(node);
+        }
+
+        /**
+         * @return the height of the subtree, after checking it holds only intervals between low and high
+         */
+        private static int check(Node node, Interval low, Interval high) {
+            if (node == null) {
+                return 0;
+            }
+            if ((low != null && node.interval.compareTo(low) <= 0) || (high != null && node.interval.compareTo(high) >= 0)) {
+                throw new IllegalStateException("Interval out of order: " + node.interval.appointmentId);
+            }
+            int left = check(node.left, low, node.interval);
+            int right = check(node.right, node.interval, high);
+            if (Math.abs(left - right) > 1 || node.height != 1 + Math.max(left, right)) {
+                throw new IllegalStateException("Unbalanced at " + node.interval.appointmentId);
+            }
+            long maxEnd = Math.max(node.interval.end, Math.max(node.left == null ? Long.MIN_VALUE : node.left.maxEnd,
+                    node.right == null ? Long.MIN_VALUE : node.right.maxEnd));
+            if (node.maxEnd != maxEnd) {
+                throw new IllegalStateException("Wrong max end at " + node.interval.appointmentId);
+            }
+            return node.height;
+        }
+
+        private static int height(Node node) {
+            return node == null ? 0 : node.height;
+        }
+
+        private static void update(Node node) {
+            node.height = 1 + Math.max(height(node.left), height(node.right));
+            long maxEnd = node.interval.end;
+            if (node.left != null) {
+                maxEnd = Math.max(maxEnd, node.left.maxEnd);
+            }
+            if (node.right != null) {
+                maxEnd = Math.max(maxEnd, node.right.maxEnd);
+            }
+            node.maxEnd = maxEnd;
+        }
+
+        private static Node rotateRight(Node node) {
+            Node left = node.left;
+            node.left = left.right;
+            left.right = node;
+            update(node);
+            update(left);
+            return left;
+        }
+
+        private static Node rotateLeft(Node node) {
+            Node right = node.right;
+            node.right = right.left;
+            right.left = node;
+            update(node);
+            update(right);
+            return right;
+        }
+
+        private static Node balance(Node node) {
+            update(node);
+            int skew = height(node.left) - height(node.right);
+            if (skew > 1) {
+                if (height(node.left.left) < height(node.left.right)) {
+                    node.left = rotateLeft(node.left);
+                }
+                return rotateRight(node);
+            }
+            if (skew < -1) {
+                if (height(node.right.right) < height(node.right.left)) {
+                    node.right = rotateRight(node.right);
+                }
+                return rotateLeft(node);
+            }
+            return node;
+        }
+    }
+}
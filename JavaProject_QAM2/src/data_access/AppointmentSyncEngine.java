@@ -0,0 +1,281 @@
+package data_access;
+
+import javafx.application.Platform;
+import javafx.collections.ListChangeListener;
+import javafx.collections.ObservableList;
+import model.Appointment;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+/**
+ * Class for keeping a list of appointments in step with the database without reloading it.
+ *
+ * <p>
+ * The engine is attached to the list a table view shows. On every <i>refresh()</i> it grabs only the appointments
+ * whose <i>Last_Update</i> is at or after the highest one it has seen (the watermark) and patches them into the list
+ * in place, so the cost of a refresh follows the number of changes and not the size of the table. The watermark only
+ * compares times written by the database server, and each refresh reaches <i>sync.overlapMillis</i> (5 seconds by
+ * default) behind it, for changes that were committed after a change with a later <i>Last_Update</i>.
+ * </p>
+ * <p>
+ * The appointment table keeps no record of deleted rows, so deletions are found in two ways:
+ *     <ul>
+ *         <li>Deletions made through <i>AppointmentDAO</i> in this application are applied right away through its
+ *         change listener.</li>
+ *         <li>Deletions made by other clients are found by comparing the IDs in the list with the IDs in the table.
+ *         Only the ID column is read and only every <i>sync.deleteCheckEvery</i> refreshes (10 by default).</li>
+ *     </ul>
+ * </p>
+ * <p>
+ * The list is expected to be sorted by start time, then appointment ID, like every appointment query the Main Screen
+ * uses. The engine should only be used on the JavaFX Application Thread.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see AppointmentDAO#getAppointmentsChangedSince(Timestamp)
+ */
+public final class AppointmentSyncEngine {
+
+    private static final Comparator<Appointment> order = Comparator.comparingLong(Appointment::getAppStartMillis).thenComparingInt(Appointment::getAppId);
+
+    private final long overlapMillis = Long.getLong("sync.overlapMillis", 5_000L);
+    private final int deleteCheckEvery = Math.max(1, Integer.getInteger("sync.deleteCheckEvery", 10));
+
+    private final Map<Integer, Appointment> byId = new HashMap<>();
+    private final ListChangeListener<Appointment> tracker = this::track;
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+
+    private ObservableList<Appointment> target;
+    private Predicate<Appointment> inScope = a -> true;
+    private Timestamp watermark;
+    private long generation;
+    private int refreshCount;
+    private CompletableFuture<Void> pending;
+    private boolean refreshAgain;
+
+
+    /**
+     * Base constructor for the AppointmentSyncEngine class.
+     *
+     * <p>
+     * The engine registers itself as an <i>AppointmentDAO</i> change listener for its whole lifetime, so it should be
+     * created once and re-attached to new lists.
+     * </p>
+     */
+    public AppointmentSyncEngine() {
+        AppointmentDAO.addChangeListener((appointmentId, appointment) -> {
+            if (appointment == null) {
+                Platform.runLater(() -> remove(appointmentId));
+            } else if (refreshQueued.compareAndSet(false, true)) {
+                // A batch insert fires once per row, one refresh picks all of them up
+                Platform.runLater(() -> {
+                    refreshQueued.set(false);
+                    refresh();
+                });
+            }
+        });
+    }
+
+
+    /**
+     * Method that attaches the engine to a list, replacing the list it was attached to before.
+     *
+     * <p>
+     * The watermark is reset to the latest <i>Last_Update</i> of the table, since the new list was just loaded.
+     * </p>
+     *
+     * @param list    The list to keep in step, sorted by start time then appointment ID
+     * @param inScope Which appointments belong in the list (for example the ones in the filtered week)
+     */
+    public void attach(ObservableList<Appointment> list, Predicate<Appointment> inScope) {
+        if (target != null) {
+            target.removeListener(tracker);
+        }
+        target = list;
+        this.inScope = inScope;
+        generation++;
+        watermark = null;
+        refreshAgain = false;
+
+        byId.clear();
+        for (Appointment a : rows()) {
+            byId.put(a.getAppId(), a);
+        }
+        list.addListener(tracker);
+
+        long attachedGeneration = generation;
+        AsyncDAO.onFxThread(AsyncDAO.supply(AppointmentDAO::getLatestUpdate), latest -> {
+            if (attachedGeneration == generation && watermark == null) {
+                watermark = latest != null ? latest : new Timestamp(0);
+            }
+        });
+    }
+
+
+    /**
+     * Method that grabs the appointments changed since the last refresh and patches them into the list.
+     *
+     * <p>
+     * If a refresh is already running, another one is run right after it and the future of the running one is
+     * returned.
+     * </p>
+     *
+     * @return A future that completes on the JavaFX Application Thread after the list is patched
+     */
+    public CompletableFuture<Void> refresh() {
+        if (target == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (pending != null) {
+            refreshAgain = true;
+            return pending;
+        }
+
+        long refreshGeneration = generation;
+        Timestamp since = watermark;
+        boolean checkDeletes = ++refreshCount % deleteCheckEvery == 0;
+
+        CompletableFuture<Delta> delta = AsyncDAO.supply(() -> {
+            Delta d = new Delta();
+            if (since == null) {
+                d.latest = AppointmentDAO.getLatestUpdate();
+            } else {
+                d.changed = AppointmentDAO.getAppointmentsChangedSince(new Timestamp(since.getTime() - overlapMillis));
+            }
+            if (checkDeletes) {
+                d.ids = AppointmentDAO.getAppointmentIds();
+            }
+            return d;
+        });
+
+        pending = AsyncDAO.onFxThread(delta, d -> {
+            if (refreshGeneration == generation) {
+                apply(d);
+            }
+        });
+        pending.whenComplete((v, error) -> {
+            pending = null;
+            if (refreshAgain) {
+                refreshAgain = false;
+                refresh();
+            }
+        });
+        return pending;
+    }
+
+
+    /**
+     * @return the highest Last_Update seen so far, or null if it is not known yet
+     */
+    public Timestamp getWatermark() {
+        return watermark;
+    }
+
+
+    private void apply(Delta d) {
+        if (d.latest != null && watermark == null) {
+            watermark = d.latest;
+        }
+        for (Appointment a : d.changed) {
+            if (watermark == null || a.getAppUpdatedMillis() > watermark.getTime()) {
+                watermark = a.getAppUpdatedDate();
+            }
+            patch(a);
+        }
+        if (d.ids != null) {
+            for (Integer id : new ArrayList<>(byId.keySet())) {
+                if (!d.ids.contains(id)) {
+                    remove(id);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Method that puts the current version of an appointment in the list, in its sorted spot.
+     *
+     * <p>
+     * Rows re-read because of the watermark overlap are replaced by themselves, so repeats are harmless.
+     * </p>
+     *
+     * @param appointment The appointment as it is now in the database
+     */
+    private void patch(Appointment appointment) {
+        remove(appointment.getAppId());
+        if (inScope.test(appointment)) {
+            int i = Collections.binarySearch(rows(), appointment, order);
+            target.add(i < 0 ? -i - 1 : i, appointment);
+        }
+    }
+
+
+    /**
+     * @param appointmentId The ID of the appointment to take out of the list, if it is in it
+     */
+    private void remove(int appointmentId) {
+        Appointment old = byId.get(appointmentId);
+        if (old == null || target == null) {
+            return;
+        }
+        List<Appointment> rows = rows();
+        int i = Collections.binarySearch(rows, old, order);
+        if (i < 0 || rows.get(i) != old) {
+            // The user sorted the table by another column
+            i = rows.indexOf(old);
+        }
+        if (i >= 0) {
+            target.remove(i);
+        } else {
+            byId.remove(appointmentId);
+        }
+    }
+
+
+    /**
+     * @return the rows of the list, read without making a paged list grab its next page
+     */
+    private List<Appointment> rows() {
+        return target instanceof PagedAppointmentList ? ((PagedAppointmentList) target).loadedRows() : target;
+    }
+
+
+    /**
+     * Keeps the ID map in step with the list, including pages appended to it later.
+     */
+    private void track(ListChangeListener.Change<? extends Appointment> c) {
+        List<Appointment> rows = rows();
+        while (c.next()) {
+            for (Appointment a : c.getRemoved()) {
+                byId.remove(a.getAppId(), a);
+            }
+            if (c.wasAdded()) {
+                for (int i = c.getFrom(); i < c.getTo(); i++) {
+                    Appointment a = rows.get(i);
+                    byId.put(a.getAppId(), a);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * What one refresh grabbed from the database.
+     */
+    private static final class Delta {
+        private List<Appointment> changed = Collections.emptyList();
+        private Timestamp latest;
+        private Set<Integer> ids;
+    }
+}
@@ -0,0 +1,99 @@
+package data_access;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Class for running the DAO queries off of the JavaFX Application Thread.
+ *
+ * <p>
+ * Every DAO has <i>Async</i> variants of its methods that hand their query to this class and return a
+ * <i>CompletableFuture</i> right away. The controllers use <i>onFxThread</i> to get the result delivered back to the
+ * JavaFX Application Thread through <i>Platform.runLater</i>, so the UI never freezes while a query is running.
+ * </p>
+ * <p>
+ * The queries run on virtual threads when the JDK has them (JDK 21+), otherwise on a small pool of daemon threads
+ * sized to the connection pool, since a query can not run without a connection anyway.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+public final class AsyncDAO {
+
+    private static final ExecutorService executor = createExecutor();
+
+    private AsyncDAO() {
+    }
+
+
+    /**
+     * Method that creates the executor the queries run on.
+     *
+     * @return A virtual thread per task executor if the JDK supports it, otherwise a fixed daemon thread pool
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newFixedThreadPool(Integer.getInteger("db.pool.maxSize", 10), r -> {
+                Thread t = new Thread(r, "dao-worker-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+
+    /**
+     * Method that runs a DAO call in the background.
+     *
+     * @param task The DAO call to run
+     * @param <T>  The type of the result
+     * @return A future completed with the result of the call, or exceptionally if the call threw
+     */
+    public static <T> CompletableFuture<T> supply(Callable<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+
+    /**
+     * Method that delivers the result of a background DAO call back to the JavaFX Application Thread.
+     *
+     * <p>
+     * If the call failed, the error is printed the same way the DAO classes print their SQL errors and the
+     * consumer is not run.
+     * </p>
+     *
+     * @param future   The future of the background call
+     * @param onResult What to do with the result on the JavaFX Application Thread
+     * @param <T>      The type of the result
+     * @return A future that completes after the consumer has run
+     */
+    public static <T> CompletableFuture<Void> onFxThread(CompletableFuture<T> future, Consumer<T> onResult) {
+        return future.handleAsync((result, error) -> {
+            if (error != null) {
+                error.printStackTrace();
+            } else {
+                onResult.accept(result);
+            }
+            return null;
+        }, Platform::runLater);
+    }
+}
@@ -0,0 +1,123 @@
+package data_access;
+
+import database.JDBC;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Class for running the batch inserts of the DAO classes.
+ *
+ * <p>
+ * The rows are sent in chunks of <i>batchSize</i>, each chunk as one JDBC batch inside its own transaction. If a chunk
+ * fails it is rolled back and its rows are retried one at a time, so one bad row only costs its own insert and is
+ * recorded in the <i>BatchResult</i> instead of aborting the whole load. A row fails the same way whether the database
+ * refuses it or its binder throws, for example on a null field.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see BatchResult
+ */
+final class BatchInsert {
+
+    private BatchInsert() {
+    }
+
+
+    /**
+     * Functional interface for setting the parameters of one row on the insert statement.
+     *
+     * @param <T> The type of the rows
+     */
+    @FunctionalInterface
+    interface RowBinder<T> {
+        void bind(PreparedStatement ps, T row) throws SQLException;
+    }
+
+
+    /**
+     * Method that inserts every row of a collection.
+     *
+     * @param query     The INSERT statement
+     * @param rows      The rows to insert
+     * @param batchSize The number of rows sent per batch and committed per transaction
+     * @param binder    Sets the parameters of one row
+     * @param <T>       The type of the rows
+     * @return The generated key of every row inserted and the error of every row that was not
+     */
+    static <T> BatchResult run(String query, Collection<T> rows, int batchSize, RowBinder<T> binder) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+        }
+        List<T> list = new ArrayList<>(rows);
+        BatchResult result = new BatchResult(list.size());
+
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)) {
+            conn.setAutoCommit(false);
+
+            for (int from = 0; from < list.size(); from += batchSize) {
+                int to = Math.min(from + batchSize, list.size());
+                try {
+                    for (int i = from; i < to; i++) {
+                        binder.bind(ps, list.get(i));
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                    int i = from;
+                    try (ResultSet keys = ps.getGeneratedKeys()) {
+                        while (keys.next() && i < to) {
+                            result.inserted(i++, keys.getInt(1));
+                        }
+                    }
+                    conn.commit();
+                } catch (SQLException | RuntimeException e) {
+                    conn.rollback();
+                    ps.clearBatch();
+                    ps.clearParameters();
+                    insertOneByOne(conn, ps, list, from, to, binder, result);
+                }
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+            for (int i = 0; i < list.size(); i++) {
+                if (result.getGeneratedKey(i) == 0 && !result.getFailures().containsKey(i)) {
+                    result.failed(i, e);
+                }
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Method that retries the rows of a failed chunk one at a time, each in its own transaction.
+     */
+    private static <T> void insertOneByOne(Connection conn, PreparedStatement ps, List<T> list, int from, int to, RowBinder<T> binder, BatchResult result) throws SQLException {
+        for (int i = from; i < to; i++) {
+            try {
+                binder.bind(ps, list.get(i));
+                ps.executeUpdate();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    if (keys.next()) {
+                        result.inserted(i, keys.getInt(1));
+                    }
+                }
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                ps.clearParameters();
+                result.failed(i, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package data_access;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Class for the outcome of a batch insert.
+ *
+ * <p>
+ * A batch insert does not stop at the first bad row. Every row either gets the key the database generated for it, or
+ * an entry in the failures with the error that row ran into. Rows are referred to by their position in the collection
+ * that was handed to the insert.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see AppointmentDAO#insertAppointments(java.util.Collection, String, int)
+ * @see CustomerDAO#insertCustomers(java.util.Collection, String, int)
+ */
+public final class BatchResult {
+
+    private final int[] generatedKeys;
+    private final Map<Integer, Exception> failures = new TreeMap<>();
+
+
+    /**
+     * Base constructor for the BatchResult class.
+     *
+     * @param rowCount The number of rows handed to the insert
+     */
+    BatchResult(int rowCount) {
+        this.generatedKeys = new int[rowCount];
+    }
+
+
+    void inserted(int row, int key) {
+        generatedKeys[row] = key;
+    }
+
+    void failed(int row, Exception error) {
+        generatedKeys[row] = 0;
+        failures.put(row, error);
+    }
+
+
+    /**
+     * @param row The position of the row in the collection handed to the insert
+     * @return the generated key of the row, or 0 if the row was not inserted
+     */
+    public int getGeneratedKey(int row) {
+        return generatedKeys[row];
+    }
+
+    /**
+     * @return the generated keys, in the order of the collection handed to the insert, 0 for rows that failed
+     */
+    public int[] getGeneratedKeys() {
+        return generatedKeys.clone();
+    }
+
+    /**
+     * @return the rows that could not be inserted and why, by their position in the collection handed to the insert.
+     * The error is an <i>SQLException</i> from the database, or a <i>RuntimeException</i> if the row could not even
+     * be bound to the statement (for example a required field that is null).
+     */
+    public Map<Integer, Exception> getFailures() {
+        return Collections.unmodifiableMap(failures);
+    }
+
+    /**
+     * @return the number of rows inserted
+     */
+    public int getInsertedCount() {
+        return generatedKeys.length - failures.size();
+    }
+
+    /**
+     * @return the number of rows that could not be inserted
+     */
+    public int getFailedCount() {
+        return failures.size();
+    }
+
+    @Override
+    public String toString() {
+        return getInsertedCount() + " inserted, " + getFailedCount() + " failed";
+    }
+}
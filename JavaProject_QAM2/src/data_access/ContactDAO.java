@@ -5,9 +5,11 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import model.Contact;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Class for accessing the SQL database for Contact information.
@@ -36,20 +38,12 @@ public class ContactDAO {
 
         //  Code that goes to the database:
 
-        try {
-            String query = "SELECT * from contacts";
-            PreparedStatement ps = JDBC.getConnection().prepareStatement(query);
-            ResultSet results = ps.executeQuery();
+        String query = "SELECT * from contacts";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
 
-            while (results.next()) {
-                int contactId = results.getInt("Contact_ID");
-                String contactName = results.getString("Contact_Name");
-                String contactEmail = results.getString("Email");
-
-
-                Contact c = new Contact(contactId, contactName, contactEmail);
-                contactList.add(c);
-            }
+            RowMappers.readAll(results, RowMappers::contacts, contactList);
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -59,4 +53,18 @@ public class ContactDAO {
         return contactList;
     }
 
+
+    /**
+     * Asynchronous version of <i>getAllContacts</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @return A future of the list of contacts
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<Contact>> getAllContactsAsync() {
+        return AsyncDAO.supply(() -> getAllContacts());
+    }
 }
@@ -7,6 +7,10 @@ import model.Country;
 import model.FirstLevelDivision;
 
 import java.sql.*;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 /**
  * Class for accessing the SQL database for Country AND First Level Division information.
@@ -35,22 +39,48 @@ public class CountryDAO {
     public static ObservableList<Country> getAllCountries() {
         ObservableList<Country> countryList = FXCollections.observableArrayList();
 
-        try {
-            String query = "SELECT * from countries";
-            PreparedStatement ps = JDBC.getConnection().prepareStatement(query);
-            ResultSet results = ps.executeQuery();
+        String query = "SELECT * from countries";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
 
-            while (results.next()) {
-                int countryId = results.getInt("Country_ID");
-                String countryName = results.getString("Country");
-                Timestamp countryCreateDate = results.getTimestamp("Create_Date");
-                String countryCreator = results.getString("Created_By");
-                Timestamp countryUpdatedDate = results.getTimestamp("Last_Update");
-                String countryUpdater = results.getString("Last_Updated_By");
+            RowMappers.readAll(results, RowMappers::countries, countryList);
 
-                Country c = new Country(countryId, countryName, countryCreateDate, countryCreator, countryUpdatedDate, countryUpdater);
-                countryList.add(c);
-            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+
+        return countryList;
+    }
+
+    /**
+     * Method for grabbing all the countries, with only the columns a screen needs.
+     *
+     * <p>
+     * Instead of <i>SELECT *</i>, only the columns of the given fields are selected and read, the other fields of
+     * the country objects are left null (or 0).
+     * </p>
+     *
+     * @param fields The fields the screen needs
+     * @return The list of countries, with only the given fields set
+     * @throws IllegalArgumentException If no fields are given
+     * @see CountryField
+     */
+    public static ObservableList<Country> getCountries(Set<CountryField> fields) {
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("No country fields asked for");
+        }
+        Set<CountryField> f = EnumSet.copyOf(fields);
+
+        ObservableList<Country> countryList = FXCollections.observableArrayList();
+
+        String query = "SELECT " + f.stream().map(CountryField::column).collect(Collectors.joining(", ")) + " FROM countries";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
+
+            RowMappers.readAll(results, RowMappers::countries, countryList);
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -74,23 +104,12 @@ public class CountryDAO {
         ObservableList<FirstLevelDivision> division = FXCollections.observableArrayList();
 
 
-        try {
-            String query = "SELECT * FROM first_level_divisions;";      /*Sets what you would like the SQL query to entail */
-            PreparedStatement ps = JDBC.getConnection().prepareStatement(query);    /* Puts the query into a prepared statement */
-            ResultSet results = ps.executeQuery();
-
-            while (results.next()) {
-                int divId = results.getInt("Division_ID");
-                String divName = results.getString("Division");
-                Timestamp divCreateDate = results.getTimestamp("Create_Date");
-                String divCreatedBy = results.getString("Created_By");
-                Timestamp divUpdateDate = results.getTimestamp("Last_Update");
-                String divUpdateBy = results.getString("Last_Updated_By");
-                int divCountryId = results.getInt("Country_ID");
+        String query = "SELECT * FROM first_level_divisions;";      /*Sets what you would like the SQL query to entail */
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);    /* Puts the query into a prepared statement */
+             ResultSet results = ps.executeQuery()) {
 
-                FirstLevelDivision d = new FirstLevelDivision(divId, divName, divCreateDate, divCreatedBy, divUpdateDate, divUpdateBy, divCountryId);
-                division.add(d);
-            }
+            RowMappers.readAll(results, RowMappers::divisions, division);
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -115,25 +134,59 @@ public class CountryDAO {
         ObservableList<FirstLevelDivision> divisions = FXCollections.observableArrayList();
 
         String query = "SELECT * FROM first_level_divisions WHERE Country_ID = ?;";
-        PreparedStatement ps = JDBC.getConnection().prepareStatement(query);
-        ps.setInt(1, countryId);
-        ResultSet results = ps.executeQuery();
-
-
-        while (results.next()) {
-            int divId = results.getInt("Division_ID");
-            String divName = results.getString("Division");
-            Timestamp divCreateDate = results.getTimestamp("Create_Date");
-            String divCreatedBy = results.getString("Created_By");
-            Timestamp divUpdateDate = results.getTimestamp("Last_Update");
-            String divUpdateBy = results.getString("Last_Updated_By");
-            int divCountryId = results.getInt("Country_ID");
-
-            FirstLevelDivision d = new FirstLevelDivision(divId, divName, divCreateDate, divCreatedBy, divUpdateDate, divUpdateBy, divCountryId);
-            divisions.add(d);
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setInt(1, countryId);
+            ResultSet results = ps.executeQuery();
+
+
+            RowMappers.readAll(results, RowMappers::divisions, divisions);
         }
 
         return divisions;
     }
 
+
+    /**
+     * Asynchronous version of <i>getAllCountries</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @return A future of the list of countries
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<Country>> getAllCountriesAsync() {
+        return AsyncDAO.supply(() -> getAllCountries());
+    }
+
+    /**
+     * Asynchronous version of <i>getAllDivisions</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @return A future of the list of First Level Divisions
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<FirstLevelDivision>> getAllDivisionsAsync() {
+        return AsyncDAO.supply(() -> getAllDivisions());
+    }
+
+    /**
+     * Asynchronous version of <i>getCountryDivisions</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked. An SQL error completes the future exceptionally.
+     * </p>
+     *
+     * @param countryId The country ID that the locations are needed from
+     * @return A future of the list of First Level Divisions in the country
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<FirstLevelDivision>> getCountryDivisionsAsync(int countryId) {
+        return AsyncDAO.supply(() -> getCountryDivisions(countryId));
+    }
 }
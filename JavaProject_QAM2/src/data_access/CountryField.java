@@ -0,0 +1,34 @@
+package data_access;
+
+/**
+ * Enum for the country columns a screen can ask <i>CountryDAO.getCountries</i> for.
+ *
+ * <p>
+ * Only the columns asked for are selected and set on the <i>Country</i> objects, the rest are left null (or 0).
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see CountryDAO#getCountries(java.util.Set)
+ */
+public enum CountryField {
+    ID("Country_ID"),
+    NAME("Country"),
+    CREATE_DATE("Create_Date"),
+    CREATED_BY("Created_By"),
+    LAST_UPDATE("Last_Update"),
+    LAST_UPDATED_BY("Last_Updated_By");
+
+    private final String column;
+
+    CountryField(String column) {
+        this.column = column;
+    }
+
+    /**
+     * @return the column used in the SELECT list and read from the result set
+     */
+    String column() {
+        return column;
+    }
+}
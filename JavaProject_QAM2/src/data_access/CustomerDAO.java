@@ -5,10 +5,16 @@ import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import model.Customer;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 
 /**
@@ -37,26 +43,12 @@ public class CustomerDAO {
 
         ObservableList<Customer> custList = FXCollections.observableArrayList();
 
-        try {
-            String query = "SELECT * from customers";
-            PreparedStatement ps = JDBC.getConnection().prepareStatement(query);
-            ResultSet results = ps.executeQuery();
-
-            while (results.next()) {
-                int customerId = results.getInt("Customer_ID");
-                String customerName = results.getString("Customer_Name");
-                String customerAddress = results.getString("Address");
-                String customerZip = results.getString("Postal_Code");
-                String customerPhone = results.getString("Phone");
-                Timestamp customerCreatedDate = results.getTimestamp("Create_Date");
-                String customerCreatedBy = results.getString("Created_By");
-                Timestamp customerUpdatedDate = results.getTimestamp("Last_Update");
-                String customerUpdatedBy = results.getString("Last_Updated_By");
-                int customerDivisionId = results.getInt("Division_ID");
-
-                Customer c = new Customer(customerId, customerName, customerAddress, customerZip, customerPhone, customerCreatedDate, customerCreatedBy, customerUpdatedDate, customerUpdatedBy, customerDivisionId);
-                custList.add(c);
-            }
+        String query = "SELECT * from customers";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
+
+            RowMappers.readAll(results, RowMappers::customers, custList);
         } catch (SQLException e) {
             e.printStackTrace();
         }
@@ -76,29 +68,12 @@ public class CustomerDAO {
     public static ObservableList<Customer> getAllCustomersModified() {
         ObservableList<Customer> custList = FXCollections.observableArrayList();
 
-        try {
-
-            String query = "SELECT customers.*, countries.Country, first_level_divisions.Division FROM customers JOIN first_level_divisions ON first_level_divisions.Division_ID = customers.Division_ID JOIN countries ON first_level_divisions.Country_ID = countries.Country_ID";
-            PreparedStatement ps = JDBC.getConnection().prepareStatement(query);
-            ResultSet results = ps.executeQuery();
-
-            while (results.next()) {
-                int customerId = results.getInt("Customer_ID");
-                String customerName = results.getString("Customer_Name");
-                String customerAddress = results.getString("Address");
-                String customerZip = results.getString("Postal_Code");
-                String customerPhone = results.getString("Phone");
-                Timestamp customerCreatedDate = results.getTimestamp("Create_Date");
-                String customerCreatedBy = results.getString("Created_By");
-                Timestamp customerUpdatedDate = results.getTimestamp("Last_Update");
-                String customerUpdatedBy = results.getString("Last_Updated_By");
-                int customerDivisionId = results.getInt("Division_ID");
-                String customerCountry = results.getString("Country");
-                String customerDivisionName = results.getString("Division");
-
-                Customer c = new Customer(customerId, customerName, customerAddress, customerZip, customerPhone, customerCreatedDate, customerCreatedBy, customerUpdatedDate, customerUpdatedBy, customerDivisionId, customerCountry, customerDivisionName);
-                custList.add(c);
-            }
+        String query = "SELECT customers.*, countries.Country, first_level_divisions.Division FROM customers JOIN first_level_divisions ON first_level_divisions.Division_ID = customers.Division_ID JOIN countries ON first_level_divisions.Country_ID = countries.Country_ID";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
+
+            RowMappers.readAll(results, RowMappers::customers, custList);
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -108,6 +83,45 @@ public class CustomerDAO {
     }
 
 
+    /**
+     * Method for grabbing all the Customers, with only the columns a screen needs.
+     *
+     * <p>
+     * Instead of <i>SELECT *</i>, only the columns of the given fields are selected and read, the other fields of
+     * the customer objects are left null (or 0). The division and country tables are only joined when their names are
+     * asked for.
+     * </p>
+     *
+     * @param fields The fields the screen needs
+     * @return The list of customers, with only the given fields set
+     * @throws IllegalArgumentException If no fields are given
+     * @see CustomerField
+     */
+    public static ObservableList<Customer> getCustomers(Set<CustomerField> fields) {
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("No customer fields asked for");
+        }
+        Set<CustomerField> f = EnumSet.copyOf(fields);
+        boolean joinDivisions = f.contains(CustomerField.DIVISION_NAME) || f.contains(CustomerField.COUNTRY_NAME);
+
+        ObservableList<Customer> custList = FXCollections.observableArrayList();
+
+        String query = "SELECT " + f.stream().map(CustomerField::column).collect(Collectors.joining(", ")) + " FROM customers" +
+                (joinDivisions ? " JOIN first_level_divisions ON first_level_divisions.Division_ID = customers.Division_ID" : "") +
+                (f.contains(CustomerField.COUNTRY_NAME) ? " JOIN countries ON first_level_divisions.Country_ID = countries.Country_ID" : "");
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
+
+            RowMappers.readAll(results, RowMappers::customers, custList);
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return custList;
+    }
+
     /**
      * Method for inserting a new customer.
      *
@@ -124,14 +138,14 @@ public class CustomerDAO {
      * @return Called as an integer, the true purpose of the return value is to execute the SQL query after it is set.
      */
     public static int insertCustomer(String customerName, String customerAddress, String customerZip, String customerPhone, int customerDivisionId, String currentUser) {
-        try {
 
-            long currentTime = System.currentTimeMillis();
-            Timestamp time = new Timestamp(currentTime);
+        long currentTime = System.currentTimeMillis();
+        Timestamp time = new Timestamp(currentTime);
 
-            String query = "INSERT INTO customers (Customer_Name, Address, Postal_Code, Phone, Create_Date, Created_By, Last_Update, Last_Updated_By, Division_ID) " +
-                    "VALUES( ?,?,?,?,?,?,?,?,?)";
-            PreparedStatement ps = JDBC.getConnection().prepareStatement(query);
+        String query = "INSERT INTO customers (Customer_Name, Address, Postal_Code, Phone, Create_Date, Created_By, Last_Update, Last_Updated_By, Division_ID) " +
+                "VALUES( ?,?,?,?,?,?,?,?,?)";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
 
             ps.setString(1, customerName);  //Customer Name
             ps.setString(2, customerAddress);   //Customer Address
@@ -153,6 +167,40 @@ public class CustomerDAO {
         return 0;
     }
 
+    /**
+     * Method for inserting many customers at once.
+     *
+     * <p>
+     * The customers are sent to the database in JDBC batches of <i>batchSize</i>, each batch committed as one
+     * transaction, instead of one round trip and commit per customer. The customer IDs of the given objects are
+     * ignored, the database generates them. A failed batch is rolled back and retried one customer at a time, so a bad
+     * row is reported in the result without stopping the rest of the load.
+     * </p>
+     *
+     * @param customers   The customers to insert
+     * @param currentUser The current user of the program
+     * @param batchSize   The number of customers per batch and transaction
+     * @return The generated customer ID of every customer inserted and the error of every one that was not
+     * @see BatchResult
+     */
+    public static BatchResult insertCustomers(Collection<Customer> customers, String currentUser, int batchSize) {
+        Timestamp time = new Timestamp(System.currentTimeMillis());
+
+        String query = "INSERT INTO customers (Customer_Name, Address, Postal_Code, Phone, Create_Date, Created_By, Last_Update, Last_Updated_By, Division_ID) " +
+                "VALUES( ?,?,?,?,?,?,?,?,?)";
+        return BatchInsert.run(query, customers, batchSize, (ps, c) -> {
+            ps.setString(1, c.getCustomerName());
+            ps.setString(2, c.getCustomerAddress());
+            ps.setString(3, c.getCustomerZip());
+            ps.setString(4, c.getCustomerPhone());
+            ps.setTimestamp(5, time);
+            ps.setString(6, currentUser);
+            ps.setTimestamp(7, time);
+            ps.setString(8, currentUser);
+            ps.setInt(9, c.getCustomerDivisionId());
+        });
+    }
+
 
     /**
      * Method for modifying a new customer.
@@ -171,12 +219,12 @@ public class CustomerDAO {
      * @return Called as an integer, the true purpose of the return value is to execute the SQL query after it is set.
      */
     public static int modifyCustomer(int customerId, String customerName, String customerAddress, String customerZip, String customerPhone, String currentUser, int divisionId) {
-        try {
-            long currentTime = System.currentTimeMillis();
-            Timestamp time = new Timestamp(currentTime);
+        long currentTime = System.currentTimeMillis();
+        Timestamp time = new Timestamp(currentTime);
 
-            String query = "UPDATE customers SET Customer_Name = ?, Address = ?, Postal_Code = ?, Phone = ?, Last_Update = ?, Last_Updated_By = ?, Division_ID = ? WHERE Customer_ID = ?";
-            PreparedStatement ps = JDBC.getConnection().prepareStatement(query);
+        String query = "UPDATE customers SET Customer_Name = ?, Address = ?, Postal_Code = ?, Phone = ?, Last_Update = ?, Last_Updated_By = ?, Division_ID = ? WHERE Customer_ID = ?";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
             ps.setInt(8, customerId);
 
             ps.setString(1, customerName);
@@ -208,9 +256,9 @@ public class CustomerDAO {
      * @return Called as an integer, the true purpose of the return value is to execute the SQL query after it is set.
      */
     public static int deleteCustomer(int customerId) {
-        try {
-            String query = "DELETE FROM customers WHERE Customer_ID = ?";
-            PreparedStatement ps = JDBC.getConnection().prepareStatement(query);
+        String query = "DELETE FROM customers WHERE Customer_ID = ?";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
             ps.setInt(1, customerId);
 
             int rowsAffected = ps.executeUpdate();
@@ -222,4 +270,120 @@ public class CustomerDAO {
         return 0;
     }
 
+
+    /**
+     * Asynchronous version of <i>getAllCustomers</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @return A future of the list of customers
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<Customer>> getAllCustomersAsync() {
+        return AsyncDAO.supply(() -> getAllCustomers());
+    }
+
+    /**
+     * Asynchronous version of <i>insertCustomers</i>.
+     *
+     * <p>
+     * Runs the inserts on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param customers   The customers to insert
+     * @param currentUser The current user of the program
+     * @param batchSize   The number of customers per batch and transaction
+     * @return A future of the batch result
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<BatchResult> insertCustomersAsync(Collection<Customer> customers, String currentUser, int batchSize) {
+        return AsyncDAO.supply(() -> insertCustomers(customers, currentUser, batchSize));
+    }
+
+    /**
+     * Asynchronous version of <i>getCustomers</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param fields The fields the screen needs
+     * @return A future of the list of customers, with only the given fields set
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<Customer>> getCustomersAsync(Set<CustomerField> fields) {
+        return AsyncDAO.supply(() -> getCustomers(fields));
+    }
+
+    /**
+     * Asynchronous version of <i>getAllCustomersModified</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @return A future of the list of customers with their country and division names
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<Customer>> getAllCustomersModifiedAsync() {
+        return AsyncDAO.supply(() -> getAllCustomersModified());
+    }
+
+    /**
+     * Asynchronous version of <i>insertCustomer</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param customerName       Name of customer to be inserted
+     * @param customerAddress    Address of customer to be inserted
+     * @param customerZip        Postal code of customer to be inserted
+     * @param customerPhone      Phone number of customer to be inserted
+     * @param customerDivisionId Division ID number attached to the customer being added
+     * @param currentUser        The current user of the program
+     * @return A future of the number of rows inserted
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<Integer> insertCustomerAsync(String customerName, String customerAddress, String customerZip, String customerPhone, int customerDivisionId, String currentUser) {
+        return AsyncDAO.supply(() -> insertCustomer(customerName, customerAddress, customerZip, customerPhone, customerDivisionId, currentUser));
+    }
+
+    /**
+     * Asynchronous version of <i>modifyCustomer</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param customerId      ID of customer being modified
+     * @param customerName    Name of customer being modified
+     * @param customerAddress Address of customer being modified
+     * @param customerZip     Postal code of customer being modified
+     * @param customerPhone   Phone number of customer being modified
+     * @param currentUser     Current user of the program
+     * @param divisionId      Division ID number attached to the customer being modified
+     * @return A future of the number of rows modified
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<Integer> modifyCustomerAsync(int customerId, String customerName, String customerAddress, String customerZip, String customerPhone, String currentUser, int divisionId) {
+        return AsyncDAO.supply(() -> modifyCustomer(customerId, customerName, customerAddress, customerZip, customerPhone, currentUser, divisionId));
+    }
+
+    /**
+     * Asynchronous version of <i>deleteCustomer</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param customerId ID of the customer to be deleted
+     * @return A future of the number of rows deleted
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<Integer> deleteCustomerAsync(int customerId) {
+        return AsyncDAO.supply(() -> deleteCustomer(customerId));
+    }
 }
@@ -0,0 +1,42 @@
+package data_access;
+
+/**
+ * Enum for the customer columns a screen can ask <i>CustomerDAO.getCustomers</i> for.
+ *
+ * <p>
+ * Only the columns asked for are selected and set on the <i>Customer</i> objects, the rest are left null (or 0).
+ * Asking for <i>DIVISION_NAME</i> joins the first level divisions table, <i>COUNTRY_NAME</i> joins the countries
+ * table as well.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see CustomerDAO#getCustomers(java.util.Set)
+ */
+public enum CustomerField {
+    ID("customers.Customer_ID"),
+    NAME("customers.Customer_Name"),
+    ADDRESS("customers.Address"),
+    POSTAL_CODE("customers.Postal_Code"),
+    PHONE("customers.Phone"),
+    CREATE_DATE("customers.Create_Date"),
+    CREATED_BY("customers.Created_By"),
+    LAST_UPDATE("customers.Last_Update"),
+    LAST_UPDATED_BY("customers.Last_Updated_By"),
+    DIVISION_ID("customers.Division_ID"),
+    DIVISION_NAME("first_level_divisions.Division"),
+    COUNTRY_NAME("countries.Country");
+
+    private final String column;
+
+    CustomerField(String column) {
+        this.column = column;
+    }
+
+    /**
+     * @return the qualified column used in the SELECT list
+     */
+    String column() {
+        return column;
+    }
+}
@@ -0,0 +1,195 @@
+package data_access;
+
+import javafx.collections.ModifiableObservableListBase;
+import javafx.collections.ObservableList;
+import model.Appointment;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Class for feeding the appointment table one page at a time.
+ *
+ * <p>
+ * Instead of loading every appointment before the table shows anything, this list starts out with the first page
+ * and grabs the next page in the background (see <i>AppointmentDAO.getAppointmentPage</i>) whenever the table asks
+ * for a row close to the end of what is loaded. Since the TableView only asks for the rows in its viewport, pages are
+ * only grabbed as the user scrolls towards them.
+ * </p>
+ * <p>
+ * The list should only be used on the JavaFX Application Thread. The pages are appended to it through
+ * <i>Platform.runLater</i>, so the table sees them as a normal add change. The list can also be changed directly
+ * (it is a modifiable observable list), the next page is always grabbed from after the last <b>fetched</b>
+ * appointment, not the last row of the list.
+ * </p>
+ * <p>
+ * A page that could not be grabbed is not the end of the table. The list stays open for more pages, and scrolling
+ * only tries again after <i>appointments.retryMillis</i> (5 seconds by default), so a database that is down is not
+ * asked again for every row the table draws.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see AppointmentDAO#getAppointmentPage(Timestamp, int, int)
+ */
+public class PagedAppointmentList extends ModifiableObservableListBase<Appointment> {
+
+    private final List<Appointment> rows = new ArrayList<>();
+    private final int pageSize;
+    private final int prefetchDistance;
+    private final long retryMillis = Long.getLong("appointments.retryMillis", 5_000L);
+
+    private Timestamp lastStart;
+    private int lastId;
+    private CompletableFuture<Void> pending;
+    private boolean exhausted = false;
+    private boolean failed;
+    private long retryAt;
+
+
+    /**
+     * Base constructor for the PagedAppointmentList class.
+     *
+     * @param pageSize         The number of appointments grabbed per page
+     * @param prefetchDistance How many rows before the end of the loaded rows the next page is grabbed
+     */
+    public PagedAppointmentList(int pageSize, int prefetchDistance) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Invalid page size: " + pageSize);
+        }
+        this.pageSize = pageSize;
+        this.prefetchDistance = Math.max(0, prefetchDistance);
+    }
+
+
+    /**
+     * Constructor that uses the <i>appointments.pageSize</i> system property (default 200) and prefetches half a
+     * page ahead.
+     */
+    public PagedAppointmentList() {
+        this(Integer.getInteger("appointments.pageSize", 200), Integer.getInteger("appointments.pageSize", 200) / 2);
+    }
+
+
+    /**
+     * Method that grabs the next page of appointments in the background and appends it to the list.
+     *
+     * <p>
+     * If a page is already being grabbed, the future of that page is returned instead of grabbing another one.
+     * </p>
+     *
+     * @return A future that completes on the JavaFX Application Thread after the page was appended, or could not be
+     * grabbed (see <i>lastFetchFailed</i>)
+     */
+    public CompletableFuture<Void> fetchNextPage() {
+        if (pending != null) {
+            return pending;
+        }
+        if (exhausted) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<ObservableList<Appointment>> fetched = AppointmentDAO.getAppointmentPageAsync(lastStart, lastId, pageSize);
+        pending = AsyncDAO.onFxThread(fetched, page -> {
+            if (!page.isEmpty()) {
+                Appointment last = page.get(page.size() - 1);
+                lastStart = last.getAppStartDate();
+                lastId = last.getAppId();
+                addAll(page);
+            }
+            exhausted = page.size() < pageSize;
+        }).whenComplete((v, error) -> {
+            // Chained rather than added to the future, so it runs before whatever the caller chains on
+            pending = null;
+            failed = fetched.isCompletedExceptionally();
+            if (failed) {
+                retryAt = System.currentTimeMillis() + retryMillis;
+            }
+        });
+        return pending;
+    }
+
+
+    /**
+     * Method that gives a read-only view of the rows loaded so far.
+     *
+     * <p>
+     * Reading through this view does not grab the next page, unlike <i>get</i>.
+     * </p>
+     *
+     * @return The loaded rows
+     */
+    public List<Appointment> loadedRows() {
+        return Collections.unmodifiableList(rows);
+    }
+
+
+    /**
+     * @return true if the last page could not be grabbed, the list is then not fully loaded
+     */
+    public boolean lastFetchFailed() {
+        return failed;
+    }
+
+
+    /**
+     * @return true if every appointment has been grabbed from the database
+     */
+    public boolean isFullyLoaded() {
+        return exhausted;
+    }
+
+
+    /**
+     * Method that checks if an appointment falls in the part of the table that has been grabbed so far.
+     *
+     * <p>
+     * An appointment that sorts after the last fetched appointment will show up with a later page, so it should not
+     * be added to the list by hand.
+     * </p>
+     *
+     * @param appointment The appointment to check
+     * @return true if the appointment sorts at or before the last fetched appointment, or every page is loaded
+     */
+    public boolean covers(Appointment appointment) {
+        if (exhausted) {
+            return true;
+        }
+        if (lastStart == null) {
+            return false;
+        }
+        int c = Long.compare(appointment.getAppStartMillis(), lastStart.getTime());
+        return c < 0 || (c == 0 && appointment.getAppId() <= lastId);
+    }
+
+
+    @Override
+    public Appointment get(int index) {
+        if (!exhausted && pending == null && index >= rows.size() - prefetchDistance && System.currentTimeMillis() >= retryAt) {
+            fetchNextPage();
+        }
+        return rows.get(index);
+    }
+
+    @Override
+    public int size() {
+        return rows.size();
+    }
+
+    @Override
+    protected void doAdd(int index, Appointment element) {
+        rows.add(index, element);
+    }
+
+    @Override
+    protected Appointment doSet(int index, Appointment element) {
+        return rows.set(index, element);
+    }
+
+    @Override
+    protected Appointment doRemove(int index) {
+        return rows.remove(index);
+    }
+}
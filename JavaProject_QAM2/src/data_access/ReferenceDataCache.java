@@ -0,0 +1,327 @@
+package data_access;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.Contact;
+import model.Country;
+import model.FirstLevelDivision;
+import model.User;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Class for caching the reference data of the application: contacts, countries, first level divisions and users.
+ *
+ * <p>
+ * These tables almost never change, yet every screen used to query them again when it opened. This class is a
+ * read-through cache in front of <i>ContactDAO</i>, <i>CountryDAO</i> and <i>UserDAO</i>:
+ *     <ul>
+ *         <li>The first request for a table queries the database, later requests are answered from memory.</li>
+ *         <li>A table is queried again once it is older than the time to live (the <i>refdata.ttlMillis</i> system
+ *         property, 10 minutes by default), or after <i>invalidate()</i> is called. The application never writes
+ *         these tables (a customer only points at a division), so the cache is dropped when the user logs out and
+ *         the time to live covers changes made outside of it during a session.</li>
+ *         <li>Lookups by ID (contact, country, division) and the divisions of a country are served from maps built
+ *         when the table is loaded.</li>
+ *         <li>An empty result is not cached, since the DAOs return an empty list when their query fails.</li>
+ *         <li>Countries and users are cached with their ID and name only, so no password is kept in memory.</li>
+ *     </ul>
+ * </p>
+ * <p>
+ * The lists handed out are unmodifiable and shared between screens, so the same instances can be used for combo box
+ * items and <i>setValue</i> calls.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+public final class ReferenceDataCache {
+
+    private static final long ttlMillis = Long.getLong("refdata.ttlMillis", 600_000L);
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private static final Entry<ObservableList<Contact>, Contacts> contacts = new Entry<>(ContactDAO::getAllContacts, Contacts::new);
+    private static final Entry<ObservableList<Country>, Countries> countries = new Entry<>(() -> CountryDAO.getCountries(EnumSet.of(CountryField.ID, CountryField.NAME)), Countries::new);
+    private static final Entry<ObservableList<FirstLevelDivision>, Divisions> divisions = new Entry<>(CountryDAO::getAllDivisions, Divisions::new);
+    private static final Entry<ObservableList<User>, ObservableList<User>> users = new Entry<>(() -> UserDAO.getUsers(EnumSet.of(UserField.ID, UserField.NAME)), FXCollections::unmodifiableObservableList);
+
+    private ReferenceDataCache() {
+    }
+
+
+    /**
+     * @return every contact
+     */
+    public static ObservableList<Contact> getContacts() {
+        return contacts.get().list;
+    }
+
+    /**
+     * @param contactId The ID of the contact
+     * @return the contact with the ID, or null if there is none
+     */
+    public static Contact getContact(int contactId) {
+        return contacts.get().byId.get(contactId);
+    }
+
+    /**
+     * @return every country
+     */
+    public static ObservableList<Country> getCountries() {
+        return countries.get().list;
+    }
+
+    /**
+     * @param countryId The ID of the country
+     * @return the country with the ID, or null if there is none
+     */
+    public static Country getCountry(int countryId) {
+        return countries.get().byId.get(countryId);
+    }
+
+    /**
+     * @param countryName The name of the country
+     * @return the country with the name, or null if there is none
+     */
+    public static Country getCountryByName(String countryName) {
+        return countries.get().byName.get(countryName);
+    }
+
+    /**
+     * @return every first level division
+     */
+    public static ObservableList<FirstLevelDivision> getDivisions() {
+        return divisions.get().list;
+    }
+
+    /**
+     * @param divisionId The ID of the division
+     * @return the division with the ID, or null if there is none
+     */
+    public static FirstLevelDivision getDivision(int divisionId) {
+        return divisions.get().byId.get(divisionId);
+    }
+
+    /**
+     * @param countryId The ID of the country
+     * @return the divisions of the country, empty if there are none
+     */
+    public static ObservableList<FirstLevelDivision> getCountryDivisions(int countryId) {
+        ObservableList<FirstLevelDivision> list = divisions.get().byCountry.get(countryId);
+        return list != null ? list : FXCollections.emptyObservableList();
+    }
+
+    /**
+     * @return every user
+     */
+    public static ObservableList<User> getUsers() {
+        return users.get();
+    }
+
+
+    /**
+     * @return A future of every contact, already completed if the contacts are cached
+     */
+    public static CompletableFuture<ObservableList<Contact>> getContactsAsync() {
+        return contacts.isFresh() ? CompletableFuture.completedFuture(getContacts()) : AsyncDAO.supply(ReferenceDataCache::getContacts);
+    }
+
+    /**
+     * @return A future of every country, already completed if the countries are cached
+     */
+    public static CompletableFuture<ObservableList<Country>> getCountriesAsync() {
+        return countries.isFresh() ? CompletableFuture.completedFuture(getCountries()) : AsyncDAO.supply(ReferenceDataCache::getCountries);
+    }
+
+    /**
+     * @return A future of every first level division, already completed if the divisions are cached
+     */
+    public static CompletableFuture<ObservableList<FirstLevelDivision>> getDivisionsAsync() {
+        return divisions.isFresh() ? CompletableFuture.completedFuture(getDivisions()) : AsyncDAO.supply(ReferenceDataCache::getDivisions);
+    }
+
+    /**
+     * @return A future of every user, already completed if the users are cached
+     */
+    public static CompletableFuture<ObservableList<User>> getUsersAsync() {
+        return users.isFresh() ? CompletableFuture.completedFuture(getUsers()) : AsyncDAO.supply(ReferenceDataCache::getUsers);
+    }
+
+    /**
+     * @param countryName The name of the country
+     * @return A future of the country with the name or null, already completed if the countries are cached
+     */
+    public static CompletableFuture<Country> getCountryByNameAsync(String countryName) {
+        return countries.isFresh() ? CompletableFuture.completedFuture(getCountryByName(countryName)) : AsyncDAO.supply(() -> getCountryByName(countryName));
+    }
+
+    /**
+     * @param divisionId The ID of the division
+     * @return A future of the division with the ID or null, already completed if the divisions are cached
+     */
+    public static CompletableFuture<FirstLevelDivision> getDivisionAsync(int divisionId) {
+        return divisions.isFresh() ? CompletableFuture.completedFuture(getDivision(divisionId)) : AsyncDAO.supply(() -> getDivision(divisionId));
+    }
+
+    /**
+     * @param countryId The ID of the country
+     * @return A future of the divisions of the country, already completed if the divisions are cached
+     */
+    public static CompletableFuture<ObservableList<FirstLevelDivision>> getCountryDivisionsAsync(int countryId) {
+        return divisions.isFresh() ? CompletableFuture.completedFuture(getCountryDivisions(countryId)) : AsyncDAO.supply(() -> getCountryDivisions(countryId));
+    }
+
+
+    /**
+     * Method that loads every reference table in the background, so the first screen that needs them does not wait.
+     *
+     * @return A future that completes once every table is cached
+     */
+    public static CompletableFuture<Void> preload() {
+        return CompletableFuture.allOf(
+                AsyncDAO.supply(ReferenceDataCache::getContacts),
+                AsyncDAO.supply(ReferenceDataCache::getCountries),
+                AsyncDAO.supply(ReferenceDataCache::getDivisions),
+                AsyncDAO.supply(ReferenceDataCache::getUsers));
+    }
+
+
+    /**
+     * Method that drops every cached table, the next request for each table queries the database again.
+     *
+     * <p>
+     * Call this after changing a reference table, or when a new session should not see data loaded by the last one.
+     * </p>
+     */
+    public static void invalidate() {
+        contacts.invalidate();
+        countries.invalidate();
+        divisions.invalidate();
+        users.invalidate();
+    }
+
+
+    /**
+     * @return the number of requests answered from memory
+     */
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of requests that had to query the database
+     */
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+
+    /**
+     * One cached table and the time it was loaded.
+     *
+     * @param <R> The type of the rows grabbed by the DAO
+     * @param <T> The type of the cached value built from the rows
+     */
+    private static final class Entry<R extends ObservableList<?>, T> {
+
+        private final Supplier<R> loader;
+        private final Function<R, T> builder;
+        private T value;
+        private long loadedAt;
+
+        private Entry(Supplier<R> loader, Function<R, T> builder) {
+            this.loader = loader;
+            this.builder = builder;
+        }
+
+        private synchronized boolean isFresh() {
+            return value != null && System.currentTimeMillis() - loadedAt < ttlMillis;
+        }
+
+        private synchronized T get() {
+            if (isFresh()) {
+                hits.incrementAndGet();
+                return value;
+            }
+            misses.incrementAndGet();
+            R rows = loader.get();
+            T built = builder.apply(rows);
+            if (!rows.isEmpty()) {
+                value = built;
+                loadedAt = System.currentTimeMillis();
+            }
+            return built;
+        }
+
+        private synchronized void invalidate() {
+            value = null;
+        }
+    }
+
+
+    /**
+     * The cached contacts and the contacts by ID.
+     */
+    private static final class Contacts {
+
+        private final ObservableList<Contact> list;
+        private final Map<Integer, Contact> byId = new HashMap<>();
+
+        private Contacts(ObservableList<Contact> rows) {
+            list = FXCollections.unmodifiableObservableList(rows);
+            for (Contact c : rows) {
+                byId.put(c.getContactId(), c);
+            }
+        }
+    }
+
+
+    /**
+     * The cached countries and the countries by ID and name.
+     */
+    private static final class Countries {
+
+        private final ObservableList<Country> list;
+        private final Map<Integer, Country> byId = new HashMap<>();
+        private final Map<String, Country> byName = new HashMap<>();
+
+        private Countries(ObservableList<Country> rows) {
+            list = FXCollections.unmodifiableObservableList(rows);
+            for (Country c : rows) {
+                byId.put(c.getCountryId(), c);
+                byName.put(c.getCountryName(), c);
+            }
+        }
+    }
+
+
+    /**
+     * The cached divisions, the divisions by ID and the divisions of each country.
+     */
+    private static final class Divisions {
+
+        private final ObservableList<FirstLevelDivision> list;
+        private final Map<Integer, FirstLevelDivision> byId = new HashMap<>();
+        private final Map<Integer, ObservableList<FirstLevelDivision>> byCountry = new HashMap<>();
+
+        private Divisions(ObservableList<FirstLevelDivision> rows) {
+            list = FXCollections.unmodifiableObservableList(rows);
+            Map<Integer, ObservableList<FirstLevelDivision>> grouped = new HashMap<>();
+            for (FirstLevelDivision d : rows) {
+                byId.put(d.getDivisionId(), d);
+                grouped.computeIfAbsent(d.getCountryId(), id -> FXCollections.observableArrayList()).add(d);
+            }
+            for (Map.Entry<Integer, ObservableList<FirstLevelDivision>> e : grouped.entrySet()) {
+                byCountry.put(e.getKey(), FXCollections.unmodifiableObservableList(e.getValue()));
+            }
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package data_access;
+
+import database.JDBC;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import model.Appointment;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Month;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Class for running the reports of the <i>Report</i> view in the SQL database.
+ *
+ * <p>
+ * Every report is a single query that sends back only its answer, a count or the matching appointments, instead of
+ * the whole appointment table. The queries are backed by the indexes in <i>V4__index_appointments_reports.sql</i>.
+ * The <i>Report</i> view uses this class when the <i>reports.serverSide</i> system property is true, otherwise it
+ * answers from <i>AppointmentCountCube</i> and <i>AppointmentColumnStore</i>.
+ * </p>
+ * <p>
+ * The months of the month and type counts are worked out by mySQL, from <i>Start</i> as it is stored. The connection
+ * stores times in the time zone of the database server (<i>connectionTimeZone=SERVER</i>), so these are months in the
+ * server's time zone, while <i>AppointmentCountCube</i> uses the time zone of the client. The two only differ for
+ * appointments starting within the time zone difference of a month boundary, and agree when the client runs in the
+ * server's time zone. A client side range per month would not fit "of any year" in one query.
+ * </p>
+ * <p>
+ * Like the other DAOs, the reports print a failed query and answer empty. Each one also has a <i>query</i> variant
+ * that throws the <i>SQLException</i> instead, for <i>HeadlessMain</i>, which has to exit with an error rather than
+ * print an empty report.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+public class ReportDAO {
+
+    /**
+     * Method for grabbing every appointment type in use.
+     *
+     * @return The list of distinct appointment types, sorted, empty if the query failed
+     */
+    public static ObservableList<String> getTypes() {
+        try {
+            return queryTypes();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return FXCollections.observableArrayList();
+    }
+
+
+    /**
+     * Method for grabbing every appointment type in use, for callers that have to tell a failed query from no types.
+     *
+     * @return The list of distinct appointment types, sorted
+     * @throws SQLException If the query failed
+     */
+    public static ObservableList<String> queryTypes() throws SQLException {
+        ObservableList<String> types = FXCollections.observableArrayList();
+
+        String query = "SELECT DISTINCT Type FROM appointments ORDER BY Type";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
+
+            while (results.next()) {
+                types.add(results.getString(1));
+            }
+        }
+        return types;
+    }
+
+
+    /**
+     * Method for counting the appointments of a type that start in a month, of any year.
+     *
+     * <p>
+     * The month is taken from the <i>Start</i> column as it is stored in the database, in the server's time zone.
+     * To count every month and type, use <i>countAllByMonthAndType</i>, which does it in one query.
+     * </p>
+     *
+     * @param month The month the appointments start in
+     * @param type  The appointment type
+     * @return The number of appointments, 0 if the query failed
+     */
+    public static int countByMonthAndType(Month month, String type) {
+        try {
+            return queryCountByMonthAndType(month, type);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+
+    /**
+     * Method for counting the appointments of a type that start in a month, of any year, for callers that have to
+     * tell a failed query from no appointments.
+     *
+     * @param month The month the appointments start in
+     * @param type  The appointment type
+     * @return The number of appointments
+     * @throws SQLException If the query failed
+     */
+    public static int queryCountByMonthAndType(Month month, String type) throws SQLException {
+        String query = "SELECT COUNT(*) FROM appointments WHERE Type = ? AND MONTH(Start) = ?";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setString(1, type);
+            ps.setInt(2, month.getValue());
+
+            try (ResultSet results = ps.executeQuery()) {
+                return results.next() ? results.getInt(1) : 0;
+            }
+        }
+    }
+
+
+    /**
+     * Method for counting the appointments of every type by the month they start in, of any year.
+     *
+     * <p>
+     * This is one <i>GROUP BY</i> query instead of one count per month and type. Months and types with no
+     * appointments are left out.
+     * </p>
+     *
+     * @return The counts by month and then by type, types sorted, empty if the query failed
+     */
+    public static Map<Month, Map<String, Integer>> countAllByMonthAndType() {
+        try {
+            return queryCountAllByMonthAndType();
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return new EnumMap<>(Month.class);
+    }
+
+
+    /**
+     * Method for counting the appointments of every type by the month they start in, of any year, for callers that
+     * have to tell a failed query from no appointments.
+     *
+     * @return The counts by month and then by type, types sorted
+     * @throws SQLException If the query failed
+     */
+    public static Map<Month, Map<String, Integer>> queryCountAllByMonthAndType() throws SQLException {
+        Map<Month, Map<String, Integer>> counts = new EnumMap<>(Month.class);
+
+        String query = "SELECT MONTH(Start), Type, COUNT(*) FROM appointments GROUP BY MONTH(Start), Type";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
+
+            while (results.next()) {
+                String type = results.getString(2);
+                if (type != null) { // like countByMonthAndType, which no type matches null
+                    counts.computeIfAbsent(Month.of(results.getInt(1)), m -> new TreeMap<>()).put(type, results.getInt(3));
+                }
+            }
+        }
+        return counts;
+    }
+
+
+    /**
+     * Method for grabbing the appointments with a contact.
+     *
+     * @param contactId The ID of the contact
+     * @return The list of appointments with the contact, in start time order, empty if the query failed
+     */
+    public static ObservableList<Appointment> getAppointmentsForContact(int contactId) {
+        return getAppointmentsWhere("Contact_ID", contactId);
+    }
+
+
+    /**
+     * Method for grabbing the appointments with a contact, for callers that have to tell a failed query from no
+     * appointments.
+     *
+     * @param contactId The ID of the contact
+     * @return The list of appointments with the contact, in start time order
+     * @throws SQLException If the query failed
+     */
+    public static ObservableList<Appointment> queryAppointmentsForContact(int contactId) throws SQLException {
+        return queryAppointmentsWhere("Contact_ID", contactId);
+    }
+
+
+    /**
+     * Method for grabbing the appointments of a user.
+     *
+     * @param userId The ID of the user
+     * @return The list of appointments of the user, in start time order, empty if the query failed
+     */
+    public static ObservableList<Appointment> getAppointmentsForUser(int userId) {
+        return getAppointmentsWhere("User_ID", userId);
+    }
+
+
+    /**
+     * Method for grabbing the appointments of a user, for callers that have to tell a failed query from no
+     * appointments.
+     *
+     * @param userId The ID of the user
+     * @return The list of appointments of the user, in start time order
+     * @throws SQLException If the query failed
+     */
+    public static ObservableList<Appointment> queryAppointmentsForUser(int userId) throws SQLException {
+        return queryAppointmentsWhere("User_ID", userId);
+    }
+
+
+    private static ObservableList<Appointment> getAppointmentsWhere(String column, int id) {
+        try {
+            return queryAppointmentsWhere(column, id);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return FXCollections.observableArrayList();
+    }
+
+
+    /**
+     * @param column The ID column to filter on, never user input
+     * @param id     The ID to match
+     * @return The list of appointments with the ID, in start time order
+     * @throws SQLException If the query failed
+     */
+    private static ObservableList<Appointment> queryAppointmentsWhere(String column, int id) throws SQLException {
+        ObservableList<Appointment> appList = FXCollections.observableArrayList();
+
+        String query = "SELECT Appointment_ID, Title, Description, Location, Type, Start, End, Customer_ID, User_ID, Contact_ID FROM appointments " +
+                "WHERE " + column + " = ? ORDER BY Start";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setInt(1, id);
+
+            try (ResultSet results = ps.executeQuery()) {
+                RowMappers.readAll(results, RowMappers::appointments, appList);
+            }
+        }
+        return appList;
+    }
+
+
+    /**
+     * Asynchronous version of <i>getTypes</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @return A future of the list of distinct appointment types
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<String>> getTypesAsync() {
+        return AsyncDAO.supply(() -> getTypes());
+    }
+
+    /**
+     * Asynchronous version of <i>countByMonthAndType</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param month The month the appointments start in
+     * @param type  The appointment type
+     * @return A future of the number of appointments
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<Integer> countByMonthAndTypeAsync(Month month, String type) {
+        return AsyncDAO.supply(() -> countByMonthAndType(month, type));
+    }
+
+    /**
+     * Asynchronous version of <i>getAppointmentsForContact</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param contactId The ID of the contact
+     * @return A future of the list of appointments with the contact
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<Appointment>> getAppointmentsForContactAsync(int contactId) {
+        return AsyncDAO.supply(() -> getAppointmentsForContact(contactId));
+    }
+
+    /**
+     * Asynchronous version of <i>getAppointmentsForUser</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @param userId The ID of the user
+     * @return A future of the list of appointments of the user
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<Appointment>> getAppointmentsForUserAsync(int userId) {
+        return AsyncDAO.supply(() -> getAppointmentsForUser(userId));
+    }
+}
@@ -0,0 +1,127 @@
+package data_access;
+
+import database.JDBC;
+import model.Appointment;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Class for measuring how fast <i>RowMappers</i> maps appointments, against reading every column by name.
+ *
+ * <p>
+ * The appointments with their contact names are queried once into a scrollable result set, which the driver keeps in
+ * memory. Both ways of mapping then read that same result set over and over, taking turns, so only the mapping is
+ * timed and not the database. Each pass binds its mapper again, like every DAO query does.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+public final class RowMapperBenchmark {
+
+    private static final String query = "SELECT appointments.*, contacts.Contact_Name FROM appointments JOIN contacts ON appointments.Contact_ID = contacts.Contact_ID";
+
+    /**
+     * Reads every column by name, like the DAOs did before <i>RowMappers</i>.
+     */
+    private static final RowMappers.MapperFactory<Appointment> byName = results -> r -> new Appointment(
+            r.getInt("Appointment_ID"), r.getString("Title"), r.getString("Description"), r.getString("Location"),
+            r.getInt("Contact_ID"), r.getString("Type"), r.getTimestamp("Start"), r.getTimestamp("End"),
+            r.getTimestamp("Create_Date"), r.getString("Created_By"), r.getTimestamp("Last_Update"),
+            r.getString("Last_Updated_By"), r.getInt("Customer_ID"), r.getInt("User_ID"), r.getString("Contact_Name"));
+
+
+    private RowMapperBenchmark() {
+    }
+
+
+    /**
+     * Method that maps the appointments by name and by index for a number of seconds.
+     *
+     * @param seconds How long to run, split between the two ways of mapping after a warm up
+     * @return The rows mapped and the time taken by each way
+     * @throws SQLException If the appointments could not be queried or read
+     */
+    public static Result run(int seconds) throws SQLException {
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+             ResultSet results = ps.executeQuery()) {
+
+            List<Appointment> list = new ArrayList<>();
+            for (int i = 0; i < 20; i++) { // Warm up
+                pass(results, byName, list);
+                pass(results, RowMappers::appointments, list);
+            }
+
+            Result result = new Result();
+            long until = System.nanoTime() + seconds * 1_000_000_000L;
+            while (System.nanoTime() < until) {
+                result.byNameNanos += pass(results, byName, list);
+                result.byIndexNanos += pass(results, RowMappers::appointments, list);
+                result.rows += list.size();
+                result.passes++;
+            }
+            return result;
+        }
+    }
+
+
+    /**
+     * @return the nanoseconds it took to map every row of the result set once
+     */
+    private static long pass(ResultSet results, RowMappers.MapperFactory<Appointment> factory, List<Appointment> list) throws SQLException {
+        list.clear();
+        results.beforeFirst();
+        long began = System.nanoTime();
+        RowMappers.readAll(results, factory, list);
+        return System.nanoTime() - began;
+    }
+
+
+    /**
+     * The rows mapped by each way of mapping and the time they took.
+     */
+    public static final class Result {
+
+        private long passes;
+        private long rows;
+        private long byNameNanos;
+        private long byIndexNanos;
+
+        private Result() {
+        }
+
+        /**
+         * @return the number of times each way mapped the whole result set
+         */
+        public long getPasses() {
+            return passes;
+        }
+
+        /**
+         * @return the number of rows each way mapped
+         */
+        public long getRows() {
+            return rows;
+        }
+
+        /**
+         * @return the nanoseconds spent mapping by name
+         */
+        public long getByNameNanos() {
+            return byNameNanos;
+        }
+
+        /**
+         * @return the nanoseconds spent mapping by index
+         */
+        public long getByIndexNanos() {
+            return byIndexNanos;
+        }
+    }
+}
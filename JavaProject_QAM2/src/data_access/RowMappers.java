@@ -0,0 +1,239 @@
+package data_access;
+
+import model.Appointment;
+import model.Contact;
+import model.Country;
+import model.Customer;
+import model.FirstLevelDivision;
+import model.User;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Class for turning the rows of a result set into model objects.
+ *
+ * <p>
+ * Reading a column by name makes the driver look the name up again for every column of every row. The mappers of
+ * this class look every column up once per result set, from its metadata, and then read each row by column index
+ * straight into the model constructor:
+ *     <ul>
+ *         <li>A column that is not in the result set is never read, its field is left null (or 0), so the same mapper
+ *         serves <i>SELECT *</i>, the joined queries and the column projected queries.</li>
+ *         <li>When a label is in the result set twice, the first one is used, like reading by name does.</li>
+ *     </ul>
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+final class RowMappers {
+
+    private RowMappers() {
+    }
+
+
+    /**
+     * Functional interface for building one model object from the current row of a result set.
+     *
+     * @param <T> The type of the model objects
+     */
+    @FunctionalInterface
+    interface RowMapper<T> {
+        T map(ResultSet results) throws SQLException;
+    }
+
+
+    /**
+     * Functional interface for binding a row mapper to the columns of a result set.
+     *
+     * @param <T> The type of the model objects
+     */
+    @FunctionalInterface
+    interface MapperFactory<T> {
+        RowMapper<T> bind(ResultSet results) throws SQLException;
+    }
+
+
+    /**
+     * Method that reads every row left in a result set into a list.
+     *
+     * @param results The result set to read
+     * @param factory Binds the mapper to the columns of the result set
+     * @param list    The list to add the model objects to, one per row
+     * @param <T>     The type of the model objects
+     * @throws SQLException If a column could not be read
+     */
+    static <T> void readAll(ResultSet results, MapperFactory<T> factory, List<? super T> list) throws SQLException {
+        RowMapper<T> mapper = factory.bind(results);
+        while (results.next()) {
+            list.add(mapper.map(results));
+        }
+    }
+
+
+    /**
+     * @param results The result set of an appointment query, with or without the contact name
+     * @return A mapper for the appointments of the result set
+     * @throws SQLException If the metadata of the result set could not be read
+     */
+    static RowMapper<Appointment> appointments(ResultSet results) throws SQLException {
+        Columns c = new Columns(results);
+        int id = c.find("Appointment_ID");
+        int title = c.find("Title");
+        int description = c.find("Description");
+        int location = c.find("Location");
+        int type = c.find("Type");
+        int start = c.find("Start");
+        int end = c.find("End");
+        int createDate = c.find("Create_Date");
+        int createdBy = c.find("Created_By");
+        int lastUpdate = c.find("Last_Update");
+        int lastUpdatedBy = c.find("Last_Updated_By");
+        int customerId = c.find("Customer_ID");
+        int userId = c.find("User_ID");
+        int contactId = c.find("Contact_ID");
+        int contactName = c.find("Contact_Name");
+
+        return r -> new Appointment(intAt(r, id), stringAt(r, title), stringAt(r, description), stringAt(r, location), intAt(r, contactId), stringAt(r, type), timestampAt(r, start), timestampAt(r, end), timestampAt(r, createDate), stringAt(r, createdBy), timestampAt(r, lastUpdate), stringAt(r, lastUpdatedBy), intAt(r, customerId), intAt(r, userId), stringAt(r, contactName));
+    }
+
+
+    /**
+     * @param results The result set of a customer query, with or without the country and division names
+     * @return A mapper for the customers of the result set
+     * @throws SQLException If the metadata of the result set could not be read
+     */
+    static RowMapper<Customer> customers(ResultSet results) throws SQLException {
+        Columns c = new Columns(results);
+        int id = c.find("Customer_ID");
+        int name = c.find("Customer_Name");
+        int address = c.find("Address");
+        int zip = c.find("Postal_Code");
+        int phone = c.find("Phone");
+        int createDate = c.find("Create_Date");
+        int createdBy = c.find("Created_By");
+        int lastUpdate = c.find("Last_Update");
+        int lastUpdatedBy = c.find("Last_Updated_By");
+        int divisionId = c.find("Division_ID");
+        int country = c.find("Country");
+        int division = c.find("Division");
+
+        return r -> new Customer(intAt(r, id), stringAt(r, name), stringAt(r, address), stringAt(r, zip), stringAt(r, phone), timestampAt(r, createDate), stringAt(r, createdBy), timestampAt(r, lastUpdate), stringAt(r, lastUpdatedBy), intAt(r, divisionId), stringAt(r, country), stringAt(r, division));
+    }
+
+
+    /**
+     * @param results The result set of a user query
+     * @return A mapper for the users of the result set
+     * @throws SQLException If the metadata of the result set could not be read
+     */
+    static RowMapper<User> users(ResultSet results) throws SQLException {
+        Columns c = new Columns(results);
+        int id = c.find("User_ID");
+        int name = c.find("User_Name");
+        int password = c.find("Password");
+        int createDate = c.find("Create_Date");
+        int createdBy = c.find("Created_By");
+        int lastUpdate = c.find("Last_Update");
+        int lastUpdatedBy = c.find("Last_Updated_By");
+
+        return r -> new User(intAt(r, id), stringAt(r, name), stringAt(r, password), timestampAt(r, createDate), stringAt(r, createdBy), timestampAt(r, lastUpdate), stringAt(r, lastUpdatedBy));
+    }
+
+
+    /**
+     * @param results The result set of a country query
+     * @return A mapper for the countries of the result set
+     * @throws SQLException If the metadata of the result set could not be read
+     */
+    static RowMapper<Country> countries(ResultSet results) throws SQLException {
+        Columns c = new Columns(results);
+        int id = c.find("Country_ID");
+        int name = c.find("Country");
+        int createDate = c.find("Create_Date");
+        int createdBy = c.find("Created_By");
+        int lastUpdate = c.find("Last_Update");
+        int lastUpdatedBy = c.find("Last_Updated_By");
+
+        return r -> new Country(intAt(r, id), stringAt(r, name), timestampAt(r, createDate), stringAt(r, createdBy), timestampAt(r, lastUpdate), stringAt(r, lastUpdatedBy));
+    }
+
+
+    /**
+     * @param results The result set of a first level division query
+     * @return A mapper for the divisions of the result set
+     * @throws SQLException If the metadata of the result set could not be read
+     */
+    static RowMapper<FirstLevelDivision> divisions(ResultSet results) throws SQLException {
+        Columns c = new Columns(results);
+        int id = c.find("Division_ID");
+        int name = c.find("Division");
+        int createDate = c.find("Create_Date");
+        int createdBy = c.find("Created_By");
+        int lastUpdate = c.find("Last_Update");
+        int lastUpdatedBy = c.find("Last_Updated_By");
+        int countryId = c.find("Country_ID");
+
+        return r -> new FirstLevelDivision(intAt(r, id), stringAt(r, name), timestampAt(r, createDate), stringAt(r, createdBy), timestampAt(r, lastUpdate), stringAt(r, lastUpdatedBy), intAt(r, countryId));
+    }
+
+
+    /**
+     * @param results The result set of a contact query
+     * @return A mapper for the contacts of the result set
+     * @throws SQLException If the metadata of the result set could not be read
+     */
+    static RowMapper<Contact> contacts(ResultSet results) throws SQLException {
+        Columns c = new Columns(results);
+        int id = c.find("Contact_ID");
+        int name = c.find("Contact_Name");
+        int email = c.find("Email");
+
+        return r -> new Contact(intAt(r, id), stringAt(r, name), stringAt(r, email));
+    }
+
+
+    private static int intAt(ResultSet results, int column) throws SQLException {
+        return column == 0 ? 0 : results.getInt(column);
+    }
+
+    private static String stringAt(ResultSet results, int column) throws SQLException {
+        return column == 0 ? null : results.getString(column);
+    }
+
+    private static Timestamp timestampAt(ResultSet results, int column) throws SQLException {
+        return column == 0 ? null : results.getTimestamp(column);
+    }
+
+
+    /**
+     * The column indices of a result set by label, read once from its metadata.
+     */
+    private static final class Columns {
+
+        private final Map<String, Integer> byLabel = new HashMap<>();
+
+        private Columns(ResultSet results) throws SQLException {
+            ResultSetMetaData meta = results.getMetaData();
+            for (int i = meta.getColumnCount(); i >= 1; i--) {
+                // Walked backwards so the first column with a label wins
+                byLabel.put(meta.getColumnLabel(i).toLowerCase(Locale.ROOT), i);
+            }
+        }
+
+        /**
+         * @param label The column label
+         * @return the 1-based index of the column, or 0 if the result set does not have it
+         */
+        private int find(String label) {
+            return byLabel.getOrDefault(label.toLowerCase(Locale.ROOT), 0);
+        }
+    }
+}
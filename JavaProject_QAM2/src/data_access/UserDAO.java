@@ -6,10 +6,16 @@ import javafx.collections.ObservableList;
 import model.GetAllInterface;
 import model.User;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * Class for accessing the SQL database for User information.
@@ -23,6 +29,10 @@ import java.sql.Timestamp;
  */
 public class UserDAO {
 
+    private static final long lookupTtlMillis = Long.getLong("login.lookupTtlMillis", 5_000L);
+    private static final int lookupCacheSize = Integer.getInteger("login.lookupCacheSize", 1024);
+    private static final ConcurrentHashMap<String, Lookup> lookups = new ConcurrentHashMap<>();
+
 
     /**
      * <h3>Lambda Use #1:</h3>
@@ -35,23 +45,12 @@ public class UserDAO {
     {
         ObservableList<User> userList = FXCollections.observableArrayList();
 
-        try {
-            String query = "SELECT * from users";
-            PreparedStatement ps = JDBC.getConnection().prepareStatement(query);
-            ResultSet results = ps.executeQuery();
-
-            while (results.next()) {
-                int userId = results.getInt("User_ID");
-                String userName = results.getString("User_Name");
-                String userPassword = results.getString("Password");
-                Timestamp userCreatedDate = results.getTimestamp("Create_Date");
-                String userCreatedBy = results.getString("Created_By");
-                Timestamp userUpdatedDate = results.getTimestamp("Last_Update");
-                String userUpdatedBy = results.getString("Last_Updated_By");
-
-                User u = new User(userId, userName, userPassword, userCreatedDate, userCreatedBy, userUpdatedDate, userUpdatedBy);
-                userList.add(u);
-            }
+        String query = "SELECT * from users";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
+
+            RowMappers.readAll(results, RowMappers::users, userList);
 
         } catch (SQLException e) {
             e.printStackTrace();
@@ -60,4 +59,172 @@ public class UserDAO {
     };
 
 
-}
\ No newline at end of file
+    /**
+     * Method for grabbing all the users, with only the columns a screen needs.
+     *
+     * <p>
+     * Instead of <i>SELECT *</i>, only the columns of the given fields are selected and read, the other fields of
+     * the user objects are left null (or 0). Screens that only list users should leave out <i>UserField.PASSWORD</i>.
+     * </p>
+     *
+     * @param fields The fields the screen needs
+     * @return The list of users, with only the given fields set
+     * @throws IllegalArgumentException If no fields are given
+     * @see UserField
+     */
+    public static ObservableList<User> getUsers(Set<UserField> fields) {
+        if (fields.isEmpty()) {
+            throw new IllegalArgumentException("No user fields asked for");
+        }
+        Set<UserField> f = EnumSet.copyOf(fields);
+
+        ObservableList<User> userList = FXCollections.observableArrayList();
+
+        String query = "SELECT " + f.stream().map(UserField::column).collect(Collectors.joining(", ")) + " FROM users";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query);
+             ResultSet results = ps.executeQuery()) {
+
+            RowMappers.readAll(results, RowMappers::users, userList);
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return userList;
+    }
+
+
+    /**
+     * Method for finding the one user with a user name, for logging in.
+     *
+     * <p>
+     * Only the row of the user name is read, through the <i>UNIQUE</i> key the schema puts on <i>User_Name</i>,
+     * instead of the whole users table. The answer is kept for a few seconds (the <i>login.lookupTtlMillis</i> system
+     * property, 5 seconds by default), whether a user was found or not, so repeated attempts with the same name do
+     * not go back to the database. A failed query is not kept.
+     * </p>
+     * <p>
+     * mySQL compares <i>User_Name</i> with the column's collation, which by default ignores case and trailing spaces,
+     * so the row found is only taken if its user name is exactly the one entered, like the old <i>String.equals</i>
+     * check: "ADMIN" or "admin " do not log in as "admin".
+     * </p>
+     *
+     * @param userName The user name entered
+     * @return The user with its ID, name and password, or null if there is no such user or the query failed
+     */
+    public static User findByUserName(String userName) {
+        if (userName == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        Lookup cached = lookups.get(userName);
+        if (cached != null && cached.expires > now) {
+            return cached.user;
+        }
+
+        String query = "SELECT User_ID, User_Name, Password FROM users WHERE User_Name = ?";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setString(1, userName);
+
+            User user = null;
+            try (ResultSet results = ps.executeQuery()) {
+                if (results.next()) {
+                    user = RowMappers.users(results).map(results);
+                    if (!user.getUserName().equals(userName)) {
+                        user = null;
+                    }
+                }
+            }
+            if (lookups.size() >= lookupCacheSize) {
+                lookups.values().removeIf(l -> l.expires <= now);
+                if (lookups.size() >= lookupCacheSize) {
+                    lookups.clear();
+                }
+            }
+            lookups.put(userName, new Lookup(user, now + lookupTtlMillis));
+            return user;
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+
+    /**
+     * Method for storing a new password for a user, for upgrading a plain text password to a hash.
+     *
+     * <p>
+     * The row is only updated if it still has the password the user object was read with, so a password changed in
+     * the meantime is not overwritten. The cached lookup of the user name is dropped either way.
+     * </p>
+     *
+     * @param user     The user, as read by <i>findByUserName</i>
+     * @param password The new password, as it is to be stored
+     * @return The number of rows updated, 0 if the password had changed or the query failed
+     */
+    public static int updatePassword(User user, String password) {
+        Timestamp time = new Timestamp(System.currentTimeMillis());
+
+        String query = "UPDATE users SET Password = ?, Last_Update = ?, Last_Updated_By = ? WHERE User_ID = ? AND Password = ?";
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query)) {
+            ps.setString(1, password);
+            ps.setTimestamp(2, time);
+            ps.setString(3, user.getUserName());
+            ps.setInt(4, user.getUserId());
+            ps.setString(5, user.getUserPassword());
+
+            return ps.executeUpdate();
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        } finally {
+            evictUserName(user.getUserName());
+        }
+        return 0;
+    }
+
+
+    /**
+     * Method that forgets the cached lookup of a user name, for when the user row is changed.
+     *
+     * @param userName The user name
+     */
+    public static void evictUserName(String userName) {
+        if (userName != null) {
+            lookups.remove(userName);
+        }
+    }
+
+
+    /**
+     * Asynchronous version of <i>getAllUsers</i>.
+     *
+     * <p>
+     * Runs the query on a background thread so the JavaFX Application Thread is not blocked.
+     * </p>
+     *
+     * @return A future of the list of users
+     * @see AsyncDAO
+     */
+    public static CompletableFuture<ObservableList<User>> getAllUsersAsync() {
+        return AsyncDAO.supply(getAllUsers::getAll);
+    }
+
+
+    /**
+     * A cached answer of <i>findByUserName</i>, null when there was no such user.
+     */
+    private static final class Lookup {
+
+        private final User user;
+        private final long expires;
+
+        private Lookup(User user, long expires) {
+            this.user = user;
+            this.expires = expires;
+        }
+    }
+}
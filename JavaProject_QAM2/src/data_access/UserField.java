@@ -0,0 +1,36 @@
+package data_access;
+
+/**
+ * Enum for the user columns a screen can ask <i>UserDAO.getUsers</i> for.
+ *
+ * <p>
+ * Only the columns asked for are selected and set on the <i>User</i> objects, the rest are left null (or 0). Screens
+ * that only list users should leave out <i>PASSWORD</i>, so the passwords are not read or kept in memory.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see UserDAO#getUsers(java.util.Set)
+ */
+public enum UserField {
+    ID("User_ID"),
+    NAME("User_Name"),
+    PASSWORD("Password"),
+    CREATE_DATE("Create_Date"),
+    CREATED_BY("Created_By"),
+    LAST_UPDATE("Last_Update"),
+    LAST_UPDATED_BY("Last_Updated_By");
+
+    private final String column;
+
+    UserField(String column) {
+        this.column = column;
+    }
+
+    /**
+     * @return the column used in the SELECT list and read from the result set
+     */
+    String column() {
+        return column;
+    }
+}
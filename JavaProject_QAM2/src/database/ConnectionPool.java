@@ -0,0 +1,391 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class for pooling the mySQL database connections.
+ *
+ * <p>
+ * This class keeps a bounded set of physical connections open and lends them out to the DAO classes. A borrowed
+ * connection is handed out as a proxy, calling <i>close()</i> on it gives the connection back to the pool instead of
+ * closing it.
+ * </p>
+ * <p>
+ * The pool also takes care of the following:
+ *     <ul>
+ *         <li>Validating a connection before it is lent out, so a dead connection is replaced instead of used.</li>
+ *         <li>Evicting connections that sat idle too long, while keeping the minimum size open.</li>
+ *         <li>Recycling connections once they reach their max lifetime.</li>
+ *         <li>Reporting connections that were borrowed and never given back (leak detection).</li>
+ *         <li>Keeping a cache of prepared statements per connection, see <i>StatementCache</i>.</li>
+ *     </ul>
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see JDBC
+ * @see StatementCache
+ */
+public final class ConnectionPool {
+
+    private final String jdbcUrl;
+    private final String userName;
+    private final String password;
+    private final int minSize;
+    private final int maxSize;
+    private final long borrowTimeoutMillis;
+    private final int validationTimeoutSeconds;
+    private final long idleTimeoutMillis;
+    private final long maxLifetimeMillis;
+    private final long leakThresholdMillis;
+    private final int statementCacheSize;
+
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger totalCount = new AtomicInteger();
+    private final Semaphore permits;
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+
+
+    /**
+     * Base constructor for the ConnectionPool class.
+     *
+     * @param jdbcUrl                  The url of the database
+     * @param userName                 The database username
+     * @param password                 The database password
+     * @param minSize                  The number of connections kept open even when idle
+     * @param maxSize                  The max number of connections open at once
+     * @param borrowTimeoutMillis      How long a caller waits for a free connection before failing
+     * @param validationTimeoutSeconds How long the validation check on borrow may take
+     * @param idleTimeoutMillis        How long a connection above the minimum may sit idle before it is closed
+     * @param maxLifetimeMillis        How long a physical connection lives before it is recycled
+     * @param leakThresholdMillis      How long a connection may be borrowed before it is reported as a leak
+     * @param statementCacheSize       The max number of prepared statements cached per connection
+     */
+    public ConnectionPool(String jdbcUrl, String userName, String password, int minSize, int maxSize, long borrowTimeoutMillis, int validationTimeoutSeconds, long idleTimeoutMillis, long maxLifetimeMillis, long leakThresholdMillis, int statementCacheSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min " + minSize + ", max " + maxSize);
+        }
+        this.jdbcUrl = jdbcUrl;
+        this.userName = userName;
+        this.password = password;
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.maxLifetimeMillis = maxLifetimeMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, Math.min(idleTimeoutMillis, leakThresholdMillis) / 2);
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, period, period, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     * Method that opens connections until the pool holds its minimum size.
+     *
+     * @throws SQLException If a connection could not be opened
+     */
+    public void fill() throws SQLException {
+        while (!closed) {
+            int total = totalCount.get();
+            if (total >= minSize) {
+                return;
+            }
+            if (totalCount.compareAndSet(total, total + 1)) {
+                try {
+                    idle.offerLast(new PooledConnection(DriverManager.getConnection(jdbcUrl, userName, password)));
+                } catch (SQLException e) {
+                    totalCount.decrementAndGet();
+                    throw e;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Method that lends a connection out of the pool.
+     *
+     * <p>
+     * The returned connection must be closed by the caller (preferably with a try-with-resources block), which
+     * gives it back to the pool.
+     * </p>
+     *
+     * @return A validated connection
+     * @throws SQLException If no connection became free in time or a new connection could not be opened
+     */
+    public Connection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("The connection pool is closed");
+        }
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeoutMillis + "ms waiting for a database connection (max " + maxSize + ")");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pc;
+            while ((pc = idle.pollFirst()) != null) {
+                if (pc.isExpired() || !pc.isUsable()) {
+                    discard(pc);
+                } else {
+                    break;
+                }
+            }
+            if (pc == null) {
+                totalCount.incrementAndGet();
+                try {
+                    pc = new PooledConnection(DriverManager.getConnection(jdbcUrl, userName, password));
+                } catch (SQLException e) {
+                    totalCount.decrementAndGet();
+                    throw e;
+                }
+            }
+            pc.lend();
+            borrowed.add(pc);
+            return pc.proxy;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+
+    /**
+     * Method that takes a connection back from a borrower.
+     *
+     * @param pc The pooled connection being given back
+     */
+    private void giveBack(PooledConnection pc) {
+        if (!borrowed.remove(pc)) {
+            return;
+        }
+        try {
+            if (closed || pc.isExpired() || !pc.reset()) {
+                discard(pc);
+            } else {
+                idle.offerFirst(pc);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+
+    /**
+     * Method that physically closes a pooled connection and removes it from the pool count.
+     *
+     * @param pc The pooled connection to close
+     */
+    private void discard(PooledConnection pc) {
+        totalCount.decrementAndGet();
+        pc.statements.closeAll();
+        try {
+            pc.physical.close();
+        } catch (SQLException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+
+    /**
+     * The periodic maintenance task of the pool.
+     *
+     * <p>
+     * Closes idle connections past the idle timeout (down to the minimum size), recycles connections past their
+     * lifetime, reports leaked connections and tops the pool back up to its minimum size.
+     * </p>
+     */
+    private void houseKeep() {
+        long now = System.currentTimeMillis();
+
+        for (PooledConnection pc : idle) {
+            boolean idleTooLong = now - pc.lastUsed > idleTimeoutMillis && totalCount.get() > minSize;
+            if ((idleTooLong || pc.isExpired()) && idle.remove(pc)) {
+                discard(pc);
+            }
+        }
+
+        for (PooledConnection pc : borrowed) {
+            if (!pc.leakReported && now - pc.borrowedAt > leakThresholdMillis) {
+                pc.leakReported = true;
+                System.out.println("Warning: database connection borrowed " + (now - pc.borrowedAt) + "ms ago was not returned to the pool. Borrowed at:");
+                pc.borrowSite.printStackTrace(System.out);
+            }
+        }
+
+        try {
+            fill();
+        } catch (SQLException e) {
+            System.out.println("Error:" + e.getMessage());
+        }
+    }
+
+
+    /**
+     * Method that closes the pool and every idle connection in it.
+     *
+     * <p>
+     * Connections that are still borrowed are closed as soon as they are given back.
+     * </p>
+     */
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            discard(pc);
+        }
+    }
+
+
+    /**
+     * @return the number of physical connections the pool currently holds
+     */
+    public int getTotalCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * @return the number of connections currently lent out
+     */
+    public int getBorrowedCount() {
+        return borrowed.size();
+    }
+
+    /**
+     * @return the number of connections waiting in the pool
+     */
+    public int getIdleCount() {
+        return idle.size();
+    }
+
+
+    /**
+     * A physical connection and the bookkeeping the pool keeps on it.
+     */
+    private final class PooledConnection implements InvocationHandler {
+
+        private final Connection physical;
+        private final Connection proxy;
+        private final StatementCache statements;
+        private final long createdAt = System.currentTimeMillis();
+        private volatile long lastUsed = createdAt;
+        private volatile long borrowedAt;
+        private volatile Throwable borrowSite;
+        private volatile boolean leakReported;
+        private volatile boolean lent;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.proxy = (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(), new Class<?>[]{Connection.class}, this);
+            this.statements = new StatementCache(physical, proxy, statementCacheSize);
+        }
+
+        private void lend() {
+            borrowedAt = System.currentTimeMillis();
+            borrowSite = new Throwable("Connection borrowed by " + Thread.currentThread().getName());
+            leakReported = false;
+            lent = true;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() - createdAt > maxLifetimeMillis;
+        }
+
+        private boolean isUsable() {
+            try {
+                return physical.isValid(validationTimeoutSeconds);
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Puts the connection back into the state a new borrower expects.
+         *
+         * @return false if the connection could not be reset and should be discarded
+         */
+        private boolean reset() {
+            try {
+                if (physical.isClosed()) {
+                    return false;
+                }
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                lastUsed = System.currentTimeMillis();
+                return true;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (lent) {
+                        lent = false;
+                        giveBack(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return !lent || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + physical;
+                default:
+                    if (!lent) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+                    if (method.getName().equals("prepareStatement")) {
+                        if (args.length == 1) {
+                            return statements.prepare((String) args[0], Statement.NO_GENERATED_KEYS);
+                        }
+                        if (args.length == 2 && args[1] instanceof Integer) {
+                            return statements.prepare((String) args[0], (Integer) args[1]);
+                        }
+                    }
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -1,8 +1,7 @@
-
 package database;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.SQLException;
 
 /*
     Database Location File
@@ -12,64 +11,106 @@ import java.sql.DriverManager;
  * The JDBC class.
  * <p>
  * This class is solely responsible for the opening, maintaining, and closing
- * of the database connection.
+ * of the database connection pool.
  */
 public abstract class JDBC {
     private static final String protocol = "jdbc";
     private static final String vendor = ":mysql:";
     private static final String location = "//localhost/";
     private static final String databaseName = "client_schedule";
-    private static final String jdbcUrl = protocol + vendor + location + databaseName + "?connectionTimeZone = SERVER"; // LOCAL
+    private static final String jdbcUrl = protocol + vendor + location + databaseName + "?connectionTimeZone = SERVER&useServerPrepStmts=true&rewriteBatchedStatements=true"; // LOCAL
     private static final String driver = "com.mysql.cj.jdbc.Driver"; // Driver reference
     private static final String userName = "sqlUser"; // Username
     private static final String password = "Passw0rd!"; // Password
 
+    // Pool settings, each can be overridden with a -D system property.
+    private static final int poolMinSize = Integer.getInteger("db.pool.minSize", 2);
+    private static final int poolMaxSize = Integer.getInteger("db.pool.maxSize", 10);
+    private static final long poolBorrowTimeout = Long.getLong("db.pool.borrowTimeoutMillis", 10_000L);
+    private static final int poolValidationTimeout = Integer.getInteger("db.pool.validationTimeoutSeconds", 2);
+    private static final long poolIdleTimeout = Long.getLong("db.pool.idleTimeoutMillis", 300_000L);
+    private static final long poolMaxLifetime = Long.getLong("db.pool.maxLifetimeMillis", 1_800_000L);
+    private static final long poolLeakThreshold = Long.getLong("db.pool.leakThresholdMillis", 60_000L);
+    private static final int statementCacheSize = Integer.getInteger("db.statementCache.size", 64);
+
     /**
-     * mySQL connection variable.
-     * <p>The declaration of the connection variable used for connection controls of the mySQL database.</p>
+     * mySQL connection pool variable.
+     * <p>The declaration of the pool that every DAO borrows its connections from.</p>
      */
-    public static Connection connection;  // Connection Interface
+    private static volatile ConnectionPool pool;
 
     /**
      * Database connection open method.
-     * <p>This method takes the connection variables above and opens the connection to the mySQL database.</p>
+     * <p>This method takes the connection variables above and opens the connection pool to the mySQL database.</p>
      */
-    public static void openConnection()
+    public static synchronized void openConnection()
     {
+        if (pool != null) {
+            return;
+        }
         try {
             Class.forName(driver); // Locate Driver
-            connection = DriverManager.getConnection(jdbcUrl, userName, password); // Reference Connection object
-            System.out.println("Connection successful!");
+            pool = new ConnectionPool(jdbcUrl, userName, password, poolMinSize, poolMaxSize, poolBorrowTimeout, poolValidationTimeout, poolIdleTimeout, poolMaxLifetime, poolLeakThreshold, statementCacheSize);
+            pool.fill(); // Open the minimum connections
+            System.err.println("Connection successful!"); // standard out is kept for the reports of HeadlessMain
         }
         catch(Exception e)
         {
-            System.out.println("Error:" + e.getMessage());
+            System.err.println("Error:" + e.getMessage());
         }
     }
 
 
     /**
-     * Method that get the open database connection.
-     * <p>This method is tasked with accessing the open mySQL database connection once opened.</p>
+     * Method that borrows a database connection from the pool.
+     * <p>This method lends out a pooled mySQL connection, opening the pool first if it is not open yet. The caller
+     * must close the connection (preferably with a try-with-resources block) to give it back to the pool.</p>
      *
      * @return The sql connection
+     * @throws SQLException If no connection could be borrowed
+     */
+    public static Connection getConnection() throws SQLException {
+        ConnectionPool p = pool;
+        if (p == null) {
+            openConnection();
+            p = pool;
+            if (p == null) {
+                throw new SQLException("The database connection pool could not be opened");
+            }
+        }
+        return p.borrow();
+    }
+
+    /**
+     * @return the number of times a DAO reused an already prepared statement
+     */
+    public static long getStatementCacheHits() {
+        return StatementCache.getHitCount();
+    }
+
+    /**
+     * @return the number of times a DAO statement had to be prepared
      */
-    public static Connection getConnection() {
-        return connection;
+    public static long getStatementCacheMisses() {
+        return StatementCache.getMissCount();
     }
 
     /**
-     * Method that closes the database connection.
-     * <p>This method closes the open mySQL database connection so that the connection does not remain open.</p>
+     * Method that closes the database connection pool.
+     * <p>This method closes the open mySQL database connections so that the connections do not remain open. Nothing
+     * is done, or printed, if the pool was never opened.</p>
      */
-    public static void closeConnection() {
+    public static synchronized void closeConnection() {
         try {
-            connection.close();
-            System.out.println("Connection closed!");
+            if (pool != null) {
+                pool.close();
+                pool = null;
+                System.err.println("Connection closed!");
+            }
         }
         catch(Exception e)
         {
-            System.out.println("Error:" + e.getMessage());
+            System.err.println("Error:" + e.getMessage());
         }
     }
 }
@@ -0,0 +1,225 @@
+package database;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class for caching the prepared statements of one pooled connection.
+ *
+ * <p>
+ * The cache is keyed by the SQL text of the statement. When a DAO prepares a query it has prepared before on the
+ * same connection, the already prepared handle is handed out again instead of going back to the server. Closing the
+ * handed out statement only clears its parameters and gives it back to the cache.
+ * </p>
+ * <p>
+ * The cache holds at most <i>maxSize</i> statements, the least recently used statement is closed when a new one
+ * does not fit. All of the cached statements are closed together with their connection.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see ConnectionPool
+ */
+public final class StatementCache {
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    private final Connection physical;
+    private final Connection owner;
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+
+    /**
+     * Base constructor for the StatementCache class.
+     *
+     * @param physical The physical connection the statements are prepared on
+     * @param owner    The pooled connection handed out to the DAOs, returned by <i>getConnection()</i>
+     * @param maxSize  The max number of statements kept prepared
+     */
+    StatementCache(Connection physical, Connection owner, int maxSize) {
+        this.physical = physical;
+        this.owner = owner;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() > maxSize) {
+                    evictions.incrementAndGet();
+                    eldest.getValue().evict();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+
+    /**
+     * Method that hands out a prepared statement for the given SQL, preparing it only if it is not cached.
+     *
+     * <p>
+     * If the cached statement for the SQL is still in use (the same query is open twice on one connection), a
+     * separate uncached statement is prepared so the two do not share parameters.
+     * </p>
+     *
+     * @param sql               The SQL text of the statement
+     * @param autoGeneratedKeys Either <i>Statement.RETURN_GENERATED_KEYS</i> or <i>Statement.NO_GENERATED_KEYS</i>
+     * @return The prepared statement
+     * @throws SQLException If the statement could not be prepared
+     */
+    synchronized PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = autoGeneratedKeys == Statement.NO_GENERATED_KEYS ? sql : autoGeneratedKeys + ":" + sql;
+        CachedStatement cached = statements.get(key);
+
+        if (cached != null && !cached.inUse) {
+            hits.incrementAndGet();
+            cached.inUse = true;
+            return cached.proxy;
+        }
+
+        misses.incrementAndGet();
+        CachedStatement fresh = new CachedStatement(physical.prepareStatement(sql, autoGeneratedKeys));
+        fresh.inUse = true;
+        if (cached == null) {
+            statements.put(key, fresh);
+        } else {
+            fresh.evicted = true;
+        }
+        return fresh.proxy;
+    }
+
+
+    /**
+     * Method that closes every cached statement. Called before the physical connection is closed.
+     */
+    synchronized void closeAll() {
+        Iterator<CachedStatement> it = statements.values().iterator();
+        while (it.hasNext()) {
+            it.next().evict();
+            it.remove();
+        }
+    }
+
+
+    /**
+     * @return the number of statements currently cached on this connection
+     */
+    synchronized int size() {
+        return statements.size();
+    }
+
+    /**
+     * @return the number of times a prepared statement was reused, across every pooled connection
+     */
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of times a statement had to be prepared, across every pooled connection
+     */
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of statements closed to make room for another, across every pooled connection
+     */
+    public static long getEvictionCount() {
+        return evictions.get();
+    }
+
+
+    /**
+     * A prepared statement owned by the cache and the proxy handed out for it.
+     */
+    private final class CachedStatement implements InvocationHandler {
+
+        private final PreparedStatement statement;
+        private final PreparedStatement proxy;
+        private boolean inUse;
+        private boolean evicted;
+
+        private CachedStatement(PreparedStatement statement) {
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(StatementCache.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        /**
+         * Drops the statement from the cache, it is closed now or as soon as its user gives it back.
+         */
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        private void release() {
+            synchronized (StatementCache.this) {
+                if (!inUse) {
+                    return;
+                }
+                inUse = false;
+                if (evicted) {
+                    closeQuietly();
+                    return;
+                }
+                try {
+                    statement.clearParameters();
+                    statement.clearBatch();
+                } catch (SQLException e) {
+                    statements.values().remove(this);
+                    closeQuietly();
+                }
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                System.out.println("Error:" + e.getMessage());
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    release();
+                    return null;
+                case "isClosed":
+                    return !inUse || statement.isClosed();
+                case "getConnection":
+                    return owner;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Cached" + statement;
+                default:
+                    if (!inUse) {
+                        throw new SQLException("Statement has already been closed");
+                    }
+                    try {
+                        return method.invoke(statement, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
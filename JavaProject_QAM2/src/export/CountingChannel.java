@@ -0,0 +1,45 @@
+package export;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Class for a channel that counts the bytes written through it into another channel.
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+final class CountingChannel implements WritableByteChannel {
+
+    private final WritableByteChannel target;
+    private long count;
+
+    CountingChannel(WritableByteChannel target) {
+        this.target = target;
+    }
+
+    /**
+     * @return the number of bytes written so far
+     */
+    long count() {
+        return count;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        int n = target.write(src);
+        count += n;
+        return n;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return target.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        target.close();
+    }
+}
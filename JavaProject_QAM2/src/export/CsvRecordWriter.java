@@ -0,0 +1,87 @@
+package export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Class for writing export rows as RFC 4180 CSV.
+ *
+ * <p>
+ * Values with a comma, a quote or a line break are quoted, quotes inside them are doubled. Null is written as an
+ * empty value.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+final class CsvRecordWriter extends RecordWriter {
+
+    CsvRecordWriter(Writer out, String[] columns) {
+        super(out, columns);
+    }
+
+    @Override
+    void begin() throws IOException {
+        for (int i = 0; i < columns.length; i++) {
+            text(i, columns[i]);
+        }
+        endRow();
+    }
+
+    @Override
+    void beginRow() {
+    }
+
+    @Override
+    void text(int column, String value) throws IOException {
+        if (column > 0) {
+            out.write(',');
+        }
+        if (value == null) {
+            return;
+        }
+        if (!needsQuotes(value)) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    @Override
+    void number(int column, String value) throws IOException {
+        if (column > 0) {
+            out.write(',');
+        }
+        if (value != null) {
+            out.write(value);
+        }
+    }
+
+    @Override
+    void endRow() throws IOException {
+        out.write("\r\n");
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
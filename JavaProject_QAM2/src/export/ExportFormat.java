@@ -0,0 +1,45 @@
+package export;
+
+import java.io.Writer;
+
+/**
+ * Enum for the file formats an export can be written in.
+ *
+ * <p>
+ *     <ul>
+ *         <li><i>CSV</i> is RFC 4180 CSV with a header line of column names.</li>
+ *         <li><i>JSON</i> is one JSON array with an object per row, keyed by column name.</li>
+ *     </ul>
+ * Date/times are written as ISO-8601 UTC instants in both formats.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see Exporter
+ */
+public enum ExportFormat {
+    CSV("csv"),
+    JSON("json");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * @return the file extension of the format, without the dot
+     */
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * @param out     Where to write the rows
+     * @param columns The column names
+     * @return A record writer for the format
+     */
+    RecordWriter writer(Writer out, String[] columns) {
+        return this == CSV ? new CsvRecordWriter(out, columns) : new JsonRecordWriter(out, columns);
+    }
+}
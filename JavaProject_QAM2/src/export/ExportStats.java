@@ -0,0 +1,76 @@
+package export;
+
+import java.util.Locale;
+
+/**
+ * Class for what one export wrote and how long it took.
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see Exporter
+ */
+public final class ExportStats {
+
+    private final String name;
+    private final long rows;
+    private final long bytesWritten;
+    private final long uncompressedBytes;
+    private final long nanos;
+
+    ExportStats(String name, long rows, long bytesWritten, long uncompressedBytes, long nanos) {
+        this.name = name;
+        this.rows = rows;
+        this.bytesWritten = bytesWritten;
+        this.uncompressedBytes = uncompressedBytes;
+        this.nanos = nanos;
+    }
+
+    /**
+     * @return the name of the file written
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the number of rows written, not counting a CSV header
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * @return the size of the file written, in bytes
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * @return the size of the export before gzip, in bytes; the same as <i>getBytesWritten</i> without gzip
+     */
+    public long getUncompressedBytes() {
+        return uncompressedBytes;
+    }
+
+    /**
+     * @return the time from running the query to the file being in place, in milliseconds
+     */
+    public long getMillis() {
+        return nanos / 1_000_000;
+    }
+
+    /**
+     * @return the rows written per second
+     */
+    public double getRowsPerSecond() {
+        return nanos == 0 ? 0 : rows * 1e9 / nanos;
+    }
+
+    @Override
+    public String toString() {
+        String s = String.format(Locale.ROOT, "%s: %d rows in %d ms (%.0f rows/s), %d bytes written", name, rows,
+                getMillis(), getRowsPerSecond(), bytesWritten);
+        return uncompressedBytes == bytesWritten ? s : s + " (" + uncompressedBytes + " before gzip)";
+    }
+}
@@ -0,0 +1,297 @@
+package export;
+
+import database.JDBC;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Class for exporting the appointment book and the reports to files for other systems.
+ *
+ * <p>
+ * Every export streams its query straight to the file, so memory use is the same for ten rows or ten million:
+ *     <ul>
+ *         <li>The query runs on a forward only, read only statement with a fetch size of <i>Integer.MIN_VALUE</i>,
+ *         which makes the MySQL driver hand the rows over one at a time instead of reading the whole result into
+ *         memory. Set <i>-Dexport.fetchSize</i> to a positive number to fetch in batches instead.</li>
+ *         <li>Each row is written value by value through a buffered writer on the file channel, with gzip in between
+ *         when asked for. No row or list of rows is kept.</li>
+ *         <li>The file is written next to the target as <i>name.part</i> and moved into place once it is complete, so
+ *         a reader never picks up half an export.</li>
+ *     </ul>
+ * </p>
+ * <p>
+ * The streaming statements are not taken from the statement cache of the connection pool (only the one and two
+ * argument <i>prepareStatement</i> calls are cached), so the fetch size never leaks into the DAO queries.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see ExportFormat
+ * @see ExportStats
+ */
+public final class Exporter {
+
+    private static final int fetchSize = Integer.getInteger("export.fetchSize", Integer.MIN_VALUE);
+    private static final int bufferSize = 64 * 1024;
+
+    private static final int TEXT = 0;
+    private static final int NUMBER = 1;
+    private static final int TIMESTAMP = 2;
+
+    private static final String appointmentsQuery = "SELECT appointments.Appointment_ID, appointments.Title, appointments.Description, " +
+            "appointments.Location, appointments.Type, appointments.Start, appointments.End, appointments.Customer_ID, " +
+            "appointments.User_ID, appointments.Contact_ID, contacts.Contact_Name, appointments.Create_Date, " +
+            "appointments.Created_By, appointments.Last_Update, appointments.Last_Updated_By " +
+            "FROM appointments LEFT JOIN contacts ON appointments.Contact_ID = contacts.Contact_ID " +
+            "ORDER BY appointments.Appointment_ID";
+
+    private static final String monthTypeQuery = "SELECT YEAR(Start) AS Year, MONTH(Start) AS Month, Type, COUNT(*) AS Appointments " +
+            "FROM appointments GROUP BY YEAR(Start), MONTH(Start), Type ORDER BY Year, Month, Type";
+
+    private static final String contactScheduleQuery = "SELECT contacts.Contact_ID, contacts.Contact_Name, appointments.Appointment_ID, " +
+            "appointments.Title, appointments.Type, appointments.Description, appointments.Start, appointments.End, " +
+            "appointments.Customer_ID FROM appointments JOIN contacts ON appointments.Contact_ID = contacts.Contact_ID " +
+            "ORDER BY contacts.Contact_ID, appointments.Start";
+
+    private static final String userScheduleQuery = "SELECT users.User_ID, users.User_Name, appointments.Appointment_ID, " +
+            "appointments.Title, appointments.Type, appointments.Description, appointments.Start, appointments.End, " +
+            "appointments.Customer_ID FROM appointments JOIN users ON appointments.User_ID = users.User_ID " +
+            "ORDER BY users.User_ID, appointments.Start";
+
+
+    private Exporter() {
+    }
+
+
+    /**
+     * Method that exports every appointment, with the name of its contact.
+     *
+     * @param file   The file to write
+     * @param format The format to write
+     * @param gzip   True to gzip the file
+     * @return What was written
+     * @throws IOException  If the file could not be written
+     * @throws SQLException If the appointments could not be read
+     */
+    public static ExportStats exportAppointments(Path file, ExportFormat format, boolean gzip) throws IOException, SQLException {
+        return export(appointmentsQuery, file, format, gzip);
+    }
+
+
+    /**
+     * Method that exports the appointment counts by month and type, for every year.
+     *
+     * @param file   The file to write
+     * @param format The format to write
+     * @param gzip   True to gzip the file
+     * @return What was written
+     * @throws IOException  If the file could not be written
+     * @throws SQLException If the appointments could not be read
+     */
+    public static ExportStats exportMonthTypeCounts(Path file, ExportFormat format, boolean gzip) throws IOException, SQLException {
+        return export(monthTypeQuery, file, format, gzip);
+    }
+
+
+    /**
+     * Method that exports the schedule of every contact, in start time order.
+     *
+     * @param file   The file to write
+     * @param format The format to write
+     * @param gzip   True to gzip the file
+     * @return What was written
+     * @throws IOException  If the file could not be written
+     * @throws SQLException If the appointments could not be read
+     */
+    public static ExportStats exportContactSchedules(Path file, ExportFormat format, boolean gzip) throws IOException, SQLException {
+        return export(contactScheduleQuery, file, format, gzip);
+    }
+
+
+    /**
+     * Method that exports the schedule of every user, in start time order.
+     *
+     * @param file   The file to write
+     * @param format The format to write
+     * @param gzip   True to gzip the file
+     * @return What was written
+     * @throws IOException  If the file could not be written
+     * @throws SQLException If the appointments could not be read
+     */
+    public static ExportStats exportUserSchedules(Path file, ExportFormat format, boolean gzip) throws IOException, SQLException {
+        return export(userScheduleQuery, file, format, gzip);
+    }
+
+
+    /**
+     * Method for the nightly export: the appointment book and every report, one file each, into a directory.
+     *
+     * <p>
+     * The files are named <i>appointments</i>, <i>month_type_counts</i>, <i>contact_schedules</i> and
+     * <i>user_schedules</i>, with the extension of the format and <i>.gz</i> when gzipped.
+     * </p>
+     *
+     * @param directory The directory to write the files to, created if needed
+     * @param format    The format to write
+     * @param gzip      True to gzip the files
+     * @return What was written, one entry per file
+     * @throws IOException  If a file could not be written
+     * @throws SQLException If the appointments could not be read
+     */
+    public static List<ExportStats> exportAll(Path directory, ExportFormat format, boolean gzip) throws IOException, SQLException {
+        Files.createDirectories(directory);
+        List<ExportStats> stats = new ArrayList<>();
+        stats.add(exportAppointments(directory.resolve(fileName("appointments", format, gzip)), format, gzip));
+        stats.add(exportMonthTypeCounts(directory.resolve(fileName("month_type_counts", format, gzip)), format, gzip));
+        stats.add(exportContactSchedules(directory.resolve(fileName("contact_schedules", format, gzip)), format, gzip));
+        stats.add(exportUserSchedules(directory.resolve(fileName("user_schedules", format, gzip)), format, gzip));
+        return stats;
+    }
+
+
+    /**
+     * @param name   The name of the export
+     * @param format The format of the export
+     * @param gzip   True if the export is gzipped
+     * @return the file name for the export
+     */
+    public static String fileName(String name, ExportFormat format, boolean gzip) {
+        return name + "." + format.extension() + (gzip ? ".gz" : "");
+    }
+
+
+    /**
+     * Method that streams the rows of a query into a file.
+     *
+     * @param query  The query to export
+     * @param file   The file to write
+     * @param format The format to write
+     * @param gzip   True to gzip the file
+     * @return What was written
+     * @throws IOException  If the file could not be written
+     * @throws SQLException If the query failed
+     */
+    static ExportStats export(String query, Path file, ExportFormat format, boolean gzip) throws IOException, SQLException {
+        long began = System.nanoTime();
+        Path part = file.resolveSibling(file.getFileName() + ".part");
+        long rows = 0;
+        long uncompressed;
+
+        try (Connection conn = JDBC.getConnection();
+             PreparedStatement ps = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(fetchSize);
+
+            try (ResultSet results = ps.executeQuery()) {
+                ResultSetMetaData meta = results.getMetaData();
+                int count = meta.getColumnCount();
+                String[] columns = new String[count];
+                int[] kinds = new int[count];
+                for (int i = 0; i < count; i++) {
+                    columns[i] = meta.getColumnLabel(i + 1);
+                    kinds[i] = kind(meta.getColumnType(i + 1));
+                }
+
+                CountingChannel channel = new CountingChannel(open(part, gzip));
+                try (RecordWriter writer = format.writer(Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), bufferSize), columns)) {
+                    writer.begin();
+                    while (results.next()) {
+                        writer.beginRow();
+                        for (int i = 0; i < count; i++) {
+                            write(writer, results, i, kinds[i]);
+                        }
+                        writer.endRow();
+                        rows++;
+                    }
+                }
+                uncompressed = channel.count();
+            }
+        } catch (IOException | SQLException | RuntimeException e) {
+            Files.deleteIfExists(part);
+            throw e;
+        }
+
+        long bytes = Files.size(part);
+        try {
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(part, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return new ExportStats(file.getFileName().toString(), rows, bytes, uncompressed, System.nanoTime() - began);
+    }
+
+
+    /**
+     * @param file The file to write
+     * @param gzip True to gzip what is written
+     * @return A channel writing to the file, through gzip if asked for
+     * @throws IOException If the file could not be opened
+     */
+    private static WritableByteChannel open(Path file, boolean gzip) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        if (!gzip) {
+            return channel;
+        }
+        try {
+            return Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(channel), bufferSize));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+
+    private static void write(RecordWriter writer, ResultSet results, int column, int kind) throws SQLException, IOException {
+        switch (kind) {
+            case NUMBER:
+                writer.number(column, results.getString(column + 1));
+                break;
+            case TIMESTAMP:
+                Timestamp t = results.getTimestamp(column + 1);
+                writer.text(column, t == null ? null : t.toInstant().toString());
+                break;
+            default:
+                writer.text(column, results.getString(column + 1));
+        }
+    }
+
+
+    private static int kind(int sqlType) {
+        switch (sqlType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+            case Types.REAL:
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return NUMBER;
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+            case Types.DATE:
+                return TIMESTAMP;
+            default:
+                return TEXT;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package export;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Class for writing export rows as one JSON array of objects.
+ *
+ * <p>
+ * The array is written as the rows come in, one object per line. The keys are escaped once, up front.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+final class JsonRecordWriter extends RecordWriter {
+
+    private final String[] keys;
+    private boolean firstRow = true;
+
+    JsonRecordWriter(Writer out, String[] columns) {
+        super(out, columns);
+        keys = new String[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            StringBuilder key = new StringBuilder();
+            key.append(i > 0 ? ",\"" : "\"");
+            escape(columns[i], key);
+            key.append("\":");
+            keys[i] = key.toString();
+        }
+    }
+
+    @Override
+    void begin() throws IOException {
+        out.write('[');
+    }
+
+    @Override
+    void beginRow() throws IOException {
+        out.write(firstRow ? "\n{" : ",\n{");
+        firstRow = false;
+    }
+
+    @Override
+    void text(int column, String value) throws IOException {
+        out.write(keys[column]);
+        if (value == null) {
+            out.write("null");
+            return;
+        }
+        out.write('"');
+        int from = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                out.write(value, from, i - from);
+                out.write(escaped(c));
+                from = i + 1;
+            }
+        }
+        out.write(value, from, value.length() - from);
+        out.write('"');
+    }
+
+    @Override
+    void number(int column, String value) throws IOException {
+        out.write(keys[column]);
+        out.write(value == null ? "null" : value);
+    }
+
+    @Override
+    void endRow() throws IOException {
+        out.write('}');
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            out.write(firstRow ? "]\n" : "\n]\n");
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void escape(String s, StringBuilder to) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                to.append(escaped(c));
+            } else {
+                to.append(c);
+            }
+        }
+    }
+
+    private static String escaped(char c) {
+        switch (c) {
+            case '"':
+                return "\\\"";
+            case '\\':
+                return "\\\\";
+            case '\n':
+                return "\\n";
+            case '\r':
+                return "\\r";
+            case '\t':
+                return "\\t";
+            default:
+                return String.format("\\u%04x", (int) c);
+        }
+    }
+}
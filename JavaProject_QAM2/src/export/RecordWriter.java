@@ -0,0 +1,45 @@
+package export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Class for writing the rows of an export one value at a time, so no row is ever held in memory.
+ *
+ * <p>
+ * The document is started with <i>begin</i>. A row is written as <i>beginRow</i>, one <i>text</i> or <i>number</i>
+ * call per column in order, then <i>endRow</i>. Closing the writer ends the document and closes the output.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+abstract class RecordWriter implements Closeable {
+
+    protected final Writer out;
+    protected final String[] columns;
+
+    RecordWriter(Writer out, String[] columns) {
+        this.out = out;
+        this.columns = columns;
+    }
+
+    abstract void begin() throws IOException;
+
+    abstract void beginRow() throws IOException;
+
+    /**
+     * @param column The index of the column, from 0
+     * @param value  The value, may be null
+     */
+    abstract void text(int column, String value) throws IOException;
+
+    /**
+     * @param column The index of the column, from 0
+     * @param value  The value as the database printed it, may be null
+     */
+    abstract void number(int column, String value) throws IOException;
+
+    abstract void endRow() throws IOException;
+}
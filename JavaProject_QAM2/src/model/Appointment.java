@@ -1,6 +1,9 @@
 package model;
 
 import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 /**
  * Class for creating an Appointment object.
@@ -8,27 +11,45 @@ import java.sql.Timestamp;
  * <p>
  * This class declares and defines the fields and methods for an Appointment.
  * </p>
+ * <p>
+ * Appointments are kept in memory by the thousands, so they are stored compactly:
+ *     <ul>
+ *         <li>The four date/times are kept as epoch milliseconds, the <i>Timestamp</i> getters build a new
+ *         Timestamp on each call. Code that only compares or converts times should use the <i>Millis</i> getters.</li>
+ *         <li>The location, type, contact name and audit user names repeat across appointments, so they are shared
+ *         through a <i>StringPool</i>: every appointment points at the one pooled copy, and a value no appointment
+ *         uses anymore is dropped from the pool.</li>
+ *     </ul>
+ * The getters are unchanged, so <i>PropertyValueFactory</i> bindings work as before.
+ * </p>
  *
  * @author Zachary Zamiska
  * @version JDK 11.0
  */
 public class Appointment {
 
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    /**
+     * The pool shared by the low cardinality strings of every appointment.
+     */
+    private static final StringPool pool = new StringPool();
+
     private final int appId;
     private final String appTitle;
     private final String appDescription;
     private final String appLocation;
     private final int appContactId;
     private final String appType;
-    private final Timestamp appStartDate;
-    private final Timestamp appEndDate;
-    private final Timestamp appCreatedDate;
+    private final long appStartMillis;
+    private final long appEndMillis;
+    private final long appCreatedMillis;
     private final String appCreatedBy;
-    private final Timestamp appUpdatedDate;
+    private final long appUpdatedMillis;
     private final String appUpdatedBy;
     private final int appCustomerId;
     private final int appUserId;
-    private String appContactName;
+    private final String appContactName;
 
 
     /**
@@ -54,20 +75,7 @@ public class Appointment {
      * @param appUserId      The ID of the customer in the appointment
      */
     public Appointment(int appId, String appTitle, String appDescription, String appLocation, int appContactId, String appType, Timestamp appStartDate, Timestamp appEndDate, Timestamp appCreatedDate, String appCreatedBy, Timestamp appUpdatedDate, String appUpdatedBy, int appCustomerId, int appUserId) {
-        this.appId = appId;
-        this.appTitle = appTitle;
-        this.appDescription = appDescription;
-        this.appLocation = appLocation;
-        this.appContactId = appContactId;
-        this.appType = appType;
-        this.appStartDate = appStartDate;
-        this.appEndDate = appEndDate;
-        this.appCreatedDate = appCreatedDate;
-        this.appCreatedBy = appCreatedBy;
-        this.appUpdatedDate = appUpdatedDate;
-        this.appUpdatedBy = appUpdatedBy;
-        this.appCustomerId = appCustomerId;
-        this.appUserId = appUserId;
+        this(appId, appTitle, appDescription, appLocation, appContactId, appType, appStartDate, appEndDate, appCreatedDate, appCreatedBy, appUpdatedDate, appUpdatedBy, appCustomerId, appUserId, null);
     }
 
     /**
@@ -97,18 +105,18 @@ public class Appointment {
         this.appId = appId;
         this.appTitle = appTitle;
         this.appDescription = appDescription;
-        this.appLocation = appLocation;
+        this.appLocation = pool.intern(appLocation);
         this.appContactId = appContactId;
-        this.appType = appType;
-        this.appStartDate = appStartDate;
-        this.appEndDate = appEndDate;
-        this.appCreatedDate = appCreatedDate;
-        this.appCreatedBy = appCreatedBy;
-        this.appUpdatedDate = appUpdatedDate;
-        this.appUpdatedBy = appUpdatedBy;
+        this.appType = pool.intern(appType);
+        this.appStartMillis = millis(appStartDate);
+        this.appEndMillis = millis(appEndDate);
+        this.appCreatedMillis = millis(appCreatedDate);
+        this.appCreatedBy = pool.intern(appCreatedBy);
+        this.appUpdatedMillis = millis(appUpdatedDate);
+        this.appUpdatedBy = pool.intern(appUpdatedBy);
         this.appCustomerId = appCustomerId;
         this.appUserId = appUserId;
-        this.appContactName = appContactName;
+        this.appContactName = pool.intern(appContactName);
     }
 
     /**
@@ -157,21 +165,21 @@ public class Appointment {
      * @return the appointment start time/date
      */
     public Timestamp getAppStartDate() {
-        return appStartDate;
+        return timestamp(appStartMillis);
     }
 
     /**
      * @return the appointment end time/date
      */
     public Timestamp getAppEndDate() {
-        return appEndDate;
+        return timestamp(appEndMillis);
     }
 
     /**
      * @return the appointment date/time created
      */
     public Timestamp getAppCreatedDate() {
-        return appCreatedDate;
+        return timestamp(appCreatedMillis);
     }
 
     /**
@@ -185,7 +193,7 @@ public class Appointment {
      * @return the appointment date/time it was last updated
      */
     public Timestamp getAppUpdatedDate() {
-        return appUpdatedDate;
+        return timestamp(appUpdatedMillis);
     }
 
     /**
@@ -223,4 +231,57 @@ public class Appointment {
     public String getAppContactName() {
         return appContactName;
     }
+
+    /**
+     * @return the appointment start time/date in epoch milliseconds, without building a Timestamp, or
+     * <i>Long.MIN_VALUE</i> if it was not loaded
+     */
+    public long getAppStartMillis() {
+        return appStartMillis;
+    }
+
+    /**
+     * @return the appointment end time/date in epoch milliseconds, without building a Timestamp, or
+     * <i>Long.MIN_VALUE</i> if it was not loaded
+     */
+    public long getAppEndMillis() {
+        return appEndMillis;
+    }
+
+    /**
+     * @return the appointment date/time it was last updated in epoch milliseconds, without building a Timestamp,
+     * or <i>Long.MIN_VALUE</i> if it was not loaded
+     */
+    public long getAppUpdatedMillis() {
+        return appUpdatedMillis;
+    }
+
+    /**
+     * @return the appointment start time/date in the local time zone, like <i>getAppStartDate().toLocalDateTime()</i>,
+     * or null if it was not loaded
+     */
+    public LocalDateTime getAppStartLocal() {
+        return local(appStartMillis);
+    }
+
+    /**
+     * @return the appointment end time/date in the local time zone, like <i>getAppEndDate().toLocalDateTime()</i>,
+     * or null if it was not loaded
+     */
+    public LocalDateTime getAppEndLocal() {
+        return local(appEndMillis);
+    }
+
+
+    private static long millis(Timestamp t) {
+        return t == null ? NO_TIME : t.getTime();
+    }
+
+    private static Timestamp timestamp(long millis) {
+        return millis == NO_TIME ? null : new Timestamp(millis);
+    }
+
+    private static LocalDateTime local(long millis) {
+        return millis == NO_TIME ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
 }
@@ -0,0 +1,20 @@
+package model;
+
+/**
+ * Functional interface for listening to appointment changes.
+ *
+ * <p>
+ * Listeners are registered with <i>AppointmentDAO.addChangeListener</i> and are told about every appointment that is
+ * inserted, modified or deleted, so in-memory views of the appointments can be kept up to date without reloading them.
+ * </p>
+ */
+@FunctionalInterface
+public interface AppointmentChangeInterface {
+
+    /**
+     * @param appointmentId The ID of the appointment that changed
+     * @param appointment   The appointment as it is now, or null if it was deleted
+     */
+    void appointmentChanged(int appointmentId, Appointment appointment);
+
+}
@@ -0,0 +1,184 @@
+package model;
+
+import java.lang.ref.Reference;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Class for measuring how much heap <i>Appointment</i> takes, against the layout it had before it was made compact.
+ *
+ * <p>
+ * The same made up appointments, from a fixed seed so every run is the same, are built twice: once as
+ * <i>Appointment</i> objects and once as <i>Wide</i> objects, which keep four <i>Timestamp</i> objects and their own
+ * copy of every string like the old <i>Appointment</i> did. Every string is a new copy, as the JDBC driver hands out
+ * for each row. The heap in use is read after a garbage collection before and after each build, so the database is
+ * not needed and nothing else is counted.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+public final class AppointmentHeapBenchmark {
+
+    private static final String[] types = {"Planning Session", "De-Briefing", "Follow Up", "Consultation", "Review", "Training"};
+    private static final String[] locations = {"U.S", "UK", "Canada", "Phoenix, Arizona", "White Plains, New York"};
+    private static final String[] contacts = {"Anika Costa", "Daniel Garcia", "Li Lee"};
+    private static final String[] users = {"test", "admin", "scheduler", "script"};
+
+
+    private AppointmentHeapBenchmark() {
+    }
+
+
+    /**
+     * Method that builds the appointments both ways and measures the heap each one takes.
+     *
+     * @param rows The number of appointments to build
+     * @return The heap taken by each layout
+     */
+    public static Result run(int rows) {
+        Result result = new Result(rows);
+
+        long before = usedHeap();
+        List<Appointment> compact = new ArrayList<>(rows);
+        Random random = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            compact.add(compact(i, random));
+        }
+        result.compactBytes = usedHeap() - before;
+        Reference.reachabilityFence(compact);
+        compact = null;
+
+        before = usedHeap();
+        List<Wide> wide = new ArrayList<>(rows);
+        random = new Random(42);
+        for (int i = 0; i < rows; i++) {
+            wide.add(wide(i, random));
+        }
+        result.wideBytes = usedHeap() - before;
+        Reference.reachabilityFence(wide);
+        return result;
+    }
+
+
+    private static Appointment compact(int id, Random random) {
+        long start = 1_700_000_000_000L + random.nextInt(365 * 24) * 3_600_000L;
+        return new Appointment(id, "Title " + id, "Description of appointment " + id, copy(locations, random),
+                1 + random.nextInt(contacts.length), copy(types, random), new Timestamp(start),
+                new Timestamp(start + 3_600_000L), new Timestamp(start), copy(users, random), new Timestamp(start),
+                copy(users, random), 1 + random.nextInt(100), 1 + random.nextInt(users.length), copy(contacts, random));
+    }
+
+
+    private static Wide wide(int id, Random random) {
+        long start = 1_700_000_000_000L + random.nextInt(365 * 24) * 3_600_000L;
+        return new Wide(id, "Title " + id, "Description of appointment " + id, copy(locations, random),
+                1 + random.nextInt(contacts.length), copy(types, random), new Timestamp(start),
+                new Timestamp(start + 3_600_000L), new Timestamp(start), copy(users, random), new Timestamp(start),
+                copy(users, random), 1 + random.nextInt(100), 1 + random.nextInt(users.length), copy(contacts, random));
+    }
+
+
+    /**
+     * @return a new copy of a random one of the values, like a string read from a result set
+     */
+    private static String copy(String[] values, Random random) {
+        return new String(values[random.nextInt(values.length)].toCharArray());
+    }
+
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // Collect until the used heap stops going down, a single System.gc() may leave garbage behind
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+
+
+    /**
+     * An appointment laid out like <i>Appointment</i> was before it was made compact.
+     */
+    @SuppressWarnings("unused")
+    private static final class Wide {
+
+        private final int appId;
+        private final String appTitle;
+        private final String appDescription;
+        private final String appLocation;
+        private final int appContactId;
+        private final String appType;
+        private final Timestamp appStartDate;
+        private final Timestamp appEndDate;
+        private final Timestamp appCreatedDate;
+        private final String appCreatedBy;
+        private final Timestamp appUpdatedDate;
+        private final String appUpdatedBy;
+        private final int appCustomerId;
+        private final int appUserId;
+        private final String appContactName;
+
+        private Wide(int appId, String appTitle, String appDescription, String appLocation, int appContactId, String appType, Timestamp appStartDate, Timestamp appEndDate, Timestamp appCreatedDate, String appCreatedBy, Timestamp appUpdatedDate, String appUpdatedBy, int appCustomerId, int appUserId, String appContactName) {
+            this.appId = appId;
+            this.appTitle = appTitle;
+            this.appDescription = appDescription;
+            this.appLocation = appLocation;
+            this.appContactId = appContactId;
+            this.appType = appType;
+            this.appStartDate = appStartDate;
+            this.appEndDate = appEndDate;
+            this.appCreatedDate = appCreatedDate;
+            this.appCreatedBy = appCreatedBy;
+            this.appUpdatedDate = appUpdatedDate;
+            this.appUpdatedBy = appUpdatedBy;
+            this.appCustomerId = appCustomerId;
+            this.appUserId = appUserId;
+            this.appContactName = appContactName;
+        }
+    }
+
+
+    /**
+     * The heap taken by each layout.
+     */
+    public static final class Result {
+
+        private final int rows;
+        private long compactBytes;
+        private long wideBytes;
+
+        private Result(int rows) {
+            this.rows = rows;
+        }
+
+        /**
+         * @return the number of appointments built each way
+         */
+        public int getRows() {
+            return rows;
+        }
+
+        /**
+         * @return the heap taken by the appointments as <i>Appointment</i> objects, in bytes
+         */
+        public long getCompactBytes() {
+            return compactBytes;
+        }
+
+        /**
+         * @return the heap taken by the appointments in the old layout, in bytes
+         */
+        public long getWideBytes() {
+            return wideBytes;
+        }
+    }
+}
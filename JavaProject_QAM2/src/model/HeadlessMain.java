@@ -0,0 +1,337 @@
+package model;
+
+import audit.LoginJournal;
+import audit.LoginOutcome;
+import data_access.ReportDAO;
+import data_access.RowMapperBenchmark;
+import database.JDBC;
+import export.ExportFormat;
+import export.ExportStats;
+import export.Exporter;
+
+import security.PasswordHasher;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.SQLException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.ZoneId;
+import java.time.format.TextStyle;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The headless entry point of the program, for running the reports and exports from the command line.
+ *
+ * <p>
+ * This class uses the data layer without starting JavaFX, so it runs on servers with no display, for example from
+ * cron. Only the data access classes are used; they return JavaFX collections, which need no toolkit or display.
+ * </p>
+ * <p>
+ * Usage: <i>java model.HeadlessMain &lt;command&gt; [arguments]</i>
+ *     <ul>
+ *         <li><i>types</i>: lists every appointment type in use.</li>
+ *         <li><i>month-type [month] [type]</i>: counts the appointments by month and type. Without a month or type,
+ *         every month or type is counted.</li>
+ *         <li><i>contact &lt;id&gt;</i>: prints the schedule of a contact.</li>
+ *         <li><i>user &lt;id&gt;</i>: prints the schedule of a user.</li>
+ *         <li><i>export &lt;directory&gt; [csv|json] [gzip]</i>: writes the appointment book and every report to
+ *         files (see <i>Exporter.exportAll</i>).</li>
+ *         <li><i>logins [user=&lt;name&gt;] [from=&lt;date&gt;] [to=&lt;date&gt;] [success|failure|throttled|busy]</i>:
+ *         searches the login journal (see <i>LoginJournal</i>). The dates are ISO dates, <i>to</i> is included. This
+ *         command does not use the database.</li>
+ *         <li><i>bench-hash [seconds] [threads]</i>: measures how many password checks (see <i>PasswordHasher</i>)
+ *         run per second, in total and per thread, with one thread per processor by default. This command does not
+ *         use the database.</li>
+ *         <li><i>bench-rows [seconds]</i>: measures how long mapping the appointments takes with <i>RowMappers</i>,
+ *         which reads each column by index, against reading each column by name (see <i>RowMapperBenchmark</i>).</li>
+ *         <li><i>bench-heap [rows]</i>: measures the heap taken by a million (by default) made up appointments, as
+ *         <i>Appointment</i> objects and in the layout they had before (see <i>AppointmentHeapBenchmark</i>). This
+ *         command does not use the database.</li>
+ *     </ul>
+ * The report goes to standard out and the timing stats to standard error. The exit code is 0 on success, 1 if the
+ * command failed (a failed query is not printed as an empty report) and 2 if the arguments were wrong.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+public class HeadlessMain {
+
+    private static final PrintStream out = System.out;
+    private static final PrintStream err = System.err;
+
+
+    public static void main(String[] args) {
+        System.exit(run(args));
+    }
+
+
+    /**
+     * Method that runs one command and reports how long it took.
+     *
+     * @param args The command line arguments
+     * @return The exit code
+     */
+    static int run(String[] args) {
+        if (args.length == 0) {
+            usage();
+            return 2;
+        }
+        long began = System.nanoTime();
+        int code;
+        try {
+            code = command(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            usage();
+            code = 2;
+        } catch (Exception e) {
+            e.printStackTrace();
+            code = 1;
+        } finally {
+            JDBC.closeConnection();
+        }
+        err.printf(Locale.ROOT, "%s finished in %d ms (exit %d, statement cache %d hits / %d misses)%n", args[0],
+                (System.nanoTime() - began) / 1_000_000, code, JDBC.getStatementCacheHits(), JDBC.getStatementCacheMisses());
+        return code;
+    }
+
+
+    private static int command(String[] args) throws Exception {
+        switch (args[0]) {
+            case "types":
+                ReportDAO.queryTypes().forEach(out::println);
+                return 0;
+            case "month-type":
+                return monthType(args.length > 1 ? month(args[1]) : null, args.length > 2 ? args[2] : null);
+            case "contact":
+                return schedule(ReportDAO.queryAppointmentsForContact(id(args)));
+            case "user":
+                return schedule(ReportDAO.queryAppointmentsForUser(id(args)));
+            case "export":
+                return export(args);
+            case "logins":
+                return logins(args);
+            case "bench-hash":
+                return benchHash(args);
+            case "bench-rows":
+                return benchRows(args);
+            case "bench-heap":
+                return benchHeap(args);
+            default:
+                throw new IllegalArgumentException("Unknown command: " + args[0]);
+        }
+    }
+
+
+    private static int monthType(Month month, String type) throws SQLException {
+        if (month != null && type != null) {
+            print(month, type, ReportDAO.queryCountByMonthAndType(month, type));
+            return 0;
+        }
+        Map<Month, Map<String, Integer>> counts = ReportDAO.queryCountAllByMonthAndType();
+        Set<String> types = new TreeSet<>();
+        if (type != null) {
+            types.add(type);
+        } else {
+            counts.values().forEach(byType -> types.addAll(byType.keySet()));
+        }
+        for (Month m : Month.values()) {
+            if (month != null && m != month) {
+                continue;
+            }
+            Map<String, Integer> byType = counts.getOrDefault(m, Map.of());
+            for (String t : types) {
+                print(m, t, byType.getOrDefault(t, 0));
+            }
+        }
+        return 0;
+    }
+
+
+    private static void print(Month month, String type, int count) {
+        out.println(month.getDisplayName(TextStyle.FULL, Locale.ROOT) + "\t" + type + "\t" + count);
+    }
+
+
+    private static int schedule(List<Appointment> appointments) {
+        for (Appointment a : appointments) {
+            out.println(a.getAppId() + "\t" + a.getAppTitle() + "\t" + a.getAppType() + "\t" + a.getAppDescription()
+                    + "\t" + a.getAppStartLocal() + "\t" + a.getAppEndLocal() + "\t" + a.getAppCustomerId());
+        }
+        err.println(appointments.size() + " appointments");
+        return 0;
+    }
+
+
+    private static int export(String[] args) throws Exception {
+        if (args.length < 2) {
+            throw new IllegalArgumentException("export needs a directory");
+        }
+        Path directory = Paths.get(args[1]);
+        ExportFormat format = ExportFormat.CSV;
+        boolean gzip = false;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equalsIgnoreCase("gzip")) {
+                gzip = true;
+            } else {
+                format = ExportFormat.valueOf(args[i].toUpperCase(Locale.ROOT));
+            }
+        }
+        for (ExportStats stats : Exporter.exportAll(directory, format, gzip)) {
+            err.println(stats);
+        }
+        return 0;
+    }
+
+
+    private static int logins(String[] args) throws Exception {
+        String user = null;
+        Instant from = null;
+        Instant to = null;
+        LoginOutcome outcome = null;
+        ZoneId zone = ZoneId.systemDefault();
+        for (int i = 1; i < args.length; i++) {
+            String arg = args[i];
+            try {
+                if (arg.startsWith("user=")) {
+                    user = arg.substring("user=".length());
+                } else if (arg.startsWith("from=")) {
+                    from = LocalDate.parse(arg.substring("from=".length())).atStartOfDay(zone).toInstant();
+                } else if (arg.startsWith("to=")) {
+                    to = LocalDate.parse(arg.substring("to=".length())).plusDays(1).atStartOfDay(zone).toInstant();
+                } else {
+                    outcome = LoginOutcome.valueOf(arg.toUpperCase(Locale.ROOT));
+                }
+            } catch (DateTimeException e) {
+                throw new IllegalArgumentException("Not a date: " + arg);
+            }
+        }
+        List<LoginJournal.Entry> entries = LoginJournal.query(from, to, user, outcome);
+        for (LoginJournal.Entry entry : entries) {
+            out.print(entry.render());
+        }
+        err.println(entries.size() + " log in attempts");
+        return 0;
+    }
+
+
+    private static int benchHash(String[] args) throws Exception {
+        int seconds;
+        int threads;
+        try {
+            seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+            threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bench-hash takes a number of seconds and of threads");
+        }
+        char[] password = "Passw0rd!".toCharArray();
+        String stored = PasswordHasher.hash(password);
+        PasswordHasher.verify(password, stored); // Warm up
+
+        AtomicLong checks = new AtomicLong();
+        long until = System.nanoTime() + seconds * 1_000_000_000L;
+        Thread[] workers = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Thread(() -> {
+                while (System.nanoTime() < until) {
+                    PasswordHasher.verify(password, stored);
+                    checks.incrementAndGet();
+                }
+            }, "bench-hash-" + i);
+            workers[i].start();
+        }
+        long began = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        double elapsed = (System.nanoTime() - began) / 1e9;
+        double perSecond = checks.get() / elapsed;
+        out.printf(Locale.ROOT, "%s: %d checks in %.1f s on %d threads: %.1f checks/s, %.1f checks/s per thread (%.0f ms each)%n",
+                stored.substring(0, stored.indexOf('$', stored.indexOf('$') + 1)), checks.get(), elapsed, threads, perSecond,
+                perSecond / threads, threads * 1000 / perSecond);
+        return 0;
+    }
+
+
+    private static int benchRows(String[] args) throws Exception {
+        int seconds;
+        try {
+            seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bench-rows takes a number of seconds");
+        }
+        RowMapperBenchmark.Result result = RowMapperBenchmark.run(seconds);
+        if (result.getRows() == 0) {
+            err.println("No appointments to map");
+            return 1;
+        }
+        double byName = (double) result.getByNameNanos() / result.getRows();
+        double byIndex = (double) result.getByIndexNanos() / result.getRows();
+        out.printf(Locale.ROOT, "%d rows in %d passes: by name %.0f ns/row, by index %.0f ns/row (%.2fx)%n",
+                result.getRows(), result.getPasses(), byName, byIndex, byName / byIndex);
+        return 0;
+    }
+
+
+    private static int benchHeap(String[] args) {
+        int rows;
+        try {
+            rows = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bench-heap takes a number of rows");
+        }
+        AppointmentHeapBenchmark.Result result = AppointmentHeapBenchmark.run(rows);
+        double compact = (double) result.getCompactBytes() / result.getRows();
+        double wide = (double) result.getWideBytes() / result.getRows();
+        out.printf(Locale.ROOT, "%d appointments: compact %.0f bytes each (%d MB), wide %.0f bytes each (%d MB) (%.2fx)%n",
+                result.getRows(), compact, result.getCompactBytes() >> 20, wide, result.getWideBytes() >> 20, wide / compact);
+        return 0;
+    }
+
+
+    private static int id(String[] args) {
+        if (args.length < 2) {
+            throw new IllegalArgumentException(args[0] + " needs an ID");
+        }
+        try {
+            return Integer.parseInt(args[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Not an ID: " + args[1]);
+        }
+    }
+
+
+    private static Month month(String s) {
+        try {
+            return Month.of(Integer.parseInt(s));
+        } catch (NumberFormatException e) {
+            return Month.valueOf(s.toUpperCase(Locale.ROOT));
+        } catch (DateTimeException e) {
+            throw new IllegalArgumentException("Not a month: " + s);
+        }
+    }
+
+
+    private static void usage() {
+        err.println("Usage: HeadlessMain <command> [arguments]");
+        err.println("  types");
+        err.println("  month-type [month] [type]");
+        err.println("  contact <id>");
+        err.println("  user <id>");
+        err.println("  export <directory> [csv|json] [gzip]");
+        err.println("  logins [user=<name>] [from=<date>] [to=<date>] [success|failure|throttled|busy]");
+        err.println("  bench-hash [seconds] [threads]");
+        err.println("  bench-rows [seconds]");
+        err.println("  bench-heap [rows]");
+    }
+}
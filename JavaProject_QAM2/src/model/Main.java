@@ -1,25 +1,34 @@
 package model;
 
+import data_access.AsyncDAO;
+import data_access.ReferenceDataCache;
 import database.JDBC;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.event.ActionEvent;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
-import javafx.scene.control.Button;
 import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.Locale;
-import java.util.Objects;
 import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
  * The main class for the program.
  *
+ * <p>
+ * The log in window is shown first, before the database is touched. The connection pool, the reference data and the
+ * <i>Main Screen</i> are then warmed up in the background while the user types, and the start is timed by
+ * <i>StartupMetrics</i>.
+ * </p>
+ * <p>
+ * With <i>-Dstartup.trainingRun=true</i> the program warms up, loads every view and exits by itself. This is the run
+ * <i>scripts/build-cds-archive.sh</i> records the loaded classes of, for the class data sharing archive.
+ * </p>
+ *
  * @author Zachary Zamiska
  * @version JDK 11.0
  */
@@ -28,10 +37,11 @@ public class Main extends Application {
 
     public static LocalDateTime time = LocalDateTime.from(LocalDateTime.now().atZone(ZoneId.systemDefault()));
 
+    private static final boolean trainingRun = Boolean.getBoolean("startup.trainingRun");
+
     public static void main(String[] args) {
 
 
-        JDBC.openConnection();
         launch(args);
         JDBC.closeConnection();
     }
@@ -40,20 +50,18 @@ public class Main extends Application {
     /**
      * Method to change stages. This is a method to reduce redundancy when changing scenes with any action event handlers
      *
+     * <p>
+     * The view is handed out by the <i>SceneCache</i>, so it is only loaded the first time it is shown and refreshed
+     * every time after that.
+     * </p>
+     *
      * @param view  The string of the scene to load
      * @param event The event handler to use
      * @throws IOException This exception is thrown when there is no page to navigate to.
+     * @see SceneCache
      */
     public static void SetStage(String view, ActionEvent event) throws IOException {
-        Stage stage;
-        Parent scene;
-
-        stage = (Stage) ((Button) event.getSource()).getScene().getWindow();
-        scene = FXMLLoader.load(Objects.requireNonNull(Main.class.getResource(view)));
-
-        stage.setScene(new Scene(scene));
-
-        stage.show();
+        SceneCache.show(view, event);
     }
 
 
@@ -66,10 +74,39 @@ public class Main extends Application {
     @Override
     public void start(Stage stage) throws IOException {
 
-        Parent root = FXMLLoader.load(Objects.requireNonNull(getClass().getResource("/view/LoginScreen.fxml")));
         stage.setTitle("Screen");
-        stage.setScene(new Scene(root));
-        stage.show();
+        SceneCache.show("/view/LoginScreen.fxml", stage);
+        StartupMetrics.mark("login window");
+
+        CompletableFuture<Void> warmUp = warmUp();
+        if (trainingRun) {
+            warmUp.whenComplete((done, e) -> Platform.runLater(() ->
+                    SceneCache.preload("/view/MainScreen.fxml", "/view/AddAppointment.fxml", "/view/ModifyAppointment.fxml",
+                            "/view/CustomerData.fxml", "/view/AddCustomer.fxml", "/view/ModifyCustomer.fxml", "/view/Report.fxml")
+                            .whenComplete((loaded, ex) -> Platform.exit())));
+        }
+    }
+
 
+    /**
+     * Method that gets the program ready for the first log in while the log in window is up.
+     *
+     * <p>
+     * The database connection pool is opened, the reference data is loaded and the <i>Main Screen</i> is loaded by the
+     * <i>SceneCache</i>, all at the same time on background threads. The reference data queries wait on the pool
+     * being opened, the <i>Main Screen</i> does not.
+     * </p>
+     *
+     * @return A future that completes when all of it is done, or failed
+     */
+    private static CompletableFuture<Void> warmUp() {
+        return CompletableFuture.allOf(
+                AsyncDAO.supply(() -> {
+                    JDBC.openConnection();
+                    return null;
+                }),
+                ReferenceDataCache.preload(),
+                SceneCache.preload("/view/MainScreen.fxml"))
+                .whenComplete((done, e) -> StartupMetrics.mark("warm up"));
     }
 }
@@ -0,0 +1,20 @@
+package model;
+
+/**
+ * Functional interface for controllers of views that are kept by <i>SceneCache</i>.
+ *
+ * <p>
+ * A cached view is only loaded, and its controller only initialized, once. <i>SceneCache</i> calls <i>refresh()</i>
+ * every time the view is shown, the first time included, so the controller can reset its inputs and reload whatever
+ * may have changed since it was last on screen instead of being built again.
+ * </p>
+ */
+@FunctionalInterface
+public interface RefreshInterface {
+
+    /**
+     * Method called on the JavaFX Application Thread right after the view is put on the stage.
+     */
+    void refresh();
+
+}
@@ -0,0 +1,189 @@
+package model;
+
+import javafx.application.Platform;
+import javafx.event.ActionEvent;
+import javafx.fxml.FXMLLoader;
+import javafx.scene.Node;
+import javafx.scene.Scene;
+import javafx.stage.Stage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Class for moving between the views of the program without building them again.
+ *
+ * <p>
+ * Each view is loaded from its FXML file once. Its scene and controller are kept, and the next time the view is asked
+ * for the kept scene is put back on the stage, so the FXML is not parsed again and the controller is not injected and
+ * initialized again. Controllers that implement <i>RefreshInterface</i> are refreshed every time their view is shown,
+ * that is where they reset their inputs and reload their data.
+ * </p>
+ * <p>
+ * Views the user is likely to go to next can be loaded ahead of time on a background thread with <i>preload</i>. The
+ * FXML is loaded and the controller initialized on that thread, the scene is made on the JavaFX Application Thread once
+ * it is done. Controllers of preloaded views should therefore leave anything that must happen on the JavaFX Application
+ * Thread, or that depends on the logged in user, to <i>refresh()</i>. Preloading can be turned off with
+ * <i>-Dscenes.preload=false</i>.
+ * </p>
+ * <p>
+ * Apart from the background loading, the cache should only be used on the JavaFX Application Thread.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ * @see RefreshInterface
+ */
+public final class SceneCache {
+
+    private static final boolean preloadEnabled = Boolean.parseBoolean(System.getProperty("scenes.preload", "true"));
+
+    private static final Map<String, View> views = new HashMap<>();
+    private static final Map<String, CompletableFuture<Void>> preloading = new HashMap<>();
+    private static long generation;
+
+    private static final ExecutorService preloader = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "scene-preloader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+
+    private SceneCache() {
+    }
+
+
+    /**
+     * Method that shows a view on the stage of the button that was pressed.
+     *
+     * @param view  The path of the FXML file of the view, for example "/view/MainScreen.fxml"
+     * @param event The action event of the button that was pressed
+     * @param <T>   The type of the controller of the view
+     * @return The controller of the view
+     * @throws IOException If the view has not been loaded yet and its FXML file could not be loaded
+     */
+    public static <T> T show(String view, ActionEvent event) throws IOException {
+        return show(view, (Stage) ((Node) event.getSource()).getScene().getWindow());
+    }
+
+
+    /**
+     * Method that shows a view on a stage, loading it first if it is not in the cache.
+     *
+     * @param view  The path of the FXML file of the view
+     * @param stage The stage to show the view on
+     * @param <T>   The type of the controller of the view
+     * @return The controller of the view, already refreshed
+     * @throws IOException If the view has not been loaded yet and its FXML file could not be loaded
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T show(String view, Stage stage) throws IOException {
+        View cached = views.get(view);
+        if (cached == null) {
+            cached = new View(load(view));
+            views.put(view, cached);
+        }
+
+        stage.setScene(cached.scene);
+        stage.show();
+
+        if (cached.controller instanceof RefreshInterface) {
+            ((RefreshInterface) cached.controller).refresh();
+        }
+        return (T) cached.controller;
+    }
+
+
+    /**
+     * Method that loads views in the background, so they are in the cache the first time they are shown.
+     *
+     * <p>
+     * Views that are already in the cache are skipped, and views already being loaded are not loaded twice. A view
+     * that is shown before its background load is done is loaded right away as usual, and the background load is
+     * thrown away.
+     * </p>
+     *
+     * @param viewPaths The paths of the FXML files of the views
+     * @return A future that completes on the JavaFX Application Thread once every view is in the cache, or failed to load
+     */
+    public static CompletableFuture<Void> preload(String... viewPaths) {
+        if (!preloadEnabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long startedIn = generation;
+        List<CompletableFuture<Void>> loads = new ArrayList<>();
+
+        for (String view : viewPaths) {
+            if (views.containsKey(view)) {
+                continue;
+            }
+            CompletableFuture<Void> loaded = preloading.get(view);
+            if (loaded == null) {
+                CompletableFuture<Void> done = new CompletableFuture<>();
+                preloading.put(view, done);
+                CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return load(view);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, preloader).whenComplete((loader, e) -> Platform.runLater(() -> {
+                    preloading.remove(view);
+                    if (e != null) {
+                        e.printStackTrace();
+                    } else if (startedIn == generation && !views.containsKey(view)) {
+                        views.put(view, new View(loader));
+                    }
+                    done.complete(null);
+                }));
+                loaded = done;
+            }
+            loads.add(loaded);
+        }
+        return CompletableFuture.allOf(loads.toArray(new CompletableFuture<?>[0]));
+    }
+
+
+    /**
+     * Method that drops every view from the cache, they are loaded again the next time they are shown.
+     *
+     * <p>
+     * This is used when the user logs out, so nothing of one user's session is carried into the next. Background
+     * loads still running are thrown away when they finish.
+     * </p>
+     */
+    public static void clear() {
+        views.clear();
+        generation++;
+    }
+
+
+    private static FXMLLoader load(String view) throws IOException {
+        FXMLLoader loader = new FXMLLoader(Objects.requireNonNull(SceneCache.class.getResource(view)));
+        loader.load();
+        return loader;
+    }
+
+
+    /**
+     * The scene and controller kept for one view.
+     */
+    private static final class View {
+
+        private final Scene scene;
+        private final Object controller;
+
+        private View(FXMLLoader loader) {
+            scene = new Scene(loader.getRoot());
+            controller = loader.getController();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package model;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Class for measuring how long the program takes to start.
+ *
+ * <p>
+ * Each step of the start is marked once, the first time it is reached, and printed with the milliseconds since the
+ * JVM was started and since the step marked before it. The steps marked are:
+ *     <ul>
+ *         <li><i>login window</i>: the log in window is on screen.</li>
+ *         <li><i>warm up</i>: the connection pool, the reference data and the <i>Main Screen</i> are loaded.</li>
+ *         <li><i>logged in</i>: the first user got through the log in.</li>
+ *         <li><i>main table</i>: the first page of appointments is in the <i>Main Screen</i> table.</li>
+ *     </ul>
+ * The time to the main table includes the time the user took to log in, the time since <i>logged in</i> does not.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+public final class StartupMetrics {
+
+    private static final long jvmStart = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli)
+            .orElse(System.currentTimeMillis());
+
+    private static final Map<String, Long> marks = new LinkedHashMap<>();
+    private static long lastMark = jvmStart;
+
+
+    private StartupMetrics() {
+    }
+
+
+    /**
+     * Method that marks a step of the start, only the first time it is reached.
+     *
+     * @param step The name of the step
+     */
+    public static synchronized void mark(String step) {
+        if (marks.containsKey(step)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        marks.put(step, now);
+        System.out.println("Startup: " + step + " after " + (now - jvmStart) + " ms (+" + (now - lastMark) + " ms)");
+        lastMark = now;
+    }
+}
@@ -0,0 +1,102 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Class for dictionary encoding strings that repeat a lot.
+ *
+ * <p>
+ * Every distinct string is stored once and given an int code, so a model object can keep the code instead of its own
+ * copy of the string. Decoding is an array read and always hands back the same string instance for a code.
+ * </p>
+ * <p>
+ * Codes are never taken back, so a dictionary should only be used for columns with few distinct values, and by
+ * something that is thrown away and built again, like the column store. Objects that live for the whole program
+ * should share their strings through a <i>StringPool</i> instead. It is safe to use from any thread.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+public final class StringDictionary {
+
+    /**
+     * The code of a null string.
+     */
+    public static final int NULL = -1;
+
+    /**
+     * What <i>lookup</i> hands back for a string that is not in the dictionary.
+     */
+    public static final int MISSING = -2;
+
+    private final ConcurrentHashMap<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] strings = new String[16];
+    private int size;
+
+
+    /**
+     * Method that gets the code of a string, adding the string to the dictionary if it is new.
+     *
+     * @param s The string to encode, may be null
+     * @return The code of the string, or <i>NULL</i> for null
+     */
+    public int encode(String s) {
+        if (s == null) {
+            return NULL;
+        }
+        Integer code = codes.get(s);
+        return code != null ? code : add(s);
+    }
+
+
+    /**
+     * Method that gets the code of a string without adding it, for looking things up by a string that came from
+     * outside.
+     *
+     * @param s The string to look up, may be null
+     * @return The code of the string, <i>NULL</i> for null, or <i>MISSING</i> if the string is not in the dictionary
+     */
+    public int lookup(String s) {
+        if (s == null) {
+            return NULL;
+        }
+        Integer code = codes.get(s);
+        return code != null ? code : MISSING;
+    }
+
+
+    /**
+     * @param code A code handed out by <i>encode</i>, or <i>NULL</i>
+     * @return the string of the code, or null for <i>NULL</i>
+     */
+    public String decode(int code) {
+        return code == NULL ? null : strings[code];
+    }
+
+
+    /**
+     * @return the number of distinct strings in the dictionary
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+
+    private synchronized int add(String s) {
+        Integer code = codes.get(s);
+        if (code != null) {
+            return code;
+        }
+        String[] table = strings;
+        if (size == table.length) {
+            table = Arrays.copyOf(table, size * 2);
+        }
+        table[size] = s;
+        // Publish the table before the code, so a reader that sees the code also sees the string
+        strings = table;
+        codes.put(s, size);
+        return size++;
+    }
+}
@@ -0,0 +1,55 @@
+package model;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Class for sharing one instance of strings that repeat a lot, between the objects that hold them.
+ *
+ * <p>
+ * Every row read from the database comes with its own copy of each string. <i>intern</i> hands back the instance the
+ * pool already has for an equal string, so thousands of appointments of the same type point at one string. The
+ * reference is as small as an int code, so this costs no more per object than a <i>StringDictionary</i> code.
+ * </p>
+ * <p>
+ * Unlike <i>StringDictionary</i>, the pool only holds its strings weakly: once no object points at a string anymore it
+ * is dropped from the pool by the garbage collector. A long running program that sees many different values, like
+ * appointment types typed in by hand, does not keep all of them forever. It is safe to use from any thread.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+public final class StringPool {
+
+    private final Map<String, WeakReference<String>> strings = new WeakHashMap<>();
+
+
+    /**
+     * Method that gets the shared instance of a string, adding the string to the pool if it is new.
+     *
+     * @param s The string, may be null
+     * @return The pooled string equal to it, or null for null
+     */
+    public synchronized String intern(String s) {
+        if (s == null) {
+            return null;
+        }
+        WeakReference<String> ref = strings.get(s);
+        String pooled = ref == null ? null : ref.get();
+        if (pooled == null) {
+            strings.put(s, new WeakReference<>(s));
+            pooled = s;
+        }
+        return pooled;
+    }
+
+
+    /**
+     * @return the number of distinct strings in the pool that have not been collected yet
+     */
+    public synchronized int size() {
+        return strings.size();
+    }
+}
@@ -0,0 +1,248 @@
+package security;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Class for limiting how fast log ins can be tried, per user name and per source.
+ *
+ * <p>
+ * Every key (a user name, or the source of the attempts) has a token bucket: it starts with <i>burst</i> tokens, an
+ * attempt takes one and a token comes back every <i>refillMillis</i>. An attempt is only let through if both its user
+ * name and its source have a token, so guessing the passwords of one user and trying one password on many users are
+ * both slowed down.
+ * </p>
+ * <p>
+ * The limiter never locks:
+ *     <ul>
+ *         <li>A bucket is one <i>AtomicLong</i> holding the time it was last updated and its tokens (in thousandths),
+ *         updated with compare-and-set. Attempts for different keys never touch the same counter, so the counters are
+ *         striped as finely as they can be: one per key, rather than a fixed number of stripes that several keys
+ *         would share and throttle each other through.</li>
+ *         <li>Buckets live in a <i>ConcurrentHashMap</i> and expire through a time wheel: a bucket is put in the slot
+ *         of the time it will be full again, and the callers sweep the slots that have come due as time passes. A full
+ *         bucket is the same as no bucket. A bucket is expired by setting it to <i>DEAD</i> with compare-and-set while it
+ *         is still full, and only then taken out of the map, so an attempt racing the sweep either takes its token
+ *         before (and the bucket is kept) or sees it dead and starts a new one. Expiring never lets an extra attempt
+ *         through.</li>
+ *     </ul>
+ * User names are compared ignoring case, like the unique index on <i>User_Name</i> does, so "admin" and "ADMIN" share
+ * one bucket even though only the exact name can log in.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+public final class LoginRateLimiter {
+
+    private static final int TOKEN_BITS = 22;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long ONE = 1000;
+    private static final int SLOTS = 64;
+    /**
+     * The state of an expired bucket, no packed state is negative.
+     */
+    private static final long DEAD = -1L;
+
+    private static final LoginRateLimiter users = new LoginRateLimiter(
+            Integer.getInteger("login.rate.userBurst", 5), Long.getLong("login.rate.userRefillMillis", 60_000L));
+    private static final LoginRateLimiter sources = new LoginRateLimiter(
+            Integer.getInteger("login.rate.sourceBurst", 20), Long.getLong("login.rate.sourceRefillMillis", 3_000L));
+
+    private final long capacity;
+    private final long refillMillis;
+    private final long base = System.currentTimeMillis();
+    private final long tickMillis;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final List<ConcurrentLinkedQueue<String>> wheel = new ArrayList<>(SLOTS);
+    private final AtomicLong sweptTick = new AtomicLong();
+
+
+    /**
+     * @param burst        The number of attempts a key can make at once, at most 4000
+     * @param refillMillis The time it takes for one attempt to come back
+     * @throws IllegalArgumentException If the burst or refill time is out of range
+     */
+    LoginRateLimiter(int burst, long refillMillis) {
+        if (burst < 1 || burst * ONE > TOKEN_MASK || refillMillis < 1) {
+            throw new IllegalArgumentException("Bad login rate limit: " + burst + " per " + refillMillis + " ms");
+        }
+        this.capacity = burst * ONE;
+        this.refillMillis = refillMillis;
+        // Half a lap of the wheel is the time to fill an empty bucket
+        this.tickMillis = Math.max(1, burst * refillMillis * 2 / SLOTS);
+        for (int i = 0; i < SLOTS; i++) {
+            wheel.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+
+    /**
+     * Method that takes one attempt from the user name and from the source.
+     *
+     * <p>
+     * If the source has no attempt left, the one taken from the user name is given back.
+     * </p>
+     *
+     * @param userName The user name entered
+     * @param source   Where the attempt comes from, for example the workstation
+     * @return True if the attempt may go ahead, false if it is to be refused
+     */
+    public static boolean tryAcquire(String userName, String source) {
+        String user = userName == null ? "" : userName.toLowerCase(Locale.ROOT);
+        long now = System.currentTimeMillis();
+        if (!users.tryAcquire(user, now)) {
+            return false;
+        }
+        if (!sources.tryAcquire(source == null ? "" : source, now)) {
+            users.giveBack(user);
+            return false;
+        }
+        return true;
+    }
+
+
+    /**
+     * @param key The key of the bucket
+     * @param now The time now, in epoch milliseconds
+     * @return true if a token was taken
+     */
+    boolean tryAcquire(String key, long now) {
+        sweep(now);
+        long t = now - base;
+        AtomicLong bucket = bucket(key, t);
+        while (true) {
+            long state = bucket.get();
+            if (state == DEAD) {
+                // Expired by a sweep after it was looked up, start over with a new full bucket
+                buckets.remove(key, bucket);
+                bucket = bucket(key, t);
+                continue;
+            }
+            long tokens = tokens(state, t);
+            if (tokens < ONE) {
+                return false;
+            }
+            if (bucket.compareAndSet(state, pack(Math.max(t, state >>> TOKEN_BITS), tokens - ONE))) {
+                return true;
+            }
+        }
+    }
+
+
+    /**
+     * @return the bucket of a key, a new full one if it has none
+     */
+    private AtomicLong bucket(String key, long t) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            AtomicLong created = new AtomicLong(pack(t, capacity));
+            bucket = buckets.putIfAbsent(key, created);
+            if (bucket == null) {
+                bucket = created;
+                schedule(key, t);
+            }
+        }
+        return bucket;
+    }
+
+
+    private void giveBack(String key) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            return;
+        }
+        while (true) {
+            long state = bucket.get();
+            if (state == DEAD) {
+                return; // a dead bucket was full, there is nothing to give back
+            }
+            long next = pack(state >>> TOKEN_BITS, Math.min(capacity, (state & TOKEN_MASK) + ONE));
+            if (bucket.compareAndSet(state, next)) {
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * @return the tokens of a bucket at time t, refilled since it was last updated
+     */
+    private long tokens(long state, long t) {
+        long last = state >>> TOKEN_BITS;
+        long tokens = state & TOKEN_MASK;
+        if (t > last) {
+            tokens = Math.min(capacity, tokens + (t - last) * ONE / refillMillis);
+        }
+        return tokens;
+    }
+
+
+    /**
+     * Method that puts a key in the slot of the time its bucket will be full again.
+     */
+    private void schedule(String key, long t) {
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            return;
+        }
+        long state = bucket.get();
+        if (state == DEAD) {
+            return;
+        }
+        long missing = capacity - tokens(state, t);
+        long fullAt = t + (missing * refillMillis + ONE - 1) / ONE;
+        wheel.get((int) ((fullAt / tickMillis + 1) % SLOTS)).add(key);
+    }
+
+
+    /**
+     * Method that expires the full buckets in the slots that have come due since the last sweep. Only one caller
+     * sweeps a given tick.
+     */
+    private void sweep(long now) {
+        long t = now - base;
+        long tick = t / tickMillis;
+        long swept = sweptTick.get();
+        if (tick <= swept || !sweptTick.compareAndSet(swept, tick)) {
+            return;
+        }
+        for (long s = Math.max(swept + 1, tick - SLOTS + 1); s <= tick; s++) {
+            ConcurrentLinkedQueue<String> slot = wheel.get((int) (s % SLOTS));
+            for (int n = slot.size(); n > 0; n--) {
+                String key = slot.poll();
+                if (key == null) {
+                    break;
+                }
+                AtomicLong bucket = buckets.get(key);
+                if (bucket == null) {
+                    continue;
+                }
+                long state = bucket.get();
+                // The compare-and-set fails if a token was taken since the get, the bucket is then kept
+                if (state == DEAD || (tokens(state, t) >= capacity && bucket.compareAndSet(state, DEAD))) {
+                    buckets.remove(key, bucket);
+                } else {
+                    schedule(key, t);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * @return the number of keys with a bucket that has not expired yet
+     */
+    int size() {
+        return buckets.size();
+    }
+
+
+    private static long pack(long t, long tokens) {
+        return (t << TOKEN_BITS) | tokens;
+    }
+}
@@ -0,0 +1,144 @@
+package security;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Class for hashing and checking user passwords with PBKDF2.
+ *
+ * <p>
+ * A hashed password is stored as <i>pbkdf2-sha256$&lt;iterations&gt;$&lt;salt&gt;$&lt;hash&gt;</i>, with a random
+ * 16 byte salt per password and the salt and hash in Base64. Every check redoes the whole hash, which is meant to be
+ * slow (the <i>password.iterations</i> system property, 600 000 by default), so a stolen users table cannot be
+ * guessed through quickly.
+ * </p>
+ * <p>
+ * Passwords stored before hashing was added are still plain text. They are checked with a constant time comparison
+ * and <i>needsRehash</i> tells the caller to store them hashed once the user has logged in.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+public final class PasswordHasher {
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final int iterations = Integer.getInteger("password.iterations", 600_000);
+
+    private static final SecureRandom random = new SecureRandom();
+
+    private PasswordHasher() {
+    }
+
+
+    /**
+     * Method that hashes a password with a new random salt.
+     *
+     * @param password The password
+     * @return The hashed password, ready to be stored
+     */
+    public static String hash(char[] password) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = pbkdf2(password, salt, iterations);
+        Base64.Encoder base64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + base64.encodeToString(salt) + "$" + base64.encodeToString(hash);
+    }
+
+
+    /**
+     * Method that checks a password against a stored password, hashed or plain text.
+     *
+     * @param password The password entered
+     * @param stored   The stored password, may be null
+     * @return True if the password matches
+     */
+    public static boolean verify(char[] password, String stored) {
+        if (stored == null) {
+            return false;
+        }
+        if (!isHashed(stored)) {
+            byte[] entered = new String(password).getBytes(StandardCharsets.UTF_8);
+            return MessageDigest.isEqual(entered, stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            int storedIterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(pbkdf2(password, salt, storedIterations), expected);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+
+    /**
+     * Method that does the work of one check against nothing, so a log in with an unknown user name takes as long as
+     * one with a wrong password.
+     *
+     * @param password The password entered
+     */
+    public static void verifyNothing(char[] password) {
+        pbkdf2(password, new byte[SALT_BYTES], iterations);
+    }
+
+
+    /**
+     * @param stored A stored password
+     * @return true if the password is stored as a hash
+     */
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX + "$");
+    }
+
+
+    /**
+     * @param stored A stored password
+     * @return true if the password is plain text or hashed with fewer iterations than are used now
+     */
+    public static boolean needsRehash(String stored) {
+        if (!isHashed(stored)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+
+    private static byte[] pbkdf2(char[] password, byte[] salt, int rounds) {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, rounds, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            // PBKDF2WithHmacSHA256 is in every Java SE runtime
+            throw new IllegalStateException(e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+
+    /**
+     * @param password A password that is no longer needed
+     */
+    static void clear(char[] password) {
+        Arrays.fill(password, '\0');
+    }
+}
@@ -0,0 +1,148 @@
+package security;
+
+import data_access.AsyncDAO;
+import data_access.UserDAO;
+import model.User;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class for checking log ins off the JavaFX Application Thread.
+ *
+ * <p>
+ * A password check is a deliberately slow hash (see <i>PasswordHasher</i>), so it is given its own small pool of
+ * threads instead of the DAO pool or the JavaFX Application Thread:
+ *     <ul>
+ *         <li>Every log in first goes through the <i>LoginRateLimiter</i>. One it refuses is answered <i>THROTTLED</i>
+ *         without any database or hashing work.</li>
+ *         <li>The pool has <i>password.verifyThreads</i> threads, half of the processors by default, so a flood of
+ *         log ins can never take every core from the UI and the DAO calls.</li>
+ *         <li>At most <i>password.maxPending</i> checks (four per thread by default) are admitted at once. A log in
+ *         beyond that is answered <i>BUSY</i> straight away instead of queueing without bound.</li>
+ *         <li>An unknown user name costs one hash as well, so the time of a failed log in does not tell whether the
+ *         user exists.</li>
+ *         <li>A user whose password is still stored in plain text, or with fewer iterations than are used now, has it
+ *         stored as a new hash after logging in successfully.</li>
+ *     </ul>
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+public final class PasswordVerifier {
+
+    private static final int threads = Integer.getInteger("password.verifyThreads", Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    private static final int maxPending = Integer.getInteger("password.maxPending", threads * 4);
+
+    private static final Semaphore admission = new Semaphore(maxPending);
+    private static final ExecutorService executor = createExecutor();
+
+    private PasswordVerifier() {
+    }
+
+
+    /**
+     * Enum for the answer to a log in.
+     */
+    public enum Status {
+        VERIFIED,
+        REJECTED,
+        BUSY,
+        THROTTLED
+    }
+
+
+    /**
+     * Class for the answer to a log in: its status and, when verified, the user.
+     */
+    public static final class Result {
+
+        private final Status status;
+        private final User user;
+
+        private Result(Status status, User user) {
+            this.status = status;
+            this.user = user;
+        }
+
+        /**
+         * @return how the log in was answered
+         */
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return the user that logged in, null unless the status is <i>VERIFIED</i>
+         */
+        public User getUser() {
+            return user;
+        }
+    }
+
+
+    private static ExecutorService createExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "password-verifier-" + count.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        });
+    }
+
+
+    /**
+     * Method that checks a log in in the background.
+     *
+     * <p>
+     * The password array is cleared once the check is done. The future never completes exceptionally, an error is
+     * printed and answered <i>REJECTED</i>.
+     * </p>
+     *
+     * @param userName The user name entered
+     * @param source   Where the log in comes from, for the rate limiter
+     * @param password The password entered
+     * @return A future of the answer
+     */
+    public static CompletableFuture<Result> verify(String userName, String source, char[] password) {
+        if (!LoginRateLimiter.tryAcquire(userName, source)) {
+            PasswordHasher.clear(password);
+            return CompletableFuture.completedFuture(new Result(Status.THROTTLED, null));
+        }
+        if (!admission.tryAcquire()) {
+            PasswordHasher.clear(password);
+            return CompletableFuture.completedFuture(new Result(Status.BUSY, null));
+        }
+        return AsyncDAO.supply(() -> UserDAO.findByUserName(userName))
+                .thenApplyAsync(user -> check(user, password), executor)
+                .exceptionally(e -> {
+                    e.printStackTrace();
+                    return new Result(Status.REJECTED, null);
+                })
+                .whenComplete((result, e) -> {
+                    PasswordHasher.clear(password);
+                    admission.release();
+                });
+    }
+
+
+    private static Result check(User user, char[] password) {
+        if (user == null) {
+            PasswordHasher.verifyNothing(password);
+            return new Result(Status.REJECTED, null);
+        }
+        if (!PasswordHasher.verify(password, user.getUserPassword())) {
+            return new Result(Status.REJECTED, null);
+        }
+        if (PasswordHasher.needsRehash(user.getUserPassword())) {
+            String hash = PasswordHasher.hash(password);
+            AsyncDAO.supply(() -> UserDAO.updatePassword(user, hash));
+        }
+        return new Result(Status.VERIFIED, user);
+    }
+}
@@ -0,0 +1,121 @@
+package audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Class for testing that <i>LoginJournal</i> reads back what it wrote.
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+class LoginJournalTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final ZoneId paris = ZoneId.of("Europe/Paris");
+
+
+    @Test
+    void findsAttemptsByUserTimeAndOutcomeAfterReopening() throws IOException {
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            long day = LocalDate.of(2024, 3, 1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            try (LoginJournal journal = new LoginJournal(directory)) {
+                journal.append(LoginRecord.attempt(day + 10 * MINUTE, paris, "test", LoginOutcome.FAILURE, 1));
+                journal.append(LoginRecord.attempt(day + 11 * MINUTE, paris, "test", LoginOutcome.SUCCESS, 1));
+                journal.append(LoginRecord.attempt(day + 20 * MINUTE, ZoneId.of("UTC"), "admin", LoginOutcome.FAILURE, 1));
+            }
+            try (LoginJournal journal = new LoginJournal(directory)) {
+                journal.append(LoginRecord.attempt(day + 30 * MINUTE, paris, "test", LoginOutcome.FAILURE, 1));
+                journal.append(LoginRecord.attempt(day + 31 * MINUTE, paris, "test", LoginOutcome.THROTTLED, 2));
+            }
+
+            assertEquals(5, LoginJournal.query(directory, null, null, null, null).size());
+
+            List<LoginJournal.Entry> failures = LoginJournal.query(directory, null, null, "test", LoginOutcome.FAILURE);
+            assertEquals(2, failures.size());
+            assertEquals(Instant.ofEpochMilli(day + 10 * MINUTE), failures.get(0).getTime().toInstant());
+            assertEquals(paris, failures.get(0).getTime().getZone());
+            assertEquals(Instant.ofEpochMilli(day + 30 * MINUTE), failures.get(1).getTime().toInstant());
+
+            List<LoginJournal.Entry> window = LoginJournal.query(directory, Instant.ofEpochMilli(day + 11 * MINUTE),
+                    Instant.ofEpochMilli(day + 31 * MINUTE), null, null);
+            assertEquals(3, window.size(), "from is included, to is not");
+            assertEquals("admin", window.get(1).getUserName());
+
+            List<LoginJournal.Entry> throttled = LoginJournal.query(directory, null, null, null, LoginOutcome.THROTTLED);
+            assertEquals(1, throttled.size());
+            assertEquals(2, throttled.get(0).getAttemptNumber());
+
+            assertTrue(LoginJournal.query(directory, null, null, "nobody", null).isEmpty());
+        } finally {
+            delete(directory);
+        }
+    }
+
+
+    @Test
+    void growsASegmentOnlyAsFarAsItIsUsed() throws IOException {
+        Path directory = Files.createTempDirectory("journal");
+        try {
+            long day = LocalDate.of(2024, 3, 2).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            try (LoginJournal journal = new LoginJournal(directory)) {
+                journal.append(LoginRecord.attempt(day, paris, "test", LoginOutcome.SUCCESS, 0));
+            }
+            assertTrue(size(directory) < 64 * 1024, "a day with one log in takes a small file, not a full segment");
+
+            // Past the first few doublings, every record must still be there in order
+            try (LoginJournal journal = new LoginJournal(directory)) {
+                for (int i = 1; i < 1000; i++) {
+                    journal.append(LoginRecord.attempt(day + i, paris, "user" + (i % 3), LoginOutcome.FAILURE, i));
+                }
+            }
+            List<LoginJournal.Entry> all = LoginJournal.query(directory, null, null, null, null);
+            assertEquals(1000, all.size());
+            for (int i = 0; i < all.size(); i++) {
+                assertEquals(day + i, all.get(i).getTime().toInstant().toEpochMilli());
+            }
+            assertEquals(333, LoginJournal.query(directory, null, null, "user1", null).size());
+            assertTrue(size(directory) < 1024 * 1024);
+        } finally {
+            delete(directory);
+        }
+    }
+
+
+    private static long size(Path directory) throws IOException {
+        long size = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                size += Files.size(path);
+            }
+        }
+        return size;
+    }
+
+
+    private static void delete(Path directory) throws IOException {
+        List<Path> paths = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                paths.add(path);
+            }
+        }
+        for (Path path : paths) {
+            Files.delete(path);
+        }
+        Files.delete(directory);
+    }
+}
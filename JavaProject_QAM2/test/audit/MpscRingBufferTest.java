@@ -0,0 +1,116 @@
+package audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Class for testing <i>MpscRingBuffer</i>.
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+class MpscRingBufferTest {
+
+    @Test
+    void refusesOffersWhenFull() {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4), "a full ring takes no more");
+
+        assertEquals(0, (int) ring.poll());
+        assertTrue(ring.offer(4), "a polled slot can be used again");
+        assertFalse(ring.offer(5));
+    }
+
+
+    @Test
+    void keepsOrderAcrossManyLaps() {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(8);
+        int next = 0;
+        int expected = 0;
+        for (int lap = 0; lap < 100; lap++) {
+            while (ring.offer(next)) {
+                next++;
+            }
+            // Take a few less than were put in, so the head and tail wrap at different slots
+            for (int i = 0; i < 5; i++) {
+                assertEquals(expected++, (int) ring.poll());
+            }
+        }
+        while (!ring.isEmpty()) {
+            assertEquals(expected++, (int) ring.poll());
+        }
+        assertEquals(next, expected);
+        assertNull(ring.poll());
+    }
+
+
+    @Test
+    void isEmptyUntilSomethingIsOffered() {
+        MpscRingBuffer<String> ring = new MpscRingBuffer<>(2);
+        assertTrue(ring.isEmpty());
+        assertNull(ring.poll());
+        ring.offer("a");
+        assertFalse(ring.isEmpty());
+        assertEquals("a", ring.poll());
+        assertTrue(ring.isEmpty());
+    }
+
+
+    @Test
+    @Timeout(10)
+    void losesNothingWithManyProducers() throws InterruptedException {
+        MpscRingBuffer<Integer> ring = new MpscRingBuffer<>(16);
+        int producers = 4;
+        int each = 2_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int first = p * each;
+            Thread thread = new Thread(() -> {
+                for (int i = first; i < first + each; i++) {
+                    while (!ring.offer(i)) {
+                        Thread.yield(); // the consumer may need this processor to make room
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            threads.add(thread);
+            thread.start();
+        }
+
+        Set<Integer> seen = new HashSet<>();
+        // Stops when the timeout interrupts it, if an element was lost
+        while (seen.size() < producers * each && !Thread.currentThread().isInterrupted()) {
+            Integer e = ring.poll();
+            if (e != null) {
+                assertTrue(seen.add(e), "taken twice: " + e);
+            } else {
+                Thread.yield();
+            }
+        }
+        assertEquals(producers * each, seen.size());
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(ring.isEmpty());
+    }
+
+
+    @Test
+    void rejectsACapacityThatIsNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<Integer>(6));
+    }
+}
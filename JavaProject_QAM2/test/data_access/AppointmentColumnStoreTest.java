@@ -0,0 +1,95 @@
+package data_access;
+
+import model.Appointment;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Class for testing the row by row updates of <i>AppointmentColumnStore</i>.
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+class AppointmentColumnStoreTest {
+
+    private static final long HOUR = 3_600_000L;
+
+
+    @Test
+    void writesAChangeIntoItsRow() {
+        AppointmentColumnStore store = new AppointmentColumnStore();
+        store.load(1, "First", "One", "UK", "Review", 9 * HOUR, 10 * HOUR, 1, 1, 1);
+        store.load(2, "Second", "Two", "UK", "Review", 11 * HOUR, 12 * HOUR, 1, 1, 1);
+
+        store.apply(1, appointment(1, "Moved", "Later now", 13 * HOUR, 1));
+
+        assertEquals(2, store.size());
+        List<Appointment> found = store.getAppointmentsWithContact(1);
+        assertEquals(List.of(2, 1), ids(found), "the moved appointment sorts by its new start");
+        assertEquals("Moved", found.get(1).getAppTitle());
+        assertEquals("Later now", found.get(1).getAppDescription());
+        assertEquals(13 * HOUR, found.get(1).getAppStartMillis());
+    }
+
+
+    @Test
+    void addsNewAppointmentsAndRemovesDeletedOnes() {
+        AppointmentColumnStore store = new AppointmentColumnStore();
+        for (int id = 1; id <= 5; id++) {
+            store.load(id, "Title " + id, "Description " + id, "UK", "Review", id * HOUR, id * HOUR + 1, 1, id % 2, 1);
+        }
+
+        store.apply(2, null);
+        store.apply(6, appointment(6, "New", null, 0, 1));
+        store.apply(42, null); // not in the store
+
+        assertEquals(5, store.size());
+        assertEquals(List.of(6, 1, 3, 4, 5), ids(store.getAppointmentsWithContact(1)));
+        assertEquals(List.of(4), ids(store.getAppointmentsWithUser(0)));
+        assertNull(store.getAppointmentsWithContact(1).get(0).getAppDescription(), "a null description stays null");
+    }
+
+
+    @Test
+    void keepsEveryTextThroughCompactions() {
+        AppointmentColumnStore store = new AppointmentColumnStore();
+        for (int id = 1; id <= 3000; id++) {
+            store.load(id, "Title " + id, "Description " + id, "UK", "Review", id * HOUR, id * HOUR + 1, 1, 1, 1);
+        }
+        // Rewrites every title many times, so the text buffer fills up with old text and has to be compacted
+        for (int round = 0; round < 20; round++) {
+            for (int id = 1; id <= 3000; id += 7) {
+                store.apply(id, appointment(id, "Title " + id + " round " + round + " \u00e9t\u00e9", "Description " + id, id * HOUR, 1));
+            }
+        }
+
+        List<Appointment> found = store.getAppointmentsWithContact(1);
+        assertEquals(3000, found.size());
+        for (Appointment a : found) {
+            String title = (a.getAppId() - 1) % 7 == 0 ? "Title " + a.getAppId() + " round 19 \u00e9t\u00e9" : "Title " + a.getAppId();
+            assertEquals(title, a.getAppTitle());
+            assertEquals("Description " + a.getAppId(), a.getAppDescription());
+        }
+    }
+
+
+    private static Appointment appointment(int id, String title, String description, long start, int contactId) {
+        return new Appointment(id, title, description, "UK", contactId, "Review", new Timestamp(start),
+                new Timestamp(start + HOUR), null, null, null, null, 1, 1);
+    }
+
+
+    private static List<Integer> ids(List<Appointment> appointments) {
+        List<Integer> ids = new ArrayList<>();
+        for (Appointment a : appointments) {
+            ids.add(a.getAppId());
+        }
+        return ids;
+    }
+}
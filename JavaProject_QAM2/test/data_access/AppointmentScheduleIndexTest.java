@@ -0,0 +1,133 @@
+package data_access;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Class for testing the interval tree of <i>AppointmentScheduleIndex</i>.
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+class AppointmentScheduleIndexTest {
+
+    private static final long HOUR = 3_600_000L;
+
+
+    @Test
+    void staysBalancedWhenInsertedInOrder() {
+        AppointmentScheduleIndex index = new AppointmentScheduleIndex();
+        for (int id = 1; id <= 1000; id++) {
+            index.load(id, 1, id * HOUR, id * HOUR + HOUR / 2);
+        }
+        // An AVL tree of n nodes is at most 1.44 log2(n + 2) high
+        int height = index.checkTree(1);
+        assertTrue(height <= 14, "Height " + height + " for 1000 appointments");
+        assertEquals(1000, index.size());
+    }
+
+
+    @Test
+    void findsOnlyRealOverlaps() {
+        AppointmentScheduleIndex index = new AppointmentScheduleIndex();
+        index.load(1, 1, 9 * HOUR, 10 * HOUR);
+        index.load(2, 1, 10 * HOUR, 11 * HOUR);
+        index.load(3, 2, 9 * HOUR, 11 * HOUR);
+
+        assertEquals(List.of(1), ids(index.findOverlapping(1, 9 * HOUR + 1, 10 * HOUR, -1)), "back to back slots do not overlap");
+        assertEquals(List.of(1, 2), ids(index.findOverlapping(1, 9 * HOUR, 11 * HOUR, -1)));
+        assertEquals(List.of(2), ids(index.findOverlapping(1, 9 * HOUR, 11 * HOUR, 1)), "the excluded appointment is left out");
+        assertEquals(List.of(), ids(index.findOverlapping(1, 11 * HOUR, 12 * HOUR, -1)));
+    }
+
+
+    @Test
+    void maxEndFindsLongAppointmentsThatStartEarly() {
+        AppointmentScheduleIndex index = new AppointmentScheduleIndex();
+        // Starts first and ends last, it is only found if the max ends of the subtrees are right
+        index.load(1, 1, 0, 1000 * HOUR);
+        for (int id = 2; id <= 200; id++) {
+            index.load(id, 1, id * HOUR, id * HOUR + 1);
+        }
+        index.checkTree(1);
+
+        assertEquals(List.of(1), ids(index.findOverlapping(1, 500 * HOUR + 10, 500 * HOUR + 20, -1)));
+        assertEquals(List.of(1, 150), ids(index.findOverlapping(1, 150 * HOUR, 150 * HOUR + 1, -1)));
+    }
+
+
+    @Test
+    void matchesABruteForceScanThroughInsertsAndDeletes() {
+        Random random = new Random(42);
+        AppointmentScheduleIndex index = new AppointmentScheduleIndex();
+        List<long[]> live = new ArrayList<>();
+
+        for (int id = 1; id <= 500; id++) {
+            long start = random.nextInt(10_000) * HOUR / 10;
+            long end = start + (1 + random.nextInt(50)) * HOUR / 10;
+            index.load(id, 1, start, end);
+            live.add(new long[]{id, start, end});
+        }
+        Collections.shuffle(live, random);
+        for (long[] gone : new ArrayList<>(live.subList(0, 250))) {
+            index.remove((int) gone[0]);
+            live.remove(gone);
+            index.checkTree(1);
+        }
+        assertEquals(250, index.size());
+
+        for (int query = 0; query < 200; query++) {
+            long start = random.nextInt(10_000) * HOUR / 10;
+            long end = start + (1 + random.nextInt(50)) * HOUR / 10;
+            List<Integer> expected = new ArrayList<>();
+            live.stream()
+                    .filter(a -> a[1] < end && a[2] > start)
+                    .sorted((a, b) -> a[1] != b[1] ? Long.compare(a[1], b[1]) : Long.compare(a[0], b[0]))
+                    .forEach(a -> expected.add((int) a[0]));
+            assertEquals(expected, ids(index.findOverlapping(1, start, end, -1)));
+        }
+    }
+
+
+    @Test
+    void dropsTheTreeOfACustomerWithNoAppointmentsLeft() {
+        AppointmentScheduleIndex index = new AppointmentScheduleIndex();
+        for (int id = 1; id <= 50; id++) {
+            index.load(id, 7, id * HOUR, id * HOUR + HOUR);
+        }
+        for (int id = 50; id >= 1; id--) {
+            index.remove(id);
+            index.checkTree(7);
+        }
+        assertEquals(0, index.checkTree(7));
+        assertEquals(0, index.size());
+    }
+
+
+    @Test
+    void movesAnAppointmentThatIsLoadedAgain() {
+        AppointmentScheduleIndex index = new AppointmentScheduleIndex();
+        index.load(1, 1, 9 * HOUR, 10 * HOUR);
+        index.load(1, 2, 14 * HOUR, 15 * HOUR);
+
+        assertEquals(List.of(), ids(index.findOverlapping(1, 0, 24 * HOUR, -1)));
+        assertEquals(List.of(1), ids(index.findOverlapping(2, 0, 24 * HOUR, -1)));
+        assertEquals(1, index.size());
+    }
+
+
+    private static List<Integer> ids(List<AppointmentScheduleIndex.Interval> intervals) {
+        List<Integer> ids = new ArrayList<>();
+        for (AppointmentScheduleIndex.Interval interval : intervals) {
+            ids.add(interval.getAppointmentId());
+        }
+        return ids;
+    }
+}
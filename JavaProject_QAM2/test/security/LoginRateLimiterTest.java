@@ -0,0 +1,115 @@
+package security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Class for testing the token buckets of <i>LoginRateLimiter</i>.
+ *
+ * <p>
+ * The times are handed in, so nothing here waits on the clock.
+ * </p>
+ *
+ * @author Zachary Zamiska
+ * @version JDK 11.0
+ */
+class LoginRateLimiterTest {
+
+    @Test
+    void letsABurstThroughThenRefuses() {
+        LoginRateLimiter limiter = new LoginRateLimiter(3, 1000);
+        long now = System.currentTimeMillis();
+        assertTrue(limiter.tryAcquire("admin", now));
+        assertTrue(limiter.tryAcquire("admin", now));
+        assertTrue(limiter.tryAcquire("admin", now));
+        assertFalse(limiter.tryAcquire("admin", now));
+    }
+
+
+    @Test
+    void refillsOneAttemptPerRefillTime() {
+        LoginRateLimiter limiter = new LoginRateLimiter(3, 1000);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("admin", now);
+        }
+
+        assertFalse(limiter.tryAcquire("admin", now + 999));
+        assertTrue(limiter.tryAcquire("admin", now + 1000));
+        assertFalse(limiter.tryAcquire("admin", now + 1000));
+
+        assertTrue(limiter.tryAcquire("admin", now + 3000));
+        assertTrue(limiter.tryAcquire("admin", now + 3000));
+        assertFalse(limiter.tryAcquire("admin", now + 3000));
+    }
+
+
+    @Test
+    void neverRefillsPastTheBurst() {
+        LoginRateLimiter limiter = new LoginRateLimiter(2, 1000);
+        long now = System.currentTimeMillis();
+        limiter.tryAcquire("admin", now);
+
+        long later = now + 100_000;
+        assertTrue(limiter.tryAcquire("admin", later));
+        assertTrue(limiter.tryAcquire("admin", later));
+        assertFalse(limiter.tryAcquire("admin", later));
+    }
+
+
+    @Test
+    void keepsKeysApart() {
+        LoginRateLimiter limiter = new LoginRateLimiter(1, 1000);
+        long now = System.currentTimeMillis();
+        assertTrue(limiter.tryAcquire("admin", now));
+        assertFalse(limiter.tryAcquire("admin", now));
+        assertTrue(limiter.tryAcquire("test", now));
+    }
+
+
+    @Test
+    void expiresBucketsOnceTheyAreFull() {
+        LoginRateLimiter limiter = new LoginRateLimiter(3, 1000);
+        long now = System.currentTimeMillis();
+        limiter.tryAcquire("admin", now);
+        limiter.tryAcquire("admin", now);
+        assertEquals(1, limiter.size());
+
+        // Any attempt sweeps the wheel, the bucket of "admin" was full again long ago
+        limiter.tryAcquire("test", now + 60_000);
+        assertEquals(1, limiter.size(), "only the bucket of \"test\" is left");
+
+        // An expired bucket starts over full, the same as one that was kept
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire("admin", now + 60_000));
+        }
+        assertFalse(limiter.tryAcquire("admin", now + 60_000));
+    }
+
+
+    @Test
+    void keepsBucketsThatAreNotFullYet() {
+        LoginRateLimiter limiter = new LoginRateLimiter(3, 1000);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 3; i++) {
+            limiter.tryAcquire("admin", now);
+        }
+
+        limiter.tryAcquire("test", now + 1500);
+        assertEquals(2, limiter.size());
+        assertTrue(limiter.tryAcquire("admin", now + 1500));
+        assertFalse(limiter.tryAcquire("admin", now + 1500), "the sweep did not hand out a new bucket");
+    }
+
+
+    @Test
+    void rejectsLimitsOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new LoginRateLimiter(0, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new LoginRateLimiter(5000, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new LoginRateLimiter(5, 0));
+    }
+}